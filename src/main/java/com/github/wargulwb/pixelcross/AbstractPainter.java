@@ -3,10 +3,13 @@ package com.github.wargulwb.pixelcross;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
+import com.github.wargulwb.pixelcross.canvas.Canvas;
 import com.github.wargulwb.pixelcross.config.PixelCrossConfig;
 import com.github.wargulwb.pixelcross.error.ErrorCode;
 import com.github.wargulwb.pixelcross.error.RuntimeErrorCodeException;
@@ -14,7 +17,7 @@ import com.github.wargulwb.pixelcross.model.ImageModel;
 import com.github.wargulwb.pixelcross.model.yarn.Yarn;
 import com.github.wargulwb.pixelcross.utils.ColorUtils;
 
-public abstract class AbstractPainter implements Painter {
+public abstract class AbstractPainter {
 
     protected static final Color BACKGROUND = Color.WHITE;
     protected static final int BLOCK_SIZE = 20;
@@ -24,6 +27,46 @@ public abstract class AbstractPainter implements Painter {
     protected static final Color SYMBOL_COLOR_INVERSE = Color.WHITE;
     protected static final Color TEXT_COLOR = Color.BLACK;
     protected static final int LEGEND_PADDING = 2;
+    protected static final Font TEXT_FONT = new Font(Font.MONOSPACED, Font.PLAIN, FONT_SIZE);
+    private static final Font SYMBOL_FONT = new Font(null, Font.PLAIN, FONT_SIZE);
+    // TODO make this a file later on
+    private static final List<String> SYMBOLS =
+            List.of("■",
+                    "▲",
+                    "◆",
+                    "●",
+                    "🞦",
+                    "🞭",
+                    "🞳",
+                    "🟌",
+                    "✿",
+                    "❖",
+                    "❤",
+                    "◈",
+                    "◉",
+                    "◐",
+                    "◑",
+                    "⎈",
+                    "⏣",
+                    "0",
+                    "1",
+                    "2",
+                    "3",
+                    "4",
+                    "5",
+                    "6",
+                    "7",
+                    "8",
+                    "9",
+                    "A",
+                    "B",
+                    "C",
+                    "G",
+                    "H",
+                    "K",
+                    "M",
+                    "X",
+                    "Z");
 
     protected final ColorUtils colorUtils;
     protected final PixelCrossConfig config;
@@ -33,11 +76,57 @@ public abstract class AbstractPainter implements Painter {
         this.config = Objects.requireNonNull(config, getClass().getSimpleName() + ".config cannot be null!");
     }
 
-    protected void paintCross(final Graphics2D graphics, final int xPos, final int yPos, final ImageModel imageModel, final Yarn yarn) {
+    public Canvas createCanvas(final int width, final int height) {
+        return config.getRenderBackend().createCanvas(width, height);
+    }
+
+    protected void paintCross(final Canvas canvas, final int xPos, final int yPos, final ImageModel imageModel, final Yarn yarn) {
         final Color color = config.isOutputGrayscale() ? colorUtils.toGrayScale(yarn.getColor()) : yarn.getColor();
-        graphics.setColor(color);
-        fillCrossAsRect(graphics, xPos, yPos);
-        paintSymbol(graphics, xPos, yPos, imageModel, yarn, getSymbolColor(color));
+        fillCrossAsRect(canvas, xPos, yPos, color);
+        paintSymbol(canvas, xPos, yPos, imageModel, yarn, getSymbolColor(color));
+    }
+
+    /**
+     * Paints the cross of the given yarn at (0, 0) onto a copy of the given background, so the cross of a yarn can be
+     * painted once and then copied to all of its blocks. The background has to look like the surroundings of the
+     * blocks the copy is used for.
+     *
+     * @return the copy, or null if the symbol reaches out of the background, in that case the cross has to be painted
+     *         block by block
+     */
+    protected BufferedImage paintCrossSprite(final BufferedImage background, final ImageModel imageModel, final Yarn yarn) {
+        if (!symbolFits(getSymbol(imageModel.getYarnIndex(yarn)), background.getWidth(), background.getHeight())) {
+            return null;
+        }
+        final Canvas canvas = createCanvas(background.getWidth(), background.getHeight());
+        canvas.drawImage(background, 0, 0);
+        paintCross(canvas, 0, 0, imageModel, yarn);
+        canvas.dispose();
+        return canvas.getImage();
+    }
+
+    /**
+     * @return whether the symbol painted at (0, 0) only covers pixels of [0, width) x [0, height)
+     */
+    private static boolean symbolFits(final String symbol, final int width, final int height) {
+        // the symbol is painted with a margin of a block around the sprite to see whether it reaches out of it
+        final BufferedImage image =
+                new BufferedImage(width + BLOCK_SIZE * 2, height + BLOCK_SIZE * 2, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = (Graphics2D) image.getGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setColor(SYMBOL_COLOR);
+        graphics.setFont(SYMBOL_FONT);
+        graphics.drawString(symbol, BLOCK_SIZE + 2, BLOCK_SIZE + BLOCK_SIZE - 2);
+        graphics.dispose();
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                final boolean inside = x >= BLOCK_SIZE && x < BLOCK_SIZE + width && y >= BLOCK_SIZE && y < BLOCK_SIZE + height;
+                if (!inside && image.getRGB(x, y) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     private Color getSymbolColor(final Color backgroundColor) {
@@ -48,68 +137,28 @@ public abstract class AbstractPainter implements Painter {
         return (green + blue + red) / 3 > threshold ? SYMBOL_COLOR : SYMBOL_COLOR_INVERSE;
     }
 
-    private void fillCrossAsRect(final Graphics2D graphics, final int xPos, final int yPos) {
-        graphics.fillRect(xPos, yPos, BLOCK_SIZE, BLOCK_SIZE);
+    private void fillCrossAsRect(final Canvas canvas, final int xPos, final int yPos, final Color color) {
+        canvas.fillRect(xPos, yPos, BLOCK_SIZE, BLOCK_SIZE, color);
     }
 
-    private void paintSymbol(final Graphics2D graphics,
+    private void paintSymbol(final Canvas canvas,
                              final int xPos,
                              final int yPos,
                              final ImageModel imageModel,
                              final Yarn yarn,
                              final Color symbolColor) {
         final String symbol = getSymbol(imageModel.getYarnIndex(yarn));
-        graphics.setColor(symbolColor);
-        graphics.setFont(new Font(null, Font.PLAIN, FONT_SIZE));
-        graphics.drawString(symbol, xPos + 2, yPos + BLOCK_SIZE - 2);
+        canvas.drawString(symbol, xPos + 2, yPos + BLOCK_SIZE - 2, SYMBOL_FONT, symbolColor);
     }
 
     private String getSymbol(final int index) {
-        // TODO make this a file later on
-        final List<String> symbols =
-                List.of("■",
-                        "▲",
-                        "◆",
-                        "●",
-                        "🞦",
-                        "🞭",
-                        "🞳",
-                        "🟌",
-                        "✿",
-                        "❖",
-                        "❤",
-                        "◈",
-                        "◉",
-                        "◐",
-                        "◑",
-                        "⎈",
-                        "⏣",
-                        "0",
-                        "1",
-                        "2",
-                        "3",
-                        "4",
-                        "5",
-                        "6",
-                        "7",
-                        "8",
-                        "9",
-                        "A",
-                        "B",
-                        "C",
-                        "G",
-                        "H",
-                        "K",
-                        "M",
-                        "X",
-                        "Z");
-        if (index > symbols.size()) {
+        if (index > SYMBOLS.size()) {
             throw new RuntimeErrorCodeException(
                     ErrorCode.NOT_ENOUGH_COLOR_SYMBOLS,
                     "Color index '" + index + "' is out of bounds of list of color symbols, which is: '"
-                                                        + symbols.stream().collect(Collectors.joining("', '")) + "'!");
+                                                        + SYMBOLS.stream().collect(Collectors.joining("', '")) + "'!");
         }
-        return symbols.get(index - 1); // index starts at 1
+        return SYMBOLS.get(index - 1); // index starts at 1
     }
 
 }
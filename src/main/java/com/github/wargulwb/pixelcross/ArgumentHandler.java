@@ -3,30 +3,50 @@ package com.github.wargulwb.pixelcross;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Arrays;
-import java.util.stream.Collectors;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.util.List;
 
 import com.github.wargulwb.pixelcross.error.ErrorCode;
 import com.github.wargulwb.pixelcross.error.RuntimeErrorCodeException;
 
+/**
+ * Supported calls:
+ * <ul>
+ * <li>'&lt;image&gt;' converts a single image</li>
+ * <li>'--batch &lt;directory|manifest|glob&gt; [--workers &lt;count&gt;] [--threads &lt;platform|virtual|pipeline&gt;]'
+ * converts all images of the batch, see {@link BatchSource} and {@link BatchThreads}</li>
+ * <li>'--serve &lt;port&gt; [--workers &lt;count&gt;]' runs a local HTTP server converting uploaded images, see
+ * {@link RenderServer}</li>
+ * <li>'--worker [--workers &lt;count&gt;]' processes JSON jobs read line by line from stdin, see {@link JobWorker}</li>
+ * </ul>
+ */
 class ArgumentHandler {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(ArgumentHandler.class);
-
     private static int EXPECTED_ARG_COUNT = 1;
+    private static final String OPTION_PREFIX = "--";
+    private static final String BATCH_OPTION = "--batch";
+    private static final String WORKERS_OPTION = "--workers";
+    private static final String THREADS_OPTION = "--threads";
+    private static final String SERVE_OPTION = "--serve";
+    private static final String WORKER_OPTION = "--worker";
+    private static final int MAX_PORT = 65535;
 
     private final String[] args;
+    private Mode mode;
     private Path inputImage;
+    private List<Path> batchImages;
+    private int port;
+    private int workerCount = Runtime.getRuntime().availableProcessors();
+    private BatchThreads batchThreads = BatchThreads.PLATFORM;
 
     ArgumentHandler(final String[] args) {
         this.args = args;
     }
 
     void init() {
-        LOGGER.debug("Was called with arguments: '{}'", Arrays.stream(args).collect(Collectors.joining("', '")));
+        if (args.length > 0 && args[0].startsWith(OPTION_PREFIX)) {
+            initOptions();
+            return;
+        }
         if (args.length != EXPECTED_ARG_COUNT) {
             throw new RuntimeErrorCodeException(
                     ErrorCode.ILLEGAL_ARGUMENT_COUNT,
@@ -38,11 +58,128 @@ class ArgumentHandler {
                     ErrorCode.INPUT_IMAGE_NO_FILE,
                     "Input image path given as first argument '" + args[0] + "' does not point to an existing file!");
         }
+        mode = Mode.SINGLE;
         inputImage = inputFileArg;
     }
 
+    private void initOptions() {
+        String batchSource = null;
+        Integer serverPort = null;
+        boolean worker = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case BATCH_OPTION:
+                    batchSource = getOptionValue(i++);
+                    break;
+                case WORKERS_OPTION:
+                    workerCount = getPositiveIntOptionValue(i++);
+                    break;
+                case SERVE_OPTION:
+                    serverPort = getPortOptionValue(i++);
+                    break;
+                case WORKER_OPTION:
+                    worker = true;
+                    break;
+                case THREADS_OPTION:
+                    batchThreads = getBatchThreadsOptionValue(i++);
+                    break;
+                default:
+                    throw new RuntimeErrorCodeException(ErrorCode.INVALID_ARGUMENT, "Unknown argument '" + args[i] + "'!");
+            }
+        }
+        if ((batchSource != null ? 1 : 0) + (serverPort != null ? 1 : 0) + (worker ? 1 : 0) != 1) {
+            throw new RuntimeErrorCodeException(
+                    ErrorCode.INVALID_ARGUMENT,
+                    "Exactly one of the options '" + BATCH_OPTION + "', '" + SERVE_OPTION + "' and '" + WORKER_OPTION + "' is expected!");
+        }
+        if (worker) {
+            mode = Mode.WORKER;
+        } else if (serverPort != null) {
+            mode = Mode.SERVE;
+            port = serverPort;
+        } else {
+            mode = Mode.BATCH;
+            batchImages = BatchSource.resolve(batchSource);
+        }
+    }
+
+    private String getOptionValue(final int optionIndex) {
+        if (optionIndex + 1 >= args.length) {
+            throw new RuntimeErrorCodeException(
+                    ErrorCode.ILLEGAL_ARGUMENT_COUNT,
+                    "Option '" + args[optionIndex] + "' expects a value!");
+        }
+        return args[optionIndex + 1];
+    }
+
+    private int getPositiveIntOptionValue(final int optionIndex) {
+        final String value = getOptionValue(optionIndex);
+        try {
+            final int intValue = Integer.parseInt(value);
+            if (intValue > 0) {
+                return intValue;
+            }
+        } catch (final NumberFormatException exc) {
+            // handled below
+        }
+        throw new RuntimeErrorCodeException(
+                ErrorCode.INVALID_ARGUMENT,
+                "Value '" + value + "' of option '" + args[optionIndex] + "' is no positive integer!");
+    }
+
+    private int getPortOptionValue(final int optionIndex) {
+        final int value = getPositiveIntOptionValue(optionIndex);
+        if (value > MAX_PORT) {
+            throw new RuntimeErrorCodeException(
+                    ErrorCode.INVALID_ARGUMENT,
+                    "Value '" + value + "' of option '" + args[optionIndex] + "' is no valid port!");
+        }
+        return value;
+    }
+
+    private BatchThreads getBatchThreadsOptionValue(final int optionIndex) {
+        try {
+            return BatchThreads.fromId(getOptionValue(optionIndex));
+        } catch (final IllegalArgumentException exc) {
+            throw new RuntimeErrorCodeException(ErrorCode.INVALID_ARGUMENT, exc.getMessage());
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
     public Path getInputImageArgument() {
         return inputImage;
     }
 
+    /**
+     * @return the images to process in {@link Mode#BATCH}
+     */
+    public List<Path> getBatchImages() {
+        return batchImages;
+    }
+
+    /**
+     * @return the port to listen on in {@link Mode#SERVE}
+     */
+    public int getPort() {
+        return port;
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public BatchThreads getBatchThreads() {
+        return batchThreads;
+    }
+
+    enum Mode {
+        SINGLE,
+        BATCH,
+        SERVE,
+        WORKER
+    }
+
 }
@@ -0,0 +1,241 @@
+package com.github.wargulwb.pixelcross;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.wargulwb.pixelcross.ImageProcessor.Outputs;
+import com.github.wargulwb.pixelcross.ImageProcessor.Painted;
+import com.github.wargulwb.pixelcross.config.PixelCrossConfig;
+import com.github.wargulwb.pixelcross.model.ImageModel;
+import com.github.wargulwb.pixelcross.utils.MemoryBudget;
+
+/**
+ * Processes a batch of images in the stages decode (read and decode the file), match (colors to yarns), paint and encode
+ * (encode and write the outputs). Each stage has its own threads and takes the images from a bounded queue, so the
+ * stages of different images overlap, e.g. an image is encoded while the next one is painted. The memory demand of an
+ * image is reserved in the {@link MemoryBudget} before it enters the pipeline and released once it left it.
+ * <p>
+ * Threads and queue depths of the stages are configured in 'pipeline' of the config. At the end the occupancy of each
+ * queue is logged: a queue which is full most of the time lies in front of the bottleneck.
+ */
+class BatchPipeline {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchPipeline.class);
+
+    private final ImageProcessor imageProcessor;
+    private final MemoryBudget memoryBudget;
+    private final PixelCrossConfig config;
+
+    BatchPipeline(final ImageProcessor imageProcessor, final MemoryBudget memoryBudget, final PixelCrossConfig config) {
+        this.imageProcessor = Objects.requireNonNull(imageProcessor, getClass().getSimpleName() + ".imageProcessor cannot be null!");
+        this.memoryBudget = Objects.requireNonNull(memoryBudget, getClass().getSimpleName() + ".memoryBudget cannot be null!");
+        this.config = Objects.requireNonNull(config, getClass().getSimpleName() + ".config cannot be null!");
+    }
+
+    /**
+     * @return the number of images which failed
+     */
+    int process(final List<Path> images) throws InterruptedException {
+        final AtomicInteger failures = new AtomicInteger();
+        final List<Stage> stages = List.of(
+                new Stage("decode", config.getPipelineDecodeThreads(), config.getPipelineDecodeQueueDepth(), this::decode),
+                new Stage("match", config.getPipelineMatchThreads(), config.getPipelineMatchQueueDepth(), this::match),
+                new Stage("paint", config.getPipelinePaintThreads(), config.getPipelinePaintQueueDepth(), this::paint),
+                new Stage("encode", config.getPipelineEncodeThreads(), config.getPipelineEncodeQueueDepth(), this::encode));
+        LOGGER.info("Processing {} images in stages {}.", images.size(), stages);
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < stages.size(); i++) {
+            final Stage next = i + 1 < stages.size() ? stages.get(i + 1) : null;
+            threads.addAll(stages.get(i).start(images.size(), job -> finish(job, next, failures)));
+        }
+        try {
+            for (final Path image : images) {
+                stages.get(0).offer(admit(image));
+            }
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+        } catch (final InterruptedException | RuntimeException | Error exc) {
+            // the stage threads would otherwise wait for the missing images forever
+            threads.forEach(Thread::interrupt);
+            throw exc;
+        }
+        stages.forEach(Stage::logOccupancy);
+        return failures.get();
+    }
+
+    /**
+     * Reserves the memory of the image in the {@link MemoryBudget}, an image whose memory could not be estimated enters
+     * the pipeline already failed.
+     */
+    private Job admit(final Path image) throws InterruptedException {
+        final long memory;
+        try {
+            memory = imageProcessor.estimateMemory(image);
+        } catch (final RuntimeException exc) {
+            LOGGER.error("Failed to estimate the memory of image '" + image + "'.", exc);
+            final Job job = new Job(image, 0L);
+            job.failed = true;
+            return job;
+        }
+        memoryBudget.acquire(memory);
+        return new Job(image, memory);
+    }
+
+    private void finish(final Job job, final Stage next, final AtomicInteger failures) {
+        if (next != null) {
+            next.offer(job);
+            return;
+        }
+        memoryBudget.release(job.memory);
+        if (job.failed) {
+            failures.incrementAndGet();
+        }
+    }
+
+    private void decode(final Job job) {
+        job.image = imageProcessor.decode(job.input.toString(), imageProcessor.read(job.input));
+    }
+
+    private void match(final Job job) {
+        job.imageModel = imageProcessor.loadModel(job.image);
+        job.image = null;
+    }
+
+    private void paint(final Job job) {
+        job.painted = imageProcessor.paint(job.imageModel, true, true);
+        job.imageModel = null;
+    }
+
+    private void encode(final Job job) {
+        final Path patternImage = BatchProcessor.getOutput(job.input, ImageProcessor.PATTERN_SUFFIX);
+        final Outputs outputs = imageProcessor.encode(job.painted, ImageProcessor.pageFiles(patternImage));
+        job.painted = null;
+        imageProcessor.write(outputs, BatchProcessor.getOutput(job.input, ImageProcessor.CROSS_STITCH_SUFFIX), patternImage);
+    }
+
+    /**
+     * An image passing through the pipeline, each stage replaces the result of the previous stage by its own. A failed
+     * image passes the remaining stages without being processed.
+     */
+    private static final class Job {
+
+        private final Path input;
+        private final long memory;
+        private BufferedImage image;
+        private ImageModel imageModel;
+        private Painted painted;
+        private boolean failed = false;
+
+        private Job(final Path input, final long memory) {
+            this.input = input;
+            this.memory = memory;
+        }
+
+    }
+
+    private static final class Stage {
+
+        private final String name;
+        private final int threadCount;
+        private final int queueDepth;
+        private final BlockingQueue<Job> queue;
+        private final Consumer<Job> work;
+        private final AtomicInteger claimed = new AtomicInteger();
+        private final AtomicLong occupancySum = new AtomicLong();
+        private final AtomicInteger fullCount = new AtomicInteger();
+        private final AtomicInteger offerCount = new AtomicInteger();
+        private final AtomicLong busyNanos = new AtomicLong();
+
+        private Stage(final String name, final int threadCount, final int queueDepth, final Consumer<Job> work) {
+            this.name = name;
+            this.threadCount = threadCount;
+            this.queueDepth = queueDepth;
+            this.work = work;
+            queue = new ArrayBlockingQueue<>(queueDepth);
+        }
+
+        /**
+         * Starts the threads of the stage, which end after the stage handled 'jobCount' jobs.
+         */
+        private List<Thread> start(final int jobCount, final Consumer<Job> next) {
+            final List<Thread> threads = new ArrayList<>(threadCount);
+            for (int i = 1; i <= threadCount; i++) {
+                final Thread thread = new Thread(() -> run(jobCount, next), "pixelcross-" + name + "-" + i);
+                thread.start();
+                threads.add(thread);
+            }
+            return threads;
+        }
+
+        private void run(final int jobCount, final Consumer<Job> next) {
+            try {
+                while (claimed.getAndIncrement() < jobCount) {
+                    final Job job = queue.take();
+                    if (!job.failed) {
+                        final long start = System.nanoTime();
+                        try {
+                            work.accept(job);
+                        } catch (final Throwable exc) { // the job was claimed, the thread has to hand it on
+                            LOGGER.error("Failed to " + name + " image '" + job.input + "'.", exc);
+                            job.failed = true;
+                            job.image = null;
+                            job.imageModel = null;
+                            job.painted = null;
+                        }
+                        busyNanos.addAndGet(System.nanoTime() - start);
+                    }
+                    next.accept(job);
+                }
+            } catch (final InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Blocks while the queue of the stage is full.
+         */
+        private void offer(final Job job) {
+            final int occupancy = queue.size();
+            occupancySum.addAndGet(occupancy);
+            offerCount.incrementAndGet();
+            if (queue.remainingCapacity() == 0) {
+                fullCount.incrementAndGet();
+            }
+            try {
+                queue.put(job);
+            } catch (final InterruptedException exc) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while passing image '" + job.input + "' to stage '" + name + "'!", exc);
+            }
+        }
+
+        private void logOccupancy() {
+            final int offers = Math.max(1, offerCount.get());
+            LOGGER.info("Stage '{}': {} threads busy for {} ms, its queue held {} images on average and was full at {}% of the hand-overs.",
+                        name,
+                        threadCount,
+                        busyNanos.get() / 1_000_000L,
+                        String.format("%.1f", (double) occupancySum.get() / offers),
+                        fullCount.get() * 100 / offers);
+        }
+
+        @Override
+        public String toString() {
+            return name + " (" + threadCount + " threads, queue depth " + queueDepth + ")";
+        }
+
+    }
+
+}
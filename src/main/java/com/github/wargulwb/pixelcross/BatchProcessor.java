@@ -0,0 +1,213 @@
+package com.github.wargulwb.pixelcross;
+
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.wargulwb.pixelcross.error.ErrorCode;
+import com.github.wargulwb.pixelcross.ImageProcessor.Outputs;
+import com.github.wargulwb.pixelcross.ImageProcessor.PageSink;
+import com.github.wargulwb.pixelcross.config.PixelCrossConfig;
+import com.github.wargulwb.pixelcross.error.RuntimeErrorCodeException;
+import com.github.wargulwb.pixelcross.utils.MemoryBudget;
+
+/**
+ * Processes a batch of images on a fixed number of worker threads. Before an image is processed its memory demand is
+ * estimated from its dimension, and it has to wait until it fits into the {@link MemoryBudget}, so several huge images
+ * are not processed at the same time. A failing image is logged and does not stop the batch.
+ * <p>
+ * With {@link BatchThreads#VIRTUAL} each image gets its own virtual thread instead, and only the conversion (the
+ * computation between reading and writing the files) is limited to the worker count. So the file access of many
+ * images overlaps, while the cores are not oversubscribed. On JVMs without virtual threads (before Java 21) a bigger
+ * pool of platform threads is used for that. With {@link BatchThreads#PIPELINE} the images are processed by a
+ * {@link BatchPipeline} instead, the worker count does not apply.
+ * <p>
+ * The outputs of an image 'name.ext' are written next to it as 'name@crosstitch.png' and
+ * 'name@crosstitch_pattern.png'.
+ */
+class BatchProcessor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchProcessor.class);
+
+    // limits open files, as virtual threads would otherwise open one per image
+    private static final int MAX_OPEN_FILES = 256;
+    private static final int FALLBACK_FILE_THREADS_PER_WORKER = 4;
+
+    private final ImageProcessor imageProcessor;
+    private final int workerCount;
+    private final BatchThreads threads;
+    private final MemoryBudget memoryBudget;
+    private final PixelCrossConfig config;
+    private final Semaphore conversionPermits;
+    private final Semaphore filePermits = new Semaphore(MAX_OPEN_FILES);
+
+    BatchProcessor(final ImageProcessor imageProcessor,
+                   final int workerCount,
+                   final BatchThreads threads,
+                   final MemoryBudget memoryBudget,
+                   final PixelCrossConfig config) {
+        this.imageProcessor = Objects.requireNonNull(imageProcessor, getClass().getSimpleName() + ".imageProcessor cannot be null!");
+        this.threads = Objects.requireNonNull(threads, getClass().getSimpleName() + ".threads cannot be null!");
+        this.memoryBudget = Objects.requireNonNull(memoryBudget, getClass().getSimpleName() + ".memoryBudget cannot be null!");
+        this.config = Objects.requireNonNull(config, getClass().getSimpleName() + ".config cannot be null!");
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Given 'workerCount'=" + workerCount + " must be greater than 0!");
+        }
+        this.workerCount = workerCount;
+        conversionPermits = new Semaphore(workerCount);
+    }
+
+    void process(final List<Path> images) {
+        final long start = System.nanoTime();
+        LOGGER.info("Processing {} images with {} workers on {} threads and a memory budget of {} MiB.",
+                    images.size(),
+                    workerCount,
+                    threads.getId(),
+                    memoryBudget.getCapacity() >> 20);
+        final AtomicInteger failures = new AtomicInteger();
+        if (threads == BatchThreads.PIPELINE) {
+            try {
+                failures.set(new BatchPipeline(imageProcessor, memoryBudget, config).process(images));
+            } catch (final InterruptedException exc) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while processing batch!", exc);
+            }
+        } else {
+            processOnExecutor(images, failures);
+        }
+        LOGGER.info("Processed {} images in {} ms, {} failed.", images.size(), (System.nanoTime() - start) / 1_000_000L, failures.get());
+        if (failures.get() > 0) {
+            throw new RuntimeErrorCodeException(
+                    ErrorCode.BATCH_FAILED,
+                    failures.get() + " of " + images.size() + " images could not be processed, see log for details!");
+        }
+    }
+
+    private void processOnExecutor(final List<Path> images, final AtomicInteger failures) {
+        final ExecutorService executor = createExecutor();
+        try {
+            for (final Path image : images) {
+                executor.execute(() -> {
+                    if (!processImage(image)) {
+                        failures.incrementAndGet();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+        }
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (final InterruptedException exc) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while processing batch!", exc);
+        }
+    }
+
+    private boolean processImage(final Path image) {
+        long memory = 0L;
+        boolean acquired = false;
+        try {
+            memory = withPermit(filePermits, () -> imageProcessor.estimateMemory(image));
+            memoryBudget.acquire(memory);
+            acquired = true;
+            final byte[] encodedImage = withPermit(filePermits, () -> imageProcessor.read(image));
+            final Path patternImage = getOutput(image, ImageProcessor.PATTERN_SUFFIX);
+            // the pages of a paginated pattern are written while converting, under the conversion permit
+            final Outputs outputs = withPermit(conversionPermits,
+                                               () -> imageProcessor.convert(image.toString(), encodedImage, pageFiles(patternImage)));
+            withPermit(filePermits, () -> {
+                imageProcessor.write(outputs, getOutput(image, ImageProcessor.CROSS_STITCH_SUFFIX), patternImage);
+                return null;
+            });
+            return true;
+        } catch (final InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (final RuntimeException | OutOfMemoryError exc) {
+            LOGGER.error("Failed to process image '" + image + "'.", exc);
+            return false;
+        } finally {
+            if (acquired) {
+                memoryBudget.release(memory);
+            }
+        }
+    }
+
+    /**
+     * @return sink writing the pages like {@link ImageProcessor#pageFiles(Path)}, each under a file permit
+     */
+    private PageSink pageFiles(final Path patternImage) {
+        final PageSink files = ImageProcessor.pageFiles(patternImage);
+        return (pageNumber, encodedPage) -> {
+            try {
+                filePermits.acquire();
+            } catch (final InterruptedException exc) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to write page " + pageNumber + "!");
+            }
+            try {
+                files.accept(pageNumber, encodedPage);
+            } finally {
+                filePermits.release();
+            }
+        };
+    }
+
+    private static <T> T withPermit(final Semaphore permits, final Supplier<T> action) throws InterruptedException {
+        permits.acquire();
+        try {
+            return action.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    static Path getOutput(final Path image, final String suffix) {
+        final String name = image.getFileName().toString();
+        final int suffixStart = name.lastIndexOf('.');
+        return image.resolveSibling((suffixStart > 0 ? name.substring(0, suffixStart) : name) + suffix);
+    }
+
+    private ExecutorService createExecutor() {
+        if (threads == BatchThreads.VIRTUAL) {
+            final Optional<ExecutorService> executor = createVirtualThreadExecutor();
+            if (executor.isPresent()) {
+                return executor.get();
+            }
+            final int threadCount = workerCount * FALLBACK_FILE_THREADS_PER_WORKER;
+            LOGGER.warn("Virtual threads are not available (Java 21 or later is needed), using {} platform threads instead.", threadCount);
+            return Executors.newFixedThreadPool(threadCount, createThreadFactory());
+        }
+        return Executors.newFixedThreadPool(workerCount, createThreadFactory());
+    }
+
+    private static Optional<ExecutorService> createVirtualThreadExecutor() {
+        // compiled for Java 17, so the factory method of Java 21 can only be looked up at runtime
+        try {
+            return Optional.of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+        } catch (final ReflectiveOperationException | RuntimeException exc) {
+            LOGGER.debug("Failed to create virtual thread executor.", exc);
+            return Optional.empty();
+        }
+    }
+
+    private static ThreadFactory createThreadFactory() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> new Thread(runnable, "pixelcross-worker-" + threadCount.incrementAndGet());
+    }
+
+}
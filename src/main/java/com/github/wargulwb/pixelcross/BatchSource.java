@@ -0,0 +1,120 @@
+package com.github.wargulwb.pixelcross;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import com.github.wargulwb.pixelcross.error.ErrorCode;
+import com.github.wargulwb.pixelcross.error.RuntimeErrorCodeException;
+
+/**
+ * Resolves the images of a batch from a directory (all images directly in it), a manifest file (one image path per
+ * line, relative to the manifest, '#' starts a comment) or a glob pattern (e.g. 'sprites/**&#47;*.png'). Images
+ * written by this application are skipped.
+ */
+final class BatchSource {
+
+    private static final String GLOB_CHARACTERS = "*?[{";
+    private static final Set<String> IMAGE_SUFFIXES = Arrays.stream(ImageIO.getReaderFileSuffixes())
+            .map(suffix -> suffix.toLowerCase(Locale.ROOT))
+            .collect(Collectors.toUnmodifiableSet());
+
+    private BatchSource() {
+        // static only
+    }
+
+    static List<Path> resolve(final String source) {
+        final Path path;
+        try {
+            path = Paths.get(source);
+        } catch (final InvalidPathException exc) {
+            return resolveGlob(source); // e.g. '*' is no valid path character on Windows
+        }
+        try {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.list(path)) {
+                    return files.filter(BatchSource::isInputImage).sorted().collect(Collectors.toList());
+                }
+            }
+            if (Files.isRegularFile(path)) {
+                return readManifest(path);
+            }
+        } catch (final IOException exc) {
+            throw new UncheckedIOException("Failed to resolve batch images from '" + source + "'.", exc);
+        }
+        return resolveGlob(source);
+    }
+
+    private static List<Path> readManifest(final Path manifest) throws IOException {
+        final Path directory = manifest.toAbsolutePath().getParent();
+        final List<Path> images = Files.readAllLines(manifest)
+                .stream()
+                .map(String::strip)
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .map(directory::resolve)
+                .collect(Collectors.toList());
+        for (final Path image : images) {
+            if (!Files.isRegularFile(image)) {
+                throw new RuntimeErrorCodeException(
+                        ErrorCode.INPUT_IMAGE_NO_FILE,
+                        "Image '" + image + "' listed in manifest '" + manifest + "' does not point to an existing file!");
+            }
+        }
+        return images;
+    }
+
+    private static List<Path> resolveGlob(final String glob) {
+        final String normalized = glob.replace('\\', '/');
+        int firstGlobCharacter = normalized.length();
+        for (final char character : GLOB_CHARACTERS.toCharArray()) {
+            final int index = normalized.indexOf(character);
+            if (index >= 0) {
+                firstGlobCharacter = Math.min(firstGlobCharacter, index);
+            }
+        }
+        if (firstGlobCharacter == normalized.length()) {
+            throw new RuntimeErrorCodeException(
+                    ErrorCode.INPUT_IMAGE_NO_FILE,
+                    "Batch source '" + glob + "' is neither a directory, nor a manifest file, nor a glob pattern!");
+        }
+        final int baseEnd = normalized.lastIndexOf('/', firstGlobCharacter);
+        final Path baseDirectory = Paths.get(baseEnd < 0 ? "." : baseEnd == 0 ? "/" : normalized.substring(0, baseEnd));
+        final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + normalized.substring(baseEnd + 1));
+        if (!Files.isDirectory(baseDirectory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(baseDirectory)) {
+            return files.filter(file -> matcher.matches(baseDirectory.relativize(file)))
+                    .filter(BatchSource::isInputImage)
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (final IOException exc) {
+            throw new UncheckedIOException("Failed to resolve batch images from glob '" + glob + "'.", exc);
+        }
+    }
+
+    private static boolean isInputImage(final Path file) {
+        final String name = file.getFileName().toString();
+        final int suffixStart = name.lastIndexOf('.');
+        return Files.isRegularFile(file)
+               && !name.endsWith(ImageProcessor.CROSS_STITCH_SUFFIX)
+               && !name.endsWith(ImageProcessor.PATTERN_SUFFIX)
+               && !name.contains(ImageProcessor.PATTERN_PAGE_SUFFIX)
+               && suffixStart >= 0
+               && IMAGE_SUFFIXES.contains(name.substring(suffixStart + 1).toLowerCase(Locale.ROOT));
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.github.wargulwb.pixelcross;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Kinds of threads a batch is processed on.
+ */
+enum BatchThreads {
+
+    /**
+     * one platform thread per worker, each processes its images from reading to writing
+     */
+    PLATFORM("platform"),
+    /**
+     * one virtual thread per image for reading and writing, only the conversion is limited to the worker count, suits
+     * batches of many small images
+     */
+    VIRTUAL("virtual"),
+    /**
+     * stages with their own threads and bounded queues in between, so reading, matching, painting and encoding of
+     * different images overlap, see {@link BatchPipeline}
+     */
+    PIPELINE("pipeline");
+
+    private final String id;
+
+    BatchThreads(final String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public static BatchThreads fromId(final String id) {
+        return Arrays.stream(values())
+                .filter(threads -> threads.id.equalsIgnoreCase(id))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown batch threads '" + id + "', expected one of '"
+                                                                + Arrays.stream(values()).map(BatchThreads::getId).collect(Collectors.joining("', '"))
+                                                                + "'!"));
+    }
+
+}
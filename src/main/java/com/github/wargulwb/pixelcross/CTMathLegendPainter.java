@@ -1,27 +1,24 @@
 package com.github.wargulwb.pixelcross;
 
-import java.awt.Font;
-import java.awt.Graphics2D;
-import java.awt.RenderingHints;
-import java.awt.image.BufferedImage;
+import java.awt.Dimension;
+import java.awt.Rectangle;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
+import com.github.wargulwb.pixelcross.canvas.Canvas;
 import com.github.wargulwb.pixelcross.config.PixelCrossConfig;
 import com.github.wargulwb.pixelcross.model.ImageModel;
 import com.github.wargulwb.pixelcross.utils.ColorUtils;
 
 import jakarta.inject.Inject;
 
-public class CTMathLegendPainter extends AbstractPainter {
+public class CTMathLegendPainter extends AbstractPainter implements RegionPainter {
 
     private static final double INCH_TO_CM = 2.54D;
-    private static final DecimalFormat FORMAT = new DecimalFormat(
-            "#,###.##",
-            new DecimalFormatSymbols(Locale.US));
+    private static final String FORMAT_PATTERN = "#,###.##";
 
     @Inject
     public CTMathLegendPainter(final ColorUtils colorUtils, final PixelCrossConfig config) {
@@ -29,14 +26,15 @@ public class CTMathLegendPainter extends AbstractPainter {
     }
 
     @Override
-    public BufferedImage paint(final ImageModel imageModel) {
+    public Dimension getSize(final ImageModel imageModel) {
         final List<String> calculations = getCalculationStrings(imageModel);
-        final int width = calculateWidth(calculations);
-        final int height = calculateHeight(calculations);
+        return new Dimension(calculateWidth(calculations), calculateHeight(calculations));
+    }
 
-        final BufferedImage paintedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        paintCalculations((Graphics2D) paintedImage.getGraphics(), paintedImage, calculations);
-        return paintedImage;
+    @Override
+    public void paint(final Canvas canvas, final ImageModel imageModel) {
+        final List<String> calculations = getCalculationStrings(imageModel);
+        paintCalculations(canvas, calculateWidth(calculations), calculateHeight(calculations), calculations);
     }
 
     private int calculateHeight(final List<String> calculations) {
@@ -53,124 +51,61 @@ public class CTMathLegendPainter extends AbstractPainter {
                 .orElse(100);
     }
 
-    private void paintCalculations(final Graphics2D graphics, final BufferedImage image, final List<String> calculations) {
-        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        graphics.setColor(BACKGROUND);
-        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
-        graphics.setColor(TEXT_COLOR);
+    private void paintCalculations(final Canvas canvas, final int width, final int height, final List<String> calculations) {
+        canvas.fillRect(0, 0, width, height, BACKGROUND);
 
         int yPos = 0;
         for (final String entry : calculations) {
-            paintEntry(graphics, yPos, entry);
+            paintEntry(canvas, yPos, entry);
             yPos += BLOCK_SIZE + LEGEND_PADDING;
         }
     }
 
-    private void paintEntry(final Graphics2D graphics, final int yPos, final String entry) {
+    private void paintEntry(final Canvas canvas, final int yPos, final String entry) {
         final int xOffset = 10;
-        graphics.setColor(TEXT_COLOR);
-        graphics.setFont(new Font(Font.MONOSPACED, Font.PLAIN, FONT_SIZE));
-        graphics.drawString(entry,
+        canvas.drawString(entry,
                 xOffset + BLOCK_SIZE + LEGEND_PADDING,
-                yPos + FONT_SIZE);
+                yPos + FONT_SIZE,
+                TEXT_FONT,
+                TEXT_COLOR);
     }
 
     private List<String> getCalculationStrings(final ImageModel imageModel) {
-        final int outerLeftPaintedPixel = getOuterLeftPaintedPixel(imageModel);
-        final int outerRightPaintedPixel = getOuterRightPaintedPixel(imageModel);
-        final int upperMostPaintedPixel = getUpperMostPaintedPixel(imageModel);
-        final int lowerMostPaintedPixel = getLowerMostPaintedPixel(imageModel);
-
-        // origin upper left
-        final int pixelWidth = outerRightPaintedPixel - outerLeftPaintedPixel + 1;
-        final int pixelHeight = lowerMostPaintedPixel - upperMostPaintedPixel + 1;
+        // found by the model while loading, in one pass over its rows
+        final Rectangle paintedBounds = imageModel.getPaintedBounds();
+        if (paintedBounds == null) {
+            throw new IllegalStateException("Found no painted pixel!");
+        }
+        final int pixelWidth = paintedBounds.width;
+        final int pixelHeight = paintedBounds.height;
 
+        final DecimalFormat format = new DecimalFormat(FORMAT_PATTERN, new DecimalFormatSymbols(Locale.US)); // not thread safe
         final List<String> calculations = new ArrayList<>();
         calculations.add("CT := crosses per inch, 1 inch = 2.54cm");
         calculations.add("effective dimension (only counting painted pixels): " + pixelWidth + "px x " + pixelHeight + "px");
-        calculations.add(getCalculation(12, pixelWidth, pixelHeight));
-        calculations.add(getCalculation(14, pixelWidth, pixelHeight));
-        calculations.add(getCalculation(16, pixelWidth, pixelHeight));
-        calculations.add(getCalculation(18, pixelWidth, pixelHeight));
+        calculations.add(getCalculation(format, 12, pixelWidth, pixelHeight));
+        calculations.add(getCalculation(format, 14, pixelWidth, pixelHeight));
+        calculations.add(getCalculation(format, 16, pixelWidth, pixelHeight));
+        calculations.add(getCalculation(format, 18, pixelWidth, pixelHeight));
 
         return calculations;
     }
 
-    private String getCalculation(final int ct, final int pixelWidth, final int pixelHeight) {
+    private String getCalculation(final DecimalFormat format, final int ct, final int pixelWidth, final int pixelHeight) {
         final double widthInches = pixelWidth / (double) ct;
         final double heightInches = pixelHeight / (double) ct;
         return new StringBuilder()
                 .append(ct)
                 .append("CT | ")
-                .append(FORMAT.format(widthInches))
+                .append(format.format(widthInches))
                 .append("in x ")
-                .append(FORMAT.format(heightInches))
+                .append(format.format(heightInches))
                 .append("in | ")
-                .append(FORMAT.format(widthInches * INCH_TO_CM))
+                .append(format.format(widthInches * INCH_TO_CM))
                 .append("cm x ")
-                .append(FORMAT.format(heightInches * INCH_TO_CM))
+                .append(format.format(heightInches * INCH_TO_CM))
                 .append("cm")
                 .toString();
     }
 
-    private int getOuterLeftPaintedPixel(final ImageModel imageModel) {
-        final int width = imageModel.getWidth();
-        final int height = imageModel.getHeight();
-
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                if (imageModel.getPixelCross(x, y).getPixelColor().isPixelOpaque()) {
-                    return x;
-                }
-            }
-        }
-
-        throw new IllegalStateException("Found no outer left painted pixel!");
-    }
-
-    private int getOuterRightPaintedPixel(final ImageModel imageModel) {
-        final int width = imageModel.getWidth();
-        final int height = imageModel.getHeight();
-
-        for (int x = width - 1; x >= 0; x--) {
-            for (int y = 0; y < height; y++) {
-                if (imageModel.getPixelCross(x, y).getPixelColor().isPixelOpaque()) {
-                    return x;
-                }
-            }
-        }
-
-        throw new IllegalStateException("Found no outer right painted pixel!");
-    }
-
-    private int getUpperMostPaintedPixel(final ImageModel imageModel) {
-        final int width = imageModel.getWidth();
-        final int height = imageModel.getHeight();
-
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                if (imageModel.getPixelCross(x, y).getPixelColor().isPixelOpaque()) {
-                    return y;
-                }
-            }
-        }
-
-        throw new IllegalStateException("Found no upper most painted pixel!");
-    }
-
-    private int getLowerMostPaintedPixel(final ImageModel imageModel) {
-        final int width = imageModel.getWidth();
-        final int height = imageModel.getHeight();
-
-        for (int y = height - 1; y >= 0; y--) {
-            for (int x = 0; x < width; x++) {
-                if (imageModel.getPixelCross(x, y).getPixelColor().isPixelOpaque()) {
-                    return y;
-                }
-            }
-        }
-
-        throw new IllegalStateException("Found no lower most painted pixel!");
-    }
-
 }
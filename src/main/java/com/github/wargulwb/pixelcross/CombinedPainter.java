@@ -1,68 +1,120 @@
 package com.github.wargulwb.pixelcross;
 
-import java.awt.Graphics2D;
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinTask;
 
+import com.github.wargulwb.pixelcross.canvas.Canvas;
+import com.github.wargulwb.pixelcross.config.PageFormat;
+import com.github.wargulwb.pixelcross.config.PixelCrossConfig;
 import com.github.wargulwb.pixelcross.model.ImageModel;
 
 import jakarta.inject.Inject;
 
 public class CombinedPainter implements Painter {
 
-    private static final double CM_TO_INCH = 1 / 2.54D;
-    private static final double DPI_300 = 300D;
-
-    /**
-     * DIN A4 width := 21cm
-     * Typically printers have: 300 DPI
-     */
-    private static final double DIN_A4_WIDTH = 21D * CM_TO_INCH * DPI_300;
-
-    /**
-     * DIN A4 height := 27.9cm
-     * Typically printers have: 300 DPI
-     */
-    private static final double DIN_A4_HEIGHT = 29.7D * CM_TO_INCH * DPI_300;
-
     private final PatternPainter patternPainter;
+    private final PageMapPainter pageMapPainter;
     private final YarnLegendPainter yarnLegendPainter;
     private final CTMathLegendPainter ctMathLegendPainter;
+    private final PixelCrossConfig config;
 
     @Inject
     public CombinedPainter(final PatternPainter patternPainter,
+            final PageMapPainter pageMapPainter,
             final YarnLegendPainter yarnLegendPainter,
-            final CTMathLegendPainter ctMathLegendPainter) {
+            final CTMathLegendPainter ctMathLegendPainter,
+            final PixelCrossConfig config) {
         this.patternPainter = Objects.requireNonNull(patternPainter, getClass().getSimpleName() + ".patternPainter cannot be null!");
+        this.pageMapPainter = Objects.requireNonNull(pageMapPainter, getClass().getSimpleName() + ".pageMapPainter cannot be null!");
         this.yarnLegendPainter =
                 Objects.requireNonNull(yarnLegendPainter, getClass().getSimpleName() + ".yarnLegendPainter cannot be null!");
         this.ctMathLegendPainter =
                 Objects.requireNonNull(ctMathLegendPainter, getClass().getSimpleName() + ".ctMathLegendPainter cannot be null!");
+        this.config = Objects.requireNonNull(config, getClass().getSimpleName() + ".config cannot be null!");
     }
 
     @Override
     public BufferedImage paint(final ImageModel imageModel) {
-        final BufferedImage pattern = patternPainter.paint(imageModel);
-        final BufferedImage yarnLegend = yarnLegendPainter.paint(imageModel);
-        final BufferedImage ctCalculations = ctMathLegendPainter.paint(imageModel);
+        return FusedRenderer.render(imageModel, List.of(createRowRenderer(imageModel))).get(0);
+    }
 
-        final PositionModel bestPositionModel = determineBestPositionModel(pattern, yarnLegend, ctCalculations);
-        final BufferedImage image = new BufferedImage(bestPositionModel.width(), bestPositionModel.height(), BufferedImage.TYPE_INT_ARGB);
-        final Graphics2D graphics = (Graphics2D) image.getGraphics();
-        graphics.setColor(AbstractPainter.BACKGROUND);
-        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
-        graphics.drawImage(pattern, null, 0, 0);
+    /**
+     * Lays the image out from the sizes of its parts and starts painting the legends (in the common fork join pool)
+     * straight into their regions of the image, as all of them only read the model. The pattern is painted into its
+     * region by the returned renderer.
+     *
+     * @return renderer of the pattern and its legends, to be passed to the {@link FusedRenderer}
+     */
+    public RowRenderer createRowRenderer(final ImageModel imageModel) {
+        final Composition composition = compose(imageModel, patternPainter.getSize(imageModel));
+        final RowRenderer patternRenderer = patternPainter.createRowRenderer(composition.main(), imageModel);
+        return new RowRenderer() {
+
+            @Override
+            public Band createBand(final int fromY, final int toY) {
+                return patternRenderer.createBand(fromY, toY);
+            }
+
+            @Override
+            public BufferedImage finish() {
+                return composition.finish();
+            }
+
+        };
+    }
 
-        graphics.drawImage(yarnLegend, null, bestPositionModel.offsetLegend.x(), bestPositionModel.offsetLegend.y());
-        graphics.drawImage(ctCalculations, null, bestPositionModel.offsetCalculations.x(), bestPositionModel.offsetCalculations.y());
+    /**
+     * Like {@link #paint(ImageModel)}, but shows the map of the given pages of the pattern (see
+     * {@link PatternPainter#paginate(ImageModel)}) instead of the pattern itself.
+     */
+    public BufferedImage paintPageMap(final PatternPages pages) {
+        final ImageModel imageModel = pages.getImageModel();
+        final Composition composition = compose(imageModel, pageMapPainter.getSize(imageModel));
+        pageMapPainter.paint(composition.main(), pages);
+        return composition.finish();
+    }
 
-        return image;
+    /**
+     * Lays the image out from the sizes of its parts, with the main part (the pattern or its page map) in the upper left
+     * corner, and starts painting the legends (in the common fork join pool) into their regions of the image.
+     */
+    private Composition compose(final ImageModel imageModel, final Dimension main) {
+        final Dimension yarnLegend = yarnLegendPainter.getSize(imageModel);
+        final Dimension ctCalculations = ctMathLegendPainter.getSize(imageModel);
+
+        final PositionModel bestPositionModel = determineBestPositionModel(main, yarnLegend, ctCalculations);
+        final Canvas canvas = config.getRenderBackend().createCanvas(bestPositionModel.width(), bestPositionModel.height());
+        canvas.fillRect(0, 0, bestPositionModel.width(), bestPositionModel.height(), AbstractPainter.BACKGROUND);
+
+        // the regions do not overlap, hence each part may paint into the image with its own (clipped) canvas
+        final Canvas yarnLegendCanvas = createRegion(canvas, bestPositionModel.offsetLegend(), yarnLegend);
+        final Canvas ctCalculationsCanvas = createRegion(canvas, bestPositionModel.offsetCalculations(), ctCalculations);
+        final Canvas mainCanvas = createRegion(canvas, new Offset(0, 0), main);
+        canvas.dispose();
+        final ForkJoinTask<?> yarnLegendTask = ForkJoinTask.adapt(() -> paintRegion(yarnLegendPainter, yarnLegendCanvas, imageModel)).fork();
+        final ForkJoinTask<?> ctCalculationsTask =
+                ForkJoinTask.adapt(() -> paintRegion(ctMathLegendPainter, ctCalculationsCanvas, imageModel)).fork();
+        return new Composition(canvas, mainCanvas, yarnLegendTask, ctCalculationsTask);
+    }
+
+    private static Canvas createRegion(final Canvas canvas, final Offset offset, final Dimension size) {
+        return canvas.create(offset.x(), offset.y(), size.width, size.height);
+    }
+
+    private static void paintRegion(final RegionPainter painter, final Canvas canvas, final ImageModel imageModel) {
+        try {
+            painter.paint(canvas, imageModel);
+        } finally {
+            canvas.dispose();
+        }
     }
 
-    private PositionModel determineBestPositionModel(final BufferedImage pattern,
-                                                     final BufferedImage yarnLegend,
-                                                     final BufferedImage ctCalculations) {
+    private PositionModel determineBestPositionModel(final Dimension pattern,
+                                                     final Dimension yarnLegend,
+                                                     final Dimension ctCalculations) {
         return List.of(
                 determinePositionModelBelowEachOther(pattern, yarnLegend, ctCalculations),
                 determinePositionModelBelowNextToEachOther(pattern, yarnLegend, ctCalculations),
@@ -86,55 +138,55 @@ public class CombinedPainter implements Painter {
                 .get();
     }
 
-    private PositionModel determinePositionModelBelowEachOther(final BufferedImage pattern,
-                                                               final BufferedImage yarnLegend,
-                                                               final BufferedImage ctCalculations) {
+    private PositionModel determinePositionModelBelowEachOther(final Dimension pattern,
+                                                               final Dimension yarnLegend,
+                                                               final Dimension ctCalculations) {
         // PATTERN
         // ------------
         // YARN LEGEND
         // ------------
         // CALCULATIONS
-        final int width = Math.max(Math.max(pattern.getWidth(), yarnLegend.getWidth()), ctCalculations.getWidth());
-        final int height = pattern.getHeight() + yarnLegend.getHeight() + ctCalculations.getHeight();
+        final int width = Math.max(Math.max(pattern.width, yarnLegend.width), ctCalculations.width);
+        final int height = pattern.height + yarnLegend.height + ctCalculations.height;
 
         return new PositionModel(
                 Placement.LEGEND_BOLOW_UNDER_EACH_OTHER,
                 width,
                 height,
-                new Offset(0, pattern.getHeight()),
-                new Offset(0, pattern.getHeight() + yarnLegend.getHeight()));
+                new Offset(0, pattern.height),
+                new Offset(0, pattern.height + yarnLegend.height));
     }
 
-    private PositionModel determinePositionModelBelowNextToEachOther(final BufferedImage pattern,
-                                                                     final BufferedImage yarnLegend,
-                                                                     final BufferedImage ctCalculations) {
+    private PositionModel determinePositionModelBelowNextToEachOther(final Dimension pattern,
+                                                                     final Dimension yarnLegend,
+                                                                     final Dimension ctCalculations) {
         // PATTERN
         // ------------|-------------
         // YARN LEGEND | CALCULATIONS
-        final int width = Math.max(pattern.getWidth(), yarnLegend.getWidth() + ctCalculations.getWidth());
-        final int height = pattern.getHeight() + Math.max(yarnLegend.getHeight(), ctCalculations.getHeight());
+        final int width = Math.max(pattern.width, yarnLegend.width + ctCalculations.width);
+        final int height = pattern.height + Math.max(yarnLegend.height, ctCalculations.height);
         return new PositionModel(
                 Placement.LEGEND_BOLOW_NEXT_TO_EACH_OTHER,
                 width,
                 height,
-                new Offset(0, pattern.getHeight()),
-                new Offset(yarnLegend.getWidth(), pattern.getHeight()));
+                new Offset(0, pattern.height),
+                new Offset(yarnLegend.width, pattern.height));
     }
 
-    private PositionModel determinePositionModelOnTheRight(final BufferedImage pattern,
-                                                           final BufferedImage yarnLegend,
-                                                           final BufferedImage ctCalculations) {
+    private PositionModel determinePositionModelOnTheRight(final Dimension pattern,
+                                                           final Dimension yarnLegend,
+                                                           final Dimension ctCalculations) {
         // PATTERN ... | YARN LEGEND
         // ------------|-------------
         // ........... | CALCULATIONS
-        final int width = pattern.getWidth() + Math.max(yarnLegend.getWidth(), ctCalculations.getWidth());
-        final int height = Math.max(pattern.getHeight(), yarnLegend.getHeight() + ctCalculations.getHeight());
+        final int width = pattern.width + Math.max(yarnLegend.width, ctCalculations.width);
+        final int height = Math.max(pattern.height, yarnLegend.height + ctCalculations.height);
         return new PositionModel(
                 Placement.LEGEND_ON_THE_RIGHT,
                 width,
                 height,
-                new Offset(pattern.getWidth(), 0),
-                new Offset(pattern.getWidth(), yarnLegend.getHeight()));
+                new Offset(pattern.width, 0),
+                new Offset(pattern.width, yarnLegend.height));
     }
 
     private record PositionModel(Placement placement, int width, int height, Offset offsetLegend, Offset offsetCalculations) {
@@ -144,11 +196,11 @@ public class CombinedPainter implements Painter {
         }
 
         private boolean fitsDINA4Horizontally() {
-            return height <= DIN_A4_WIDTH && width <= DIN_A4_HEIGHT;
+            return height <= PageFormat.A4.getWidth() && width <= PageFormat.A4.getHeight();
         }
 
         private boolean fitsDINA4Vertically() {
-            return width <= DIN_A4_WIDTH && height <= DIN_A4_HEIGHT;
+            return width <= PageFormat.A4.getWidth() && height <= PageFormat.A4.getHeight();
         }
 
     }
@@ -156,6 +208,25 @@ public class CombinedPainter implements Painter {
     private record Offset(int x, int y) {
     }
 
+    /**
+     * The image being composed, with the canvas of the region of its main part and the legends being painted.
+     */
+    private record Composition(Canvas canvas, Canvas main, ForkJoinTask<?> yarnLegendTask, ForkJoinTask<?> ctCalculationsTask) {
+
+        /**
+         * Waits for the legends, to be called once the main part was painted.
+         *
+         * @return the composed image
+         */
+        BufferedImage finish() {
+            main.dispose();
+            yarnLegendTask.join();
+            ctCalculationsTask.join();
+            return canvas.getImage();
+        }
+
+    }
+
     // this mainly serves to make debugging easier due to the variants being easily identifiable
     private enum Placement {
         LEGEND_BOLOW_UNDER_EACH_OTHER,
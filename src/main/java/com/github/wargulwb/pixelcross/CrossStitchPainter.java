@@ -2,11 +2,21 @@ package com.github.wargulwb.pixelcross;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
-
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import com.github.wargulwb.pixelcross.canvas.Canvas;
+import com.github.wargulwb.pixelcross.canvas.CoverageStamp;
+import com.github.wargulwb.pixelcross.config.PixelCrossConfig;
 import com.github.wargulwb.pixelcross.model.ImageModel;
-import com.github.wargulwb.pixelcross.model.PixelCross;
+import com.github.wargulwb.pixelcross.model.PixelCrossColor;
+
+import jakarta.inject.Inject;
 
 public class CrossStitchPainter implements Painter {
 
@@ -14,83 +24,109 @@ public class CrossStitchPainter implements Painter {
     private static final Color GRID_LINE_COLOR = Color.LIGHT_GRAY;
     private static final int GRID_LINE_WIDTH = 1;
     private static final int CROSS_SIZE = 10;
+    /**
+     * The lines of the wide cross as (x1, y1, x2, y2) relative to its top left corner.
+     */
+    private static final int[][] WIDE_CROSS_LINES = {
+            {0, 0, CROSS_SIZE, CROSS_SIZE},
+            {1, 0, CROSS_SIZE, CROSS_SIZE - 1},
+            {2, 0, CROSS_SIZE, CROSS_SIZE - 2},
+            {0, 1, CROSS_SIZE - 1, CROSS_SIZE},
+            {0, 2, CROSS_SIZE - 2, CROSS_SIZE},
+            {0, 3, CROSS_SIZE - 3, CROSS_SIZE},
+            {CROSS_SIZE, 0, 0, CROSS_SIZE},
+            {CROSS_SIZE - 1, 0, 0, CROSS_SIZE - 1},
+            {CROSS_SIZE, 1, 1, CROSS_SIZE},
+            {CROSS_SIZE - 2, 0, 0, CROSS_SIZE - 2},
+            {CROSS_SIZE, 2, 2, CROSS_SIZE},
+            {CROSS_SIZE, 3, 3, CROSS_SIZE}};
+    /**
+     * The wide cross, anti-aliasing reaches a pixel beyond it.
+     */
+    private static final CoverageStamp WIDE_CROSS = CoverageStamp.of(
+            CROSS_SIZE + 1,
+            2,
+            Arrays.stream(WIDE_CROSS_LINES)
+                    .<Consumer<Graphics2D>> map(line -> graphics -> graphics.drawLine(line[0], line[1], line[2], line[3]))
+                    .toList());
+
+    private final PixelCrossConfig config;
+
+    @Inject
+    public CrossStitchPainter(final PixelCrossConfig config) {
+        this.config = Objects.requireNonNull(config, getClass().getSimpleName() + ".config cannot be null!");
+    }
 
+    /**
+     * Paints the crosses as {@link CoverageStamp}s of the {@link #WIDE_CROSS_LINES}, in bands of rows of crosses in
+     * parallel (see {@link FusedRenderer}).
+     */
     @Override
     public BufferedImage paint(final ImageModel imageModel) {
+        return FusedRenderer.render(imageModel, List.of(createRowRenderer(imageModel))).get(0);
+    }
+
+    /**
+     * @return renderer of the cross stitch preview, to be passed to the {@link FusedRenderer}
+     */
+    public RowRenderer createRowRenderer(final ImageModel imageModel) {
         final int imageWidth = calculateWidth(imageModel);
         final int imageHeight = calculateHeight(imageModel);
+        final Canvas canvas = config.getRenderBackend().createCanvas(imageWidth, imageHeight);
+        final CoverageStamp.Prepared[] stamps = prepareStamps(imageModel);
+        return new RowRenderer() {
+
+            @Override
+            public Band createBand(final int fromY, final int toY) {
+                final int fromRow = fromY * (CROSS_SIZE + GRID_LINE_WIDTH);
+                // the last band also paints the outer grid line
+                final int toRow = toY < imageModel.getHeight() ? toY * (CROSS_SIZE + GRID_LINE_WIDTH) : imageHeight;
+                final Canvas bandCanvas = canvas.clip(0, fromRow, imageWidth, toRow - fromRow);
+                return new CrossStitchBand(bandCanvas, imageModel.getWidth(), imageWidth, fromRow, toRow, stamps);
+            }
 
-        final BufferedImage paintedImage = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB);
-        paint(paintedImage, imageModel);
-        return paintedImage;
-    }
+            @Override
+            public BufferedImage finish() {
+                canvas.dispose();
+                return canvas.getImage();
+            }
 
-    private void paint(final BufferedImage image, final ImageModel imageModel) {
-        final Graphics2D graphics = (Graphics2D) image.getGraphics();
-        graphics.setColor(BACKGROUND);
-        graphics.fillRect(0, 0, image.getWidth(), image.getHeight()); // background
-        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        paintGrid(graphics, image, imageModel);
-        paintCrosses(graphics, imageModel);
+        };
     }
 
-    private void paintCrosses(final Graphics2D graphics, final ImageModel imageModel) {
-        for (int x = 0; x < imageModel.getWidth(); x++) {
-            for (int y = 0; y < imageModel.getHeight(); y++) {
-                final int xPos = x * CROSS_SIZE + (x + 1) * GRID_LINE_WIDTH;
-                final int yPos = y * CROSS_SIZE + (y + 1) * GRID_LINE_WIDTH;
-                final PixelCross pixelCross = imageModel.getPixelCross(x, y);
-                if (pixelCross.getPixelColor().isPixelOpaque()) { // only draw full opaque pixels
-                    graphics.setColor(pixelCross.getPixelColor().getYarn().getColor());
-                    drawWideCross(graphics, xPos, yPos);
-                    // fillCrossAsRect(graphics, xPos, yPos);
-                    graphics.setColor(BACKGROUND);
-                }
+    /**
+     * @return the prepared stamp by palette index, null for transparent colors
+     */
+    private CoverageStamp.Prepared[] prepareStamps(final ImageModel imageModel) {
+        final Map<Color, CoverageStamp.Prepared> stampsByColor = new HashMap<>();
+        final List<PixelCrossColor> colors = imageModel.getColors();
+        final CoverageStamp.Prepared[] stamps = new CoverageStamp.Prepared[colors.size()];
+        for (int paletteIndex = 0; paletteIndex < colors.size(); paletteIndex++) {
+            final PixelCrossColor color = colors.get(paletteIndex);
+            if (color.isPixelOpaque()) {
+                stamps[paletteIndex] = stampsByColor.computeIfAbsent(color.getYarn().getColor(), WIDE_CROSS::prepare);
             }
         }
+        return stamps;
     }
 
-    private void drawNarrowCross(final Graphics2D graphics, final int xPos, final int yPos) {
-        graphics.drawLine(xPos, yPos, xPos + CROSS_SIZE, yPos + CROSS_SIZE);
-        graphics.drawLine(xPos + CROSS_SIZE, yPos, xPos, yPos + CROSS_SIZE);
-    }
-
-    private void drawWideCross(final Graphics2D graphics, final int xPos, final int yPos) {
-        graphics.drawLine(xPos, yPos, xPos + CROSS_SIZE, yPos + CROSS_SIZE);
-        graphics.drawLine(xPos + 1, yPos, xPos + CROSS_SIZE, yPos + CROSS_SIZE - 1);
-        graphics.drawLine(xPos + 2, yPos, xPos + CROSS_SIZE, yPos + CROSS_SIZE - 2);
-        graphics.drawLine(xPos, yPos + 1, xPos + CROSS_SIZE - 1, yPos + CROSS_SIZE);
-        graphics.drawLine(xPos, yPos + 2, xPos + CROSS_SIZE - 2, yPos + CROSS_SIZE);
-        graphics.drawLine(xPos, yPos + 3, xPos + CROSS_SIZE - 3, yPos + CROSS_SIZE);
-        graphics.drawLine(xPos + CROSS_SIZE, yPos, xPos, yPos + CROSS_SIZE);
-        graphics.drawLine(xPos + CROSS_SIZE - 1, yPos, xPos, yPos + CROSS_SIZE - 1);
-        graphics.drawLine(xPos + CROSS_SIZE, yPos + 1, xPos + 1, yPos + CROSS_SIZE);
-        graphics.drawLine(xPos + CROSS_SIZE - 2, yPos, xPos, yPos + CROSS_SIZE - 2);
-        graphics.drawLine(xPos + CROSS_SIZE, yPos + 2, xPos + 2, yPos + CROSS_SIZE);
-        graphics.drawLine(xPos + CROSS_SIZE, yPos + 3, xPos + 3, yPos + CROSS_SIZE);
-    }
-
-    private void fillCrossAsRect(final Graphics2D graphics, final int xPos, final int yPos) {
-        graphics.fillRect(xPos, yPos, CROSS_SIZE, CROSS_SIZE);
-    }
-
-    private void paintGrid(final Graphics2D graphics, final BufferedImage image, final ImageModel imageModel) {
-        graphics.setColor(GRID_LINE_COLOR);
-
+    private static void paintGrid(final Canvas canvas, final int width, final int fromRow, final int toRow) {
         // vertical lines
-        for (int i = 0; i < imageModel.getWidth() + 1; i++) {
-            final int x = i * CROSS_SIZE + i * GRID_LINE_WIDTH;
-            // -1 because otherwise the rectangle would be a pixel wider
-            graphics.drawRect(x, 0, GRID_LINE_WIDTH - 1, image.getHeight());
+        for (int x = 0; x < width; x += CROSS_SIZE + GRID_LINE_WIDTH) {
+            canvas.fillRect(x, fromRow, GRID_LINE_WIDTH, toRow - fromRow, GRID_LINE_COLOR);
         }
         // horizontal lines
-        for (int i = 0; i < imageModel.getHeight() + 1; i++) {
-            final int y = i * CROSS_SIZE + i * GRID_LINE_WIDTH;
-            // -1 because otherwise the rectangle would be a pixel wider
-            graphics.drawRect(0, y, image.getWidth(), GRID_LINE_WIDTH - 1);
+        final int firstLine = (fromRow + CROSS_SIZE) / (CROSS_SIZE + GRID_LINE_WIDTH) * (CROSS_SIZE + GRID_LINE_WIDTH);
+        for (int y = firstLine; y < toRow; y += CROSS_SIZE + GRID_LINE_WIDTH) {
+            canvas.fillRect(0, y, width, GRID_LINE_WIDTH, GRID_LINE_COLOR);
         }
     }
 
+    private void drawNarrowCross(final Graphics2D graphics, final int xPos, final int yPos) {
+        graphics.drawLine(xPos, yPos, xPos + CROSS_SIZE, yPos + CROSS_SIZE);
+        graphics.drawLine(xPos + CROSS_SIZE, yPos, xPos, yPos + CROSS_SIZE);
+    }
+
     private int calculateWidth(final ImageModel imageModel) {
         // each cross represents one original pixel with a grid line between 2 crosses and 2 outer grid lines
         return imageModel.getWidth() * CROSS_SIZE + (imageModel.getWidth() + 1) * GRID_LINE_WIDTH;
@@ -101,4 +137,55 @@ public class CrossStitchPainter implements Painter {
         return imageModel.getHeight() * CROSS_SIZE + (imageModel.getHeight() + 1) * GRID_LINE_WIDTH;
     }
 
+    /**
+     * Band of the preview painting only its own pixel rows [fromRow, toRow).
+     */
+    private static final class CrossStitchBand implements RowRenderer.Band {
+
+        private final Canvas canvas;
+        private final int columns;
+        private final int width;
+        private final int fromRow;
+        private final int toRow;
+        private final CoverageStamp.Prepared[] stamps;
+
+        private CrossStitchBand(final Canvas canvas,
+                                final int columns,
+                                final int width,
+                                final int fromRow,
+                                final int toRow,
+                                final CoverageStamp.Prepared[] stamps) {
+            this.canvas = canvas;
+            this.columns = columns;
+            this.width = width;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.stamps = stamps;
+        }
+
+        @Override
+        public void begin() {
+            canvas.fillRect(0, fromRow, width, toRow - fromRow, BACKGROUND);
+            paintGrid(canvas, width, fromRow, toRow);
+        }
+
+        @Override
+        public void paintRow(final int y, final int[] paletteRow) {
+            final int yPos = y * CROSS_SIZE + (y + 1) * GRID_LINE_WIDTH;
+            for (int x = 0; x < columns; x++) {
+                final CoverageStamp.Prepared stamp = stamps[paletteRow[x]];
+                if (stamp != null) { // only draw full opaque pixels
+                    final int xPos = x * CROSS_SIZE + (x + 1) * GRID_LINE_WIDTH;
+                    canvas.stamp(stamp, xPos, yPos);
+                }
+            }
+        }
+
+        @Override
+        public void end() {
+            canvas.dispose();
+        }
+
+    }
+
 }
@@ -5,7 +5,9 @@ import com.github.wargulwb.pixelcross.model.ImageModelLoader;
 import com.github.wargulwb.pixelcross.utils.BooleanConverter;
 import com.github.wargulwb.pixelcross.utils.ColorConverter;
 import com.github.wargulwb.pixelcross.utils.ColorUtils;
+import com.github.wargulwb.pixelcross.utils.IntegerConverter;
 import com.github.wargulwb.pixelcross.utils.JDOMUtils;
+import com.github.wargulwb.pixelcross.utils.JsonUtils;
 import com.google.inject.AbstractModule;
 
 public class DependenciesModule extends AbstractModule {
@@ -15,13 +17,17 @@ public class DependenciesModule extends AbstractModule {
         bind(BooleanConverter.class).asEagerSingleton();
         bind(ColorUtils.class).asEagerSingleton();
         bind(ColorConverter.class).asEagerSingleton();
+        bind(IntegerConverter.class).asEagerSingleton();
         bind(JDOMUtils.class).asEagerSingleton();
+        bind(JsonUtils.class).asEagerSingleton();
         bind(PixelCrossConfig.class).asEagerSingleton();
         bind(ImageModelLoader.class).asEagerSingleton();
         bind(PatternPainter.class).asEagerSingleton();
+        bind(PageMapPainter.class).asEagerSingleton();
         bind(CrossStitchPainter.class).asEagerSingleton();
         bind(YarnLegendPainter.class).asEagerSingleton();
         bind(CombinedPainter.class).asEagerSingleton();
+        bind(ImageProcessor.class).asEagerSingleton();
     }
 
 }
@@ -0,0 +1,87 @@
+package com.github.wargulwb.pixelcross;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+import com.github.wargulwb.pixelcross.model.ImageModel;
+
+/**
+ * Paints several outputs of a model in one traversal of its rows: each row of crosses is read from the model once and
+ * passed to the bands of all {@link RowRenderer}s. The rows are split into bands of {@link #BAND_ROWS} rows, which are
+ * painted in parallel (in the common fork join pool).
+ */
+final class FusedRenderer {
+
+    private static final int BAND_ROWS = 48;
+
+    private FusedRenderer() {
+    }
+
+    /**
+     * @return the painted images in the order of the given renderers
+     */
+    static List<BufferedImage> render(final ImageModel imageModel, final List<RowRenderer> renderers) {
+        return render(imageModel, 0, imageModel.getHeight(), renderers);
+    }
+
+    /**
+     * Like {@link #render(ImageModel, List)}, but only traverses the rows [fromY, toY) of the model, e.g. for a page of
+     * the pattern. The rows next to this range are passed to the renderers as well, as crosses may reach into it, the
+     * renderers have to clip them to the range.
+     */
+    static List<BufferedImage> render(final ImageModel imageModel, final int fromY, final int toY, final List<RowRenderer> renderers) {
+        return render(imageModel, fromY, toY, renderers, BAND_ROWS);
+    }
+
+    /**
+     * Like {@link #render(ImageModel, int, int, List)} with bands of the given number of rows, in the pool of the
+     * calling task.
+     */
+    static List<BufferedImage> render(final ImageModel imageModel,
+                                      final int fromY,
+                                      final int toY,
+                                      final List<RowRenderer> renderers,
+                                      final int bandRows) {
+        if (renderers.isEmpty()) {
+            return List.of();
+        }
+        final List<ForkJoinTask<?>> bands = new ArrayList<>();
+        for (int y = fromY; y < toY; y += bandRows) {
+            final int bandFromY = y;
+            final int bandToY = Math.min(toY, y + bandRows);
+            final List<RowRenderer.Band> rendererBands =
+                    renderers.stream().map(renderer -> renderer.createBand(bandFromY, bandToY)).toList();
+            // the rows next to the band are passed as well, as crosses may reach into the band
+            final int fromRow = Math.max(0, bandFromY - 1);
+            final int toRow = Math.min(imageModel.getHeight(), bandToY + 1);
+            bands.add(ForkJoinTask.adapt(() -> renderBand(imageModel, fromRow, toRow, rendererBands)));
+        }
+        if (bands.size() == 1) {
+            bands.get(0).invoke();
+        } else {
+            ForkJoinTask.invokeAll(bands);
+        }
+        return renderers.stream().map(RowRenderer::finish).toList();
+    }
+
+    /**
+     * Passes the rows [fromRow, toRow) to the given bands.
+     */
+    private static void renderBand(final ImageModel imageModel, final int fromRow, final int toRow, final List<RowRenderer.Band> bands) {
+        try {
+            bands.forEach(RowRenderer.Band::begin);
+            int[] row = null;
+            for (int y = fromRow; y < toRow; y++) {
+                row = imageModel.getPaletteRow(y, row);
+                for (final RowRenderer.Band band : bands) {
+                    band.paintRow(y, row);
+                }
+            }
+        } finally {
+            bands.forEach(RowRenderer.Band::end);
+        }
+    }
+
+}
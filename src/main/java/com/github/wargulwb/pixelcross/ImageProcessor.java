@@ -0,0 +1,376 @@
+package com.github.wargulwb.pixelcross;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinTask;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.wargulwb.pixelcross.config.PixelCrossConfig;
+import com.github.wargulwb.pixelcross.error.ErrorCode;
+import com.github.wargulwb.pixelcross.error.RuntimeErrorCodeException;
+import com.github.wargulwb.pixelcross.model.ImageModel;
+import com.github.wargulwb.pixelcross.model.ImageModelLoader;
+
+import jakarta.inject.Inject;
+
+/**
+ * Converts one pixel art image into the cross stitch preview and the pattern image. Stateless, so it may process
+ * several images concurrently. The conversion is split into the stages {@link #read(Path)},
+ * {@link #convert(String, byte[], PageSink)} and {@link #write(Outputs, Path, Path)}, so callers may run the file access
+ * and the computation on different threads. Only the pages of a paginated pattern are handed to their {@link PageSink}
+ * during the conversion, so they never have to be held in memory all at once.
+ */
+public class ImageProcessor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageProcessor.class);
+
+    static final String CROSS_STITCH_SUFFIX = "@crosstitch.png";
+    static final String PATTERN_SUFFIX = "@crosstitch_pattern.png";
+    /**
+     * Start of the suffix of the pages of a paginated pattern, followed by the page number (see
+     * {@link #getPatternPage(Path, int)}).
+     */
+    static final String PATTERN_PAGE_SUFFIX = "@crosstitch_pattern_page";
+
+    /**
+     * Approximate heap bytes per pixel of the input image while it is processed: the decoded image, palette indices
+     * and grid (12) plus the cross stitch preview (11x11 ARGB pixels per cross) and the pattern (21x21 ARGB pixels per
+     * cross), which are rendered at the same time.
+     */
+    private static final long BYTES_PER_PIXEL = 12L + 11L * 11L * 4L + 21L * 21L * 4L;
+    /**
+     * Like {@link #BYTES_PER_PIXEL} without the pattern, for a paginated pattern only the pages being painted take
+     * memory.
+     */
+    private static final long BYTES_PER_PIXEL_PAGINATED = 12L + 11L * 11L * 4L;
+
+    private final ImageModelLoader imageModelLoader;
+    private final CrossStitchPainter crossStitchPainter;
+    private final PatternPainter patternPainter;
+    private final CombinedPainter combinedPainter;
+    private final PixelCrossConfig config;
+
+    @Inject
+    ImageProcessor(final ImageModelLoader imageModelLoader,
+                   final CrossStitchPainter crossStitchPainter,
+                   final PatternPainter patternPainter,
+                   final CombinedPainter combinedPainter,
+                   final PixelCrossConfig config) {
+        this.imageModelLoader =
+                Objects.requireNonNull(imageModelLoader, getClass().getSimpleName() + ".imageModelLoader cannot be null!");
+        this.crossStitchPainter =
+                Objects.requireNonNull(crossStitchPainter, getClass().getSimpleName() + ".crossStitchPainter cannot be null!");
+        this.patternPainter = Objects.requireNonNull(patternPainter, getClass().getSimpleName() + ".patternPainter cannot be null!");
+        this.combinedPainter = Objects.requireNonNull(combinedPainter, getClass().getSimpleName() + ".combinedPainter cannot be null!");
+        this.config = Objects.requireNonNull(config, getClass().getSimpleName() + ".config cannot be null!");
+    }
+
+    /**
+     * Writes the cross stitch preview and the pattern of the given image to the given files.
+     */
+    public void process(final Path inputImage, final Path crossStitchImage, final Path patternImage) {
+        final long start = System.nanoTime();
+        write(convert(inputImage.toString(), read(inputImage), pageFiles(patternImage)), crossStitchImage, patternImage);
+        LOGGER.debug("Processed image '{}' in {} ms.", inputImage, (System.nanoTime() - start) / 1_000_000L);
+    }
+
+    /**
+     * First stage of {@link #process(Path, Path, Path)}, only reads the file of the given image.
+     *
+     * @return the encoded image
+     */
+    public byte[] read(final Path inputImage) {
+        try {
+            return Files.readAllBytes(inputImage);
+        } catch (final IOException exc) {
+            throw new UncheckedIOException("Failed to load image '" + inputImage + "'.", exc);
+        }
+    }
+
+    /**
+     * Second stage of {@link #process(Path, Path, Path)}, decodes the image, matches its colors to yarns, paints both
+     * output images in one traversal of the model and encodes them in parallel in memory. The only file access are the
+     * pages of a paginated pattern, if the given sink writes them to files.
+     *
+     * @param imageName
+     *            name of the image, for messages only
+     * @param pages
+     *            destination of the pages of a paginated pattern, see {@link #encode(Painted, PageSink)}
+     */
+    public Outputs convert(final String imageName, final byte[] encodedImage, final PageSink pages) {
+        return convert(imageName, encodedImage, true, true, pages);
+    }
+
+    /**
+     * Like {@link #convert(String, byte[], PageSink)}, but only paints the selected output images, the others are null.
+     * The sink is not used if the pattern is not painted.
+     */
+    public Outputs convert(final String imageName,
+                           final byte[] encodedImage,
+                           final boolean paintCrossStitch,
+                           final boolean paintPattern,
+                           final PageSink pages) {
+        return encode(paint(loadModel(decode(imageName, encodedImage)), paintCrossStitch, paintPattern), pages);
+    }
+
+    /**
+     * Part of {@link #convert(String, byte[], PageSink)}, decodes the given image file content.
+     *
+     * @param imageName
+     *            name of the image, for messages only
+     */
+    public BufferedImage decode(final String imageName, final byte[] encodedImage) {
+        // memory cached streams, otherwise ImageIO buffers streams in temporary files
+        try {
+            // closes the stream
+            final BufferedImage image = ImageIO.read(new MemoryCacheImageInputStream(new ByteArrayInputStream(encodedImage)));
+            if (image == null) {
+                throw new RuntimeErrorCodeException(ErrorCode.INVALID_IMAGE_FORMAT, "Format of image '" + imageName + "' is not supported!");
+            }
+            return image;
+        } catch (final IOException exc) {
+            throw new UncheckedIOException("Failed to load image '" + imageName + "'.", exc);
+        }
+    }
+
+    /**
+     * Part of {@link #convert(String, byte[], PageSink)}, matches the colors of the decoded image to yarns.
+     */
+    public ImageModel loadModel(final BufferedImage image) {
+        return imageModelLoader.loadImageModel(image);
+    }
+
+    /**
+     * Part of {@link #convert(String, byte[], PageSink)}, paints the selected output images in one traversal of the model (see
+     * {@link FusedRenderer}), the others are null. A {@link PixelCrossConfig#isPaginated() paginated} pattern is only
+     * split into its pages here, they are painted when they are encoded, and its page map is painted instead.
+     */
+    public Painted paint(final ImageModel imageModel, final boolean paintCrossStitch, final boolean paintPattern) {
+        final boolean paintPages = paintPattern && config.isPaginated();
+        final List<RowRenderer> renderers = new ArrayList<>(2);
+        if (paintCrossStitch) {
+            renderers.add(crossStitchPainter.createRowRenderer(imageModel));
+        }
+        if (paintPattern && !paintPages) {
+            renderers.add(combinedPainter.createRowRenderer(imageModel));
+        }
+        final List<BufferedImage> images = FusedRenderer.render(imageModel, renderers);
+        if (paintPages) {
+            final PatternPages pages = patternPainter.paginate(imageModel);
+            return new Painted(paintCrossStitch ? images.get(0) : null, combinedPainter.paintPageMap(pages), pages);
+        }
+        return new Painted(paintCrossStitch ? images.get(0) : null, paintPattern ? images.get(images.size() - 1) : null, null);
+    }
+
+    /**
+     * Part of {@link #convert(String, byte[], PageSink)}, encodes the painted output images as PNG in parallel. The pages
+     * of a paginated pattern are painted and encoded here and handed to the given sink right away (see
+     * {@link #encodePages(PatternPages, PageSink)}).
+     *
+     * @param pages
+     *            destination of the pages, not used if the pattern is not paginated
+     */
+    public Outputs encode(final Painted painted, final PageSink pages) {
+        final ForkJoinTask<byte[]> crossStitchTask = painted.crossStitchImage() == null
+                ? null
+                : ForkJoinTask.adapt(() -> encode(painted.crossStitchImage())).fork();
+        final byte[] pattern = painted.patternImage() == null ? null : encode(painted.patternImage());
+        if (painted.patternPages() != null) {
+            encodePages(painted.patternPages(), pages);
+        }
+        return new Outputs(crossStitchTask == null ? null : crossStitchTask.join(), pattern);
+    }
+
+    /**
+     * Last stage of {@link #process(Path, Path, Path)}, only writes the files of the output images. Outputs which were
+     * not painted are skipped. The pages of a paginated pattern were already written during the conversion (see
+     * {@link #pageFiles(Path)}).
+     */
+    public void write(final Outputs outputs, final Path crossStitchImage, final Path patternImage) {
+        if (outputs.crossStitchImage() != null) {
+            writeFile(outputs.crossStitchImage(), crossStitchImage);
+        }
+        if (outputs.patternImage() != null) {
+            writeFile(outputs.patternImage(), patternImage);
+        }
+    }
+
+    /**
+     * @return sink writing the pages next to the given pattern image (see {@link #getPatternPage(Path, int)})
+     */
+    static PageSink pageFiles(final Path patternImage) {
+        return (pageNumber, encodedPage) -> writeFile(encodedPage, getPatternPage(patternImage, pageNumber));
+    }
+
+    /**
+     * Paints and encodes the given pages as PNG, {@link PixelCrossConfig#getPageParallelism()} pages at a time in
+     * parallel, and hands each group to the sink before the next one is painted. So the memory needed for the pages
+     * does not depend on their number.
+     */
+    private void encodePages(final PatternPages pages, final PageSink sink) {
+        final int parallelism = config.getPageParallelism();
+        for (int first = 0; first < pages.getPageCount(); first += parallelism) {
+            final List<ForkJoinTask<byte[]>> tasks = new ArrayList<>(parallelism);
+            for (int index = first; index < Math.min(pages.getPageCount(), first + parallelism); index++) {
+                final int page = index;
+                tasks.add(ForkJoinTask.adapt(() -> encode(pages.paintPage(page))));
+            }
+            ForkJoinTask.invokeAll(tasks);
+            for (int i = 0; i < tasks.size(); i++) {
+                final int pageNumber = first + i + 1;
+                try {
+                    sink.accept(pageNumber, tasks.get(i).join());
+                } catch (final IOException exc) {
+                    throw new RuntimeErrorCodeException(ErrorCode.FAILED_TO_WRITE_IMAGE, "Failed to write page " + pageNumber + "!", exc);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the file of the page with the given number of the given pattern image, e.g. 'cat@crosstitch_pattern_page3.png'
+     *         for 'cat@crosstitch_pattern.png' as well as for 'cat.png', so it is always named by
+     *         {@link #PATTERN_PAGE_SUFFIX}
+     */
+    static Path getPatternPage(final Path patternImage, final int pageNumber) {
+        final String name = patternImage.getFileName().toString();
+        final String prefix;
+        if (name.endsWith(PATTERN_SUFFIX)) {
+            prefix = name.substring(0, name.length() - PATTERN_SUFFIX.length());
+        } else {
+            final int suffixStart = name.lastIndexOf('.');
+            prefix = suffixStart > 0 ? name.substring(0, suffixStart) : name;
+        }
+        return patternImage.resolveSibling(prefix + getPatternPageName(pageNumber));
+    }
+
+    /**
+     * @return the name of the page with the given number without the name of its image, e.g.
+     *         '@crosstitch_pattern_page3.png'
+     */
+    static String getPatternPageName(final int pageNumber) {
+        return PATTERN_PAGE_SUFFIX + pageNumber + ".png";
+    }
+
+    /**
+     * @return whether the pattern is split into pages, see {@link PixelCrossConfig#isPaginated()}
+     */
+    public boolean isPaginated() {
+        return config.isPaginated();
+    }
+
+    /**
+     * Estimates the heap needed to process the given image from its dimension, without decoding it.
+     *
+     * @return estimated bytes, 0 if the dimension cannot be read
+     */
+    public long estimateMemory(final Path inputImage) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(inputImage.toFile())) {
+            return estimateMemory(input);
+        } catch (final IOException exc) {
+            LOGGER.debug("Failed to read dimension of image '" + inputImage + "'.", exc);
+            return 0L;
+        }
+    }
+
+    /**
+     * Like {@link #estimateMemory(Path)} for an image which was already read.
+     *
+     * @param imageName
+     *            name of the image, for messages only
+     */
+    public long estimateMemory(final String imageName, final byte[] encodedImage) {
+        try (ImageInputStream input = new MemoryCacheImageInputStream(new ByteArrayInputStream(encodedImage))) {
+            return estimateMemory(input);
+        } catch (final IOException exc) {
+            LOGGER.debug("Failed to read dimension of image '" + imageName + "'.", exc);
+            return 0L;
+        }
+    }
+
+    private long estimateMemory(final ImageInputStream input) throws IOException {
+        final Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+        if (readers == null || !readers.hasNext()) {
+            return 0L;
+        }
+        final ImageReader reader = readers.next();
+        try {
+            reader.setInput(input, true, true);
+            final long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+            if (config.isPaginated()) {
+                // the pages being painted, their encoded bytes and the page map, each at most about a page
+                final long pageBytes = (long) config.getPageFormat().getWidth() * config.getPageFormat().getHeight() * 4L;
+                return pixels * BYTES_PER_PIXEL_PAGINATED + (config.getPageParallelism() * 2L + 1L) * pageBytes;
+            }
+            return pixels * BYTES_PER_PIXEL;
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private static byte[] encode(final BufferedImage image) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = new MemoryCacheImageOutputStream(bytes)) {
+            ImageIO.write(image, "PNG", output);
+        } catch (final IOException exc) {
+            throw new RuntimeErrorCodeException(ErrorCode.FAILED_TO_WRITE_IMAGE, "Failed to encode image as PNG!");
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeFile(final byte[] encodedImage, final Path resultImagePath) {
+        try {
+            Files.write(resultImagePath, encodedImage);
+        } catch (final IOException exc) {
+            throw new RuntimeErrorCodeException(ErrorCode.FAILED_TO_WRITE_IMAGE, "Failed to write image to '" + resultImagePath + "'!");
+        }
+    }
+
+    /**
+     * The painted output images of one input image, null if not painted. If the pattern is paginated, 'patternImage'
+     * is its page map and 'patternPages' the pages to be painted, otherwise 'patternPages' is null.
+     */
+    public record Painted(BufferedImage crossStitchImage, BufferedImage patternImage, PatternPages patternPages) {
+    }
+
+    /**
+     * The PNG encoded output images of one input image, null if not painted. If the pattern is paginated,
+     * 'patternImage' is its page map, its pages were handed to a {@link PageSink}.
+     */
+    public record Outputs(byte[] crossStitchImage, byte[] patternImage) {
+    }
+
+    /**
+     * Destination of the PNG encoded pages of a paginated pattern, which are handed over in order while the image is
+     * converted, so they count against the memory and the conversion limits of the image.
+     */
+    @FunctionalInterface
+    public interface PageSink {
+
+        /**
+         * @param pageNumber
+         *            number of the page, starting at 1
+         */
+        public void accept(final int pageNumber, final byte[] encodedPage) throws IOException;
+
+    }
+
+}
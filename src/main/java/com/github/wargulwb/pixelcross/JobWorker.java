@@ -0,0 +1,216 @@
+package com.github.wargulwb.pixelcross;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.wargulwb.pixelcross.ImageProcessor.Outputs;
+import com.github.wargulwb.pixelcross.error.ErrorCode;
+import com.github.wargulwb.pixelcross.error.RuntimeErrorCodeException;
+import com.github.wargulwb.pixelcross.utils.JsonUtils;
+import com.github.wargulwb.pixelcross.utils.MemoryBudget;
+
+/**
+ * Reads one JSON job per line and writes one JSON result line per job, in the order the jobs finish. A job names its
+ * input image and the outputs to paint, at least one of them:
+ *
+ * <pre>
+ * {"id": 1, "input": "a.png", "crossStitch": "a@crosstitch.png", "pattern": "a@crosstitch_pattern.png"}
+ * </pre>
+ *
+ * The 'id' (any JSON value) is copied into the result, which either holds the timings in milliseconds or the error:
+ *
+ * <pre>
+ * {"id":1,"status":"ok","timings":{"queued":0,"read":1,"convert":412,"write":2,"total":415}}
+ * {"id":2,"status":"error","code":-3,"message":"..."}
+ * </pre>
+ *
+ * The pages of a paginated pattern are written while converting, so their time counts as 'convert'.
+ * Up to 'workerCount' jobs run at the same time. Once {@link #QUEUED_PER_WORKER} times as many wait, no further line is
+ * read until a job finished, so a fast producer is slowed down by the pipe. The worker ends after the last job of the
+ * input finished.
+ */
+class JobWorker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobWorker.class);
+
+    private static final int QUEUED_PER_WORKER = 2;
+    private static final String ID = "id";
+    private static final String INPUT = "input";
+    private static final String CROSS_STITCH = "crossStitch";
+    private static final String PATTERN = "pattern";
+
+    private final ImageProcessor imageProcessor;
+    private final JsonUtils jsonUtils;
+    private final int workerCount;
+    private final MemoryBudget memoryBudget;
+
+    JobWorker(final ImageProcessor imageProcessor, final JsonUtils jsonUtils, final int workerCount, final MemoryBudget memoryBudget) {
+        this.imageProcessor = Objects.requireNonNull(imageProcessor, getClass().getSimpleName() + ".imageProcessor cannot be null!");
+        this.jsonUtils = Objects.requireNonNull(jsonUtils, getClass().getSimpleName() + ".jsonUtils cannot be null!");
+        this.memoryBudget = Objects.requireNonNull(memoryBudget, getClass().getSimpleName() + ".memoryBudget cannot be null!");
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Given 'workerCount'=" + workerCount + " must be greater than 0!");
+        }
+        this.workerCount = workerCount;
+    }
+
+    /**
+     * Processes all jobs of the given input, returns once all of them are answered.
+     */
+    void run(final InputStream jobs, final PrintStream results) {
+        LOGGER.info("Waiting for jobs with {} workers and a memory budget of {} MiB.", workerCount, memoryBudget.getCapacity() >> 20);
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                workerCount,
+                runnable -> new Thread(runnable, "pixelcross-worker-" + threadCount.incrementAndGet()));
+        final Semaphore jobPermits = new Semaphore(workerCount * (1 + QUEUED_PER_WORKER));
+        int jobCount = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(jobs, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                final String job = line;
+                final long queued = System.nanoTime();
+                jobPermits.acquire();
+                jobCount++;
+                executor.execute(() -> {
+                    try {
+                        final String result = jsonUtils.toJson(runJobSafely(job, queued));
+                        synchronized (results) {
+                            results.println(result);
+                            results.flush();
+                        }
+                    } finally {
+                        jobPermits.release();
+                    }
+                });
+            }
+        } catch (final IOException exc) {
+            throw new UncheckedIOException("Failed to read jobs.", exc);
+        } catch (final InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdown();
+        }
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (final InterruptedException exc) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        LOGGER.info("Processed {} jobs.", jobCount);
+    }
+
+    /**
+     * Like {@link #runJob(String, long)}, but also answers the job if it failed with any other error, e.g. a
+     * {@link StackOverflowError}, so every job gets its result line and the worker thread survives.
+     */
+    private Map<String, Object> runJobSafely(final String job, final long queued) {
+        try {
+            return runJob(job, queued);
+        } catch (final Throwable exc) {
+            LOGGER.error("Failed to process job '" + job + "'.", exc);
+            final Map<String, Object> result = new LinkedHashMap<>();
+            result.put(ID, null);
+            putError(result, ErrorCode.UNKNOWN_ERROR, exc.toString());
+            return result;
+        }
+    }
+
+    private Map<String, Object> runJob(final String job, final long queued) {
+        final long start = System.nanoTime();
+        final Map<String, Object> result = new LinkedHashMap<>();
+        result.put(ID, null); // stays null if the job cannot be parsed
+        try {
+            final Map<String, Object> parameters = jsonUtils.parseObject(job);
+            result.put(ID, parameters.get(ID));
+            final Path input = getPath(parameters, INPUT);
+            final Path crossStitch = parameters.get(CROSS_STITCH) == null ? null : getPath(parameters, CROSS_STITCH);
+            final Path pattern = parameters.get(PATTERN) == null ? null : getPath(parameters, PATTERN);
+            if (crossStitch == null && pattern == null) {
+                throw new RuntimeErrorCodeException(
+                        ErrorCode.INVALID_ARGUMENT,
+                        "At least one of '" + CROSS_STITCH + "' and '" + PATTERN + "' is expected!");
+            }
+            final long memory = imageProcessor.estimateMemory(input);
+            memoryBudget.acquire(memory);
+            final Map<String, Object> timings = new LinkedHashMap<>();
+            try {
+                timings.put("queued", toMillis(start - queued));
+                long stageStart = System.nanoTime();
+                final byte[] encodedImage = imageProcessor.read(input);
+                timings.put("read", toMillis(System.nanoTime() - stageStart));
+                stageStart = System.nanoTime();
+                final Outputs outputs = imageProcessor.convert(input.toString(),
+                                                               encodedImage,
+                                                               crossStitch != null,
+                                                               pattern != null,
+                                                               pattern == null ? null : ImageProcessor.pageFiles(pattern));
+                timings.put("convert", toMillis(System.nanoTime() - stageStart));
+                stageStart = System.nanoTime();
+                imageProcessor.write(outputs, crossStitch, pattern);
+                timings.put("write", toMillis(System.nanoTime() - stageStart));
+                timings.put("total", toMillis(System.nanoTime() - queued));
+            } finally {
+                memoryBudget.release(memory);
+            }
+            result.put("status", "ok");
+            result.put("timings", timings);
+        } catch (final RuntimeErrorCodeException exc) {
+            LOGGER.debug("Failed to process job '" + job + "'.", exc);
+            putError(result, exc.getErrorCode(), exc.getMessage());
+        } catch (final IllegalArgumentException exc) {
+            LOGGER.debug("Failed to process job '" + job + "'.", exc);
+            putError(result, ErrorCode.INVALID_ARGUMENT, exc.getMessage());
+        } catch (final UncheckedIOException exc) {
+            LOGGER.debug("Failed to process job '" + job + "'.", exc);
+            putError(result, ErrorCode.FAILED_TO_LOAD_IMAGE, exc.getMessage());
+        } catch (final InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            putError(result, ErrorCode.UNKNOWN_ERROR, "Interrupted!");
+        } catch (final RuntimeException | OutOfMemoryError exc) {
+            LOGGER.error("Failed to process job '" + job + "'.", exc);
+            putError(result, ErrorCode.UNKNOWN_ERROR, exc.toString());
+        }
+        return result;
+    }
+
+    private static Path getPath(final Map<String, Object> parameters, final String name) {
+        final Object value = parameters.get(name);
+        if (!(value instanceof String)) {
+            throw new RuntimeErrorCodeException(ErrorCode.INVALID_ARGUMENT, "Path '" + name + "' is missing or no string!");
+        }
+        return Paths.get((String) value);
+    }
+
+    private static void putError(final Map<String, Object> result, final ErrorCode code, final String message) {
+        result.put("status", "error");
+        result.put("code", code.getCode());
+        result.put("message", message);
+    }
+
+    private static long toMillis(final long nanos) {
+        return nanos / 1_000_000L;
+    }
+
+}
@@ -0,0 +1,120 @@
+package com.github.wargulwb.pixelcross;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import com.github.wargulwb.pixelcross.canvas.Canvas;
+import com.github.wargulwb.pixelcross.config.PixelCrossConfig;
+import com.github.wargulwb.pixelcross.model.ImageModel;
+import com.github.wargulwb.pixelcross.model.PixelCrossColor;
+import com.github.wargulwb.pixelcross.utils.ColorUtils;
+
+import jakarta.inject.Inject;
+
+/**
+ * Paints a small picture of the whole pattern with the outlines and numbers of its pages (see
+ * {@link PatternPainter#paginate(ImageModel)}). The picture is at most as wide as a page, big patterns are scaled down.
+ */
+public class PageMapPainter extends AbstractPainter {
+
+    private static final Color PAGE_COLOR = Color.RED;
+    private static final int PAGE_LINE_WIDTH = 2;
+    private static final int MARGIN = 10;
+
+    @Inject
+    public PageMapPainter(final ColorUtils colorUtils, final PixelCrossConfig config) {
+        super(colorUtils, config);
+    }
+
+    public Dimension getSize(final ImageModel imageModel) {
+        final double scale = getScale(imageModel);
+        return new Dimension(scale(imageModel.getWidth(), scale) + MARGIN * 2, scale(imageModel.getHeight(), scale) + MARGIN * 2);
+    }
+
+    /**
+     * Paints the map of the given pages into the region [0, width) x [0, height) (see {@link #getSize(ImageModel)}) of
+     * the given canvas, which is expected to be clipped to that region.
+     */
+    public void paint(final Canvas canvas, final PatternPages pages) {
+        final ImageModel imageModel = pages.getImageModel();
+        final Dimension size = getSize(imageModel);
+        canvas.fillRect(0, 0, size.width, size.height, BACKGROUND);
+        final double scale = getScale(imageModel);
+        canvas.drawImage(paintThumbnail(imageModel, scale), MARGIN, MARGIN);
+
+        final List<Rectangle> windows = pages.getWindows();
+        for (int i = 0; i < windows.size(); i++) {
+            final Rectangle window = windows.get(i);
+            final int left = MARGIN + scale(window.x, scale);
+            final int top = MARGIN + scale(window.y, scale);
+            final int width = scale(window.x + window.width, scale) - scale(window.x, scale);
+            final int height = scale(window.y + window.height, scale) - scale(window.y, scale);
+            canvas.fillRect(left, top, width, PAGE_LINE_WIDTH, PAGE_COLOR);
+            canvas.fillRect(left, top + height - PAGE_LINE_WIDTH, width, PAGE_LINE_WIDTH, PAGE_COLOR);
+            canvas.fillRect(left, top, PAGE_LINE_WIDTH, height, PAGE_COLOR);
+            canvas.fillRect(left + width - PAGE_LINE_WIDTH, top, PAGE_LINE_WIDTH, height, PAGE_COLOR);
+            // the number on a white box, so it is readable on any yarn
+            final String pageNumber = Integer.toString(i + 1);
+            canvas.fillRect(left + PAGE_LINE_WIDTH, top + PAGE_LINE_WIDTH, pageNumber.length() * AVG_CHAR_WIDTH, FONT_SIZE + 4, BACKGROUND);
+            canvas.drawString(pageNumber, left + PAGE_LINE_WIDTH * 2, top + PAGE_LINE_WIDTH + FONT_SIZE, TEXT_FONT, PAGE_COLOR);
+        }
+    }
+
+    /**
+     * @return pixels per cross, a whole number unless the pattern has to be scaled down
+     */
+    private double getScale(final ImageModel imageModel) {
+        final int maxSize = config.getPageFormat().getWidth() - MARGIN * 2;
+        final double scale = Math.min((double) maxSize / imageModel.getWidth(), (double) maxSize / imageModel.getHeight());
+        return scale >= 1D ? Math.floor(scale) : scale;
+    }
+
+    private static int scale(final int crosses, final double scale) {
+        return (int) Math.ceil(crosses * scale);
+    }
+
+    /**
+     * @return the pattern with a pixel of the yarn color for each cross (or the crosses sampled from the pattern if it
+     *         is scaled down)
+     */
+    private BufferedImage paintThumbnail(final ImageModel imageModel, final double scale) {
+        final List<PixelCrossColor> colors = imageModel.getColors();
+        final int[] argbs = new int[colors.size()];
+        for (int paletteIndex = 0; paletteIndex < argbs.length; paletteIndex++) {
+            final PixelCrossColor color = colors.get(paletteIndex);
+            if (!color.isPixelOpaque()) {
+                argbs[paletteIndex] = BACKGROUND.getRGB();
+            } else if (config.isOutputGrayscale()) {
+                argbs[paletteIndex] = colorUtils.toGrayScale(color.getYarn().getColor()).getRGB();
+            } else {
+                argbs[paletteIndex] = color.getYarn().getColor().getRGB();
+            }
+        }
+        final int width = scale(imageModel.getWidth(), scale);
+        final int height = scale(imageModel.getHeight(), scale);
+        final int[] columns = new int[width];
+        for (int x = 0; x < width; x++) {
+            columns[x] = Math.min(imageModel.getWidth() - 1, (int) (x / scale));
+        }
+        final BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        final int[] line = new int[width];
+        int[] row = null;
+        int rowY = -1;
+        for (int y = 0; y < height; y++) {
+            final int crossY = Math.min(imageModel.getHeight() - 1, (int) (y / scale));
+            if (crossY != rowY) { // scaled up rows repeat the line of the row above
+                row = imageModel.getPaletteRow(crossY, row);
+                rowY = crossY;
+                for (int x = 0; x < width; x++) {
+                    line[x] = argbs[row[columns[x]]];
+                }
+            }
+            thumbnail.setRGB(0, y, width, 1, line, 0, width);
+        }
+        return thumbnail;
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.github.wargulwb.pixelcross;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+import com.github.wargulwb.pixelcross.model.ImageModel;
+
+/**
+ * The pattern of a model split into pages (see {@link PatternPainter#paginate(ImageModel)}). The pages are painted one
+ * by one on demand, so only the pages currently painted are held in memory, whatever the size of the pattern.
+ */
+public final class PatternPages {
+
+    private final PatternPainter patternPainter;
+    private final ImageModel imageModel;
+    private final int pageWidth;
+    private final int pageHeight;
+    private final List<Rectangle> windows;
+
+    PatternPages(final PatternPainter patternPainter,
+                 final ImageModel imageModel,
+                 final int pageWidth,
+                 final int pageHeight,
+                 final List<Rectangle> windows) {
+        this.patternPainter = patternPainter;
+        this.imageModel = imageModel;
+        this.pageWidth = pageWidth;
+        this.pageHeight = pageHeight;
+        this.windows = List.copyOf(windows);
+    }
+
+    public int getPageCount() {
+        return windows.size();
+    }
+
+    /**
+     * @return the page with the given index, may be called concurrently for different pages
+     */
+    public BufferedImage paintPage(final int index) {
+        return patternPainter.paintPage(this, index);
+    }
+
+    ImageModel getImageModel() {
+        return imageModel;
+    }
+
+    int getPageWidth() {
+        return pageWidth;
+    }
+
+    int getPageHeight() {
+        return pageHeight;
+    }
+
+    /**
+     * @return the crosses of each page, the pages row by row
+     */
+    List<Rectangle> getWindows() {
+        return windows;
+    }
+
+}
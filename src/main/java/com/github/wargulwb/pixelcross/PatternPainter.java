@@ -1,25 +1,35 @@
 package com.github.wargulwb.pixelcross;
 
 import java.awt.Color;
-import java.awt.Graphics2D;
-import java.awt.RenderingHints;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import com.github.wargulwb.pixelcross.canvas.Canvas;
+import com.github.wargulwb.pixelcross.config.PageFormat;
 import com.github.wargulwb.pixelcross.config.PixelCrossConfig;
 import com.github.wargulwb.pixelcross.model.ImageModel;
-import com.github.wargulwb.pixelcross.model.PixelCross;
+import com.github.wargulwb.pixelcross.model.PixelCrossColor;
+import com.github.wargulwb.pixelcross.model.yarn.Yarn;
 import com.github.wargulwb.pixelcross.utils.ColorUtils;
 
 import jakarta.inject.Inject;
 
-public class PatternPainter extends AbstractPainter {
+public class PatternPainter extends AbstractPainter implements RegionPainter {
 
     private static final Color LIGHT_GRID_LINE_COLOR = Color.GRAY;
     private static final Color MID_GRID_LINE_COLOR = Color.DARK_GRAY;
     private static final Color DARK_GRID_LINE_COLOR = Color.BLACK;
+    private static final List<Color> GRID_LINE_COLORS = List.of(LIGHT_GRID_LINE_COLOR, MID_GRID_LINE_COLOR, DARK_GRID_LINE_COLOR);
     private static final int GRID_LINE_WIDTH = 1;
     private static final int LABEL_AREA_WIDTH = 50;
     private static final int LABEL_FONT_WIDTH = 5;
+    private static final Font LABEL_FONT = new Font(Font.DIALOG, Font.PLAIN, 12);
 
     @Inject
     public PatternPainter(final ColorUtils colorUtils, final PixelCrossConfig config) {
@@ -27,102 +37,328 @@ public class PatternPainter extends AbstractPainter {
     }
 
     @Override
-    public BufferedImage paint(final ImageModel imageModel) {
-        final int imageWidth = calculateWidth(imageModel);
-        final int imageHeight = calculateHeight(imageModel);
-
-        final BufferedImage paintedImage = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB);
-        paint(paintedImage, imageModel);
-        return paintedImage;
-    }
-
-    private void paint(final BufferedImage image, final ImageModel imageModel) {
-        final Graphics2D graphics = (Graphics2D) image.getGraphics();
-        graphics.setColor(BACKGROUND);
-        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
-        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        paintGrid(graphics, image, imageModel);
-        paintLabels(graphics, image, imageModel);
-        paintCrosses(graphics, imageModel);
-    }
-
-    private void paintCrosses(final Graphics2D graphics, final ImageModel imageModel) {
-        for (int x = 0; x < imageModel.getWidth(); x++) {
-            for (int y = 0; y < imageModel.getHeight(); y++) {
-                final int xPos = LABEL_AREA_WIDTH + x * BLOCK_SIZE + (x + 1) * GRID_LINE_WIDTH;
-                final int yPos = LABEL_AREA_WIDTH + y * BLOCK_SIZE + (y + 1) * GRID_LINE_WIDTH;
-                final PixelCross pixelCross = imageModel.getPixelCross(x, y);
-                if (pixelCross.getPixelColor().isPixelOpaque()) { // only draw full opaque pixels
-                    paintCross(graphics, xPos, yPos, imageModel, pixelCross.getPixelColor().getYarn());
+    public Dimension getSize(final ImageModel imageModel) {
+        return getSize(getWholeWindow(imageModel));
+    }
+
+    private Dimension getSize(final Rectangle window) {
+        return new Dimension(calculateWidth(window.width), calculateHeight(window.height));
+    }
+
+    private static Rectangle getWholeWindow(final ImageModel imageModel) {
+        return new Rectangle(0, 0, imageModel.getWidth(), imageModel.getHeight());
+    }
+
+    /**
+     * Paints the pattern in bands of rows of crosses in parallel (see {@link FusedRenderer}). Each band has its own
+     * canvas clipped to the band and paints everything which might reach into it in the same order as a single pass over
+     * the whole pattern would, so the result does not depend on the bands.
+     */
+    @Override
+    public void paint(final Canvas canvas, final ImageModel imageModel) {
+        FusedRenderer.render(imageModel, List.of(createRowRenderer(canvas, imageModel)));
+    }
+
+    /**
+     * @param canvas
+     *            canvas clipped to the region of the pattern, like for {@link #paint(Canvas, ImageModel)}, not disposed
+     *            by the renderer
+     * @return renderer of the pattern, to be passed to the {@link FusedRenderer}
+     */
+    public RowRenderer createRowRenderer(final Canvas canvas, final ImageModel imageModel) {
+        return createRowRenderer(canvas, imageModel, getWholeWindow(imageModel));
+    }
+
+    /**
+     * Like {@link #createRowRenderer(Canvas, ImageModel)}, but only paints the given window of crosses of the model, with
+     * the grid and labels of the whole pattern.
+     */
+    private RowRenderer createRowRenderer(final Canvas canvas, final ImageModel imageModel, final Rectangle window) {
+        final Dimension size = getSize(window);
+        final BufferedImage[][] sprites = paintCrossSprites(imageModel);
+        return new RowRenderer() {
+
+            @Override
+            public Band createBand(final int fromY, final int toY) {
+                // the first and the last band also paint the label areas above and below the grid
+                final int top = fromY == window.y ? 0 : LABEL_AREA_WIDTH + (fromY - window.y) * (BLOCK_SIZE + GRID_LINE_WIDTH);
+                final int bottom = toY == window.y + window.height
+                        ? size.height
+                        : LABEL_AREA_WIDTH + (toY - window.y) * (BLOCK_SIZE + GRID_LINE_WIDTH);
+                final Rectangle tile = new Rectangle(0, top, size.width, bottom - top);
+                final Canvas tileCanvas = canvas.clip(tile.x, tile.y, tile.width, tile.height);
+                return new PatternBand(tileCanvas, tile, size.width, size.height, imageModel, window, sprites);
+            }
+
+            @Override
+            public BufferedImage finish() {
+                return canvas.getImage();
+            }
+
+        };
+    }
+
+    /**
+     * Splits the pattern into pages of the configured {@link PixelCrossConfig#getPageFormat() format}, in portrait or
+     * landscape orientation, whichever needs fewer pages. The pages are only laid out here, each is painted on its own
+     * by {@link PatternPages#paintPage(int)}.
+     */
+    public PatternPages paginate(final ImageModel imageModel) {
+        final PageFormat format = config.getPageFormat();
+        final List<Rectangle> portrait = layOutPages(imageModel, format.getColumns(false), format.getRows(false));
+        final List<Rectangle> landscape = layOutPages(imageModel, format.getColumns(true), format.getRows(true));
+        if (landscape.size() < portrait.size()) {
+            return new PatternPages(this, imageModel, format.getHeight(), format.getWidth(), landscape);
+        }
+        return new PatternPages(this, imageModel, format.getWidth(), format.getHeight(), portrait);
+    }
+
+    /**
+     * @param columns
+     *            columns of crosses fitting on a page, see {@link PageFormat#getColumns(boolean)}
+     * @param rows
+     *            rows of crosses fitting on a page, see {@link PageFormat#getRows(boolean)}
+     * @return the windows of crosses of the pages row by row, neighboring pages share the configured
+     *         {@link PixelCrossConfig#getPageOverlap() overlap} of rows or columns
+     */
+    private List<Rectangle> layOutPages(final ImageModel imageModel, final int columns, final int rows) {
+        // less than the rows and columns of a page, checked when the config is loaded
+        final int overlap = config.getPageOverlap();
+        final List<Rectangle> pages = new ArrayList<>();
+        for (int y = 0; y < imageModel.getHeight(); y += rows - overlap) {
+            final int height = Math.min(rows, imageModel.getHeight() - y);
+            for (int x = 0; x < imageModel.getWidth(); x += columns - overlap) {
+                final int width = Math.min(columns, imageModel.getWidth() - x);
+                pages.add(new Rectangle(x, y, width, height));
+                if (x + width == imageModel.getWidth()) {
+                    break; // the overlap of the last page would start another page otherwise
                 }
             }
+            if (y + height == imageModel.getHeight()) {
+                break;
+            }
+        }
+        return pages;
+    }
+
+    /**
+     * Paints the window of the given page with its labels on a page sized image, with the number of the page below.
+     */
+    BufferedImage paintPage(final PatternPages pages, final int index) {
+        final ImageModel imageModel = pages.getImageModel();
+        final Rectangle window = pages.getWindows().get(index);
+        final Canvas canvas = createCanvas(pages.getPageWidth(), pages.getPageHeight());
+        try {
+            canvas.fillRect(0, 0, pages.getPageWidth(), pages.getPageHeight(), BACKGROUND);
+            final Dimension size = getSize(window);
+            final Canvas patternCanvas = canvas.create(0, 0, size.width, size.height);
+            try {
+                // the rows next to the window are passed as well, the crosses above reach into the top grid line
+                final RowRenderer renderer = createRowRenderer(patternCanvas, imageModel, window);
+                FusedRenderer.render(imageModel, window.y, window.y + window.height, List.of(renderer));
+            } finally {
+                patternCanvas.dispose();
+            }
+            final String caption = "page " + (index + 1) + " of " + pages.getPageCount()
+                                   + " | columns " + window.x + "-" + (window.x + window.width)
+                                   + " | rows " + window.y + "-" + (window.y + window.height);
+            canvas.drawString(caption, LABEL_AREA_WIDTH, size.height + PageFormat.FOOTER_PIXELS / 2 + FONT_SIZE / 2, TEXT_FONT, TEXT_COLOR);
+        } finally {
+            canvas.dispose();
         }
+        return canvas.getImage();
     }
 
-    private void paintLabels(final Graphics2D graphics, final BufferedImage image, final ImageModel imageModel) {
-        graphics.setColor(DARK_GRID_LINE_COLOR);
-        // horizontal labels
-        for (int i = 0; i < imageModel.getWidth() + 1; i++) {
-            if (i % 5 != 0) {
+    /**
+     * Paints the cross of each yarn once for each grid line color below it (as a symbol may reach into the grid line
+     * below its block).
+     *
+     * @return the crosses by palette index and grid line color (see {@link #getGridLineColorIndex(int)}), a cross is
+     *         null if it has to be painted block by block (not private, so tests can compare both)
+     */
+    BufferedImage[][] paintCrossSprites(final ImageModel imageModel) {
+        final BufferedImage[] backgrounds = new BufferedImage[GRID_LINE_COLORS.size()];
+        for (int i = 0; i < backgrounds.length; i++) {
+            final Canvas canvas = createCanvas(BLOCK_SIZE, BLOCK_SIZE + GRID_LINE_WIDTH);
+            canvas.fillRect(0, 0, BLOCK_SIZE, BLOCK_SIZE, BACKGROUND);
+            canvas.fillRect(0, BLOCK_SIZE, BLOCK_SIZE, GRID_LINE_WIDTH, GRID_LINE_COLORS.get(i));
+            canvas.dispose();
+            backgrounds[i] = canvas.getImage();
+        }
+        final Map<Yarn, BufferedImage[]> spritesByYarn = new HashMap<>();
+        final List<PixelCrossColor> colors = imageModel.getColors();
+        final BufferedImage[][] sprites = new BufferedImage[colors.size()][];
+        for (int paletteIndex = 0; paletteIndex < colors.size(); paletteIndex++) {
+            final PixelCrossColor color = colors.get(paletteIndex);
+            if (color.isPixelOpaque()) {
+                sprites[paletteIndex] = spritesByYarn.computeIfAbsent(color.getYarn(), yarn -> {
+                    final BufferedImage[] yarnSprites = new BufferedImage[backgrounds.length];
+                    for (int i = 0; i < backgrounds.length; i++) {
+                        yarnSprites[i] = paintCrossSprite(backgrounds[i], imageModel, yarn);
+                    }
+                    return yarnSprites;
+                });
+            }
+        }
+        return sprites;
+    }
+
+    private void paintLabels(final Canvas canvas,
+                             final Rectangle tile,
+                             final int width,
+                             final int height,
+                             final Rectangle window) {
+        // labels are only painted into the label areas around the grid
+        final Rectangle grid = new Rectangle(LABEL_AREA_WIDTH, LABEL_AREA_WIDTH, width - LABEL_AREA_WIDTH * 2, height - LABEL_AREA_WIDTH * 2);
+        if (grid.contains(tile)) {
+            return;
+        }
+        // horizontal labels, numbered like in the whole pattern
+        for (int i = 0; i < window.width + 1; i++) {
+            if ((window.x + i) % 5 != 0) {
                 continue;
             }
-            final String labelText = Integer.toString(i);
+            final String labelText = Integer.toString(window.x + i);
             final int labelOffset = labelText.length() * LABEL_FONT_WIDTH;
             final int x = LABEL_AREA_WIDTH + i * BLOCK_SIZE + i * GRID_LINE_WIDTH - labelOffset;
 
-            graphics.drawString(labelText, x, (LABEL_AREA_WIDTH / 4) * 3);
-            graphics.drawString(labelText, x, image.getHeight() - (LABEL_AREA_WIDTH / 4) * 3);
+            canvas.drawString(labelText, x, (LABEL_AREA_WIDTH / 4) * 3, LABEL_FONT, DARK_GRID_LINE_COLOR);
+            canvas.drawString(labelText, x, height - (LABEL_AREA_WIDTH / 4) * 3, LABEL_FONT, DARK_GRID_LINE_COLOR);
         }
-        // vertical labels
-        for (int i = 0; i < imageModel.getHeight() + 1; i++) {
-            if (i % 5 != 0) {
+        // vertical labels, numbered like in the whole pattern
+        for (int i = 0; i < window.height + 1; i++) {
+            if ((window.y + i) % 5 != 0) {
                 continue;
             }
-            final String labelText = Integer.toString(i);
+            final String labelText = Integer.toString(window.y + i);
             final int y = LABEL_AREA_WIDTH + FONT_SIZE / 2 + i * BLOCK_SIZE + i * GRID_LINE_WIDTH;
             final int leftLabelHorizontalOffset = (labelText.length() - 2) * LABEL_FONT_WIDTH;
-            graphics.drawString(labelText, LABEL_AREA_WIDTH / 2 - leftLabelHorizontalOffset, y);
-            graphics.drawString(labelText, image.getWidth() - LABEL_AREA_WIDTH + 2, y);
+            canvas.drawString(labelText, LABEL_AREA_WIDTH / 2 - leftLabelHorizontalOffset, y, LABEL_FONT, DARK_GRID_LINE_COLOR);
+            canvas.drawString(labelText, width - LABEL_AREA_WIDTH + 2, y, LABEL_FONT, DARK_GRID_LINE_COLOR);
         }
     }
 
-    private void paintGrid(final Graphics2D graphics, final BufferedImage image, final ImageModel imageModel) {
-        // vertical lines
-        for (int i = 0; i < imageModel.getWidth() + 1; i++) {
-            graphics.setColor(pickGridLineColor(i));
+    private void paintGrid(final Canvas canvas,
+                           final Rectangle tile,
+                           final int width,
+                           final int height,
+                           final Rectangle window) {
+        // vertical lines, colored like in the whole pattern
+        for (int i = 0; i < window.width + 1; i++) {
             final int x = LABEL_AREA_WIDTH + i * BLOCK_SIZE + i * GRID_LINE_WIDTH;
-            // -1 because otherwise the rectangle would be a pixel wider
-            graphics.drawRect(x, LABEL_AREA_WIDTH, GRID_LINE_WIDTH - 1, image.getHeight() - LABEL_AREA_WIDTH * 2);
+            if (x + GRID_LINE_WIDTH < tile.x - 1 || x > tile.x + tile.width) {
+                continue; // does not touch the tile
+            }
+            // +1 as the line includes its end
+            canvas.fillRect(x, LABEL_AREA_WIDTH, GRID_LINE_WIDTH, height - LABEL_AREA_WIDTH * 2 + 1, pickGridLineColor(window.x + i));
         }
         // horizontal lines
-        for (int i = 0; i < imageModel.getHeight() + 1; i++) {
-            graphics.setColor(pickGridLineColor(i));
+        for (int i = 0; i < window.height + 1; i++) {
             final int y = LABEL_AREA_WIDTH + i * BLOCK_SIZE + i * GRID_LINE_WIDTH;
-            // -1 because otherwise the rectangle would be a pixel wider
-            graphics.drawRect(LABEL_AREA_WIDTH, y, image.getWidth() - LABEL_AREA_WIDTH * 2, GRID_LINE_WIDTH - 1);
+            if (y + GRID_LINE_WIDTH < tile.y - 1 || y > tile.y + tile.height) {
+                continue; // does not touch the tile
+            }
+            // +1 as the line includes its end
+            canvas.fillRect(LABEL_AREA_WIDTH, y, width - LABEL_AREA_WIDTH * 2 + 1, GRID_LINE_WIDTH, pickGridLineColor(window.y + i));
         }
     }
 
     private Color pickGridLineColor(final int lineIndex) {
+        return GRID_LINE_COLORS.get(getGridLineColorIndex(lineIndex));
+    }
+
+    /**
+     * @return the index of the color of the given grid line in {@link #GRID_LINE_COLORS}
+     */
+    private int getGridLineColorIndex(final int lineIndex) {
         if (lineIndex % 10 == 0) {
-            return DARK_GRID_LINE_COLOR;
+            return 2;
         }
         if (lineIndex % 5 == 0) {
-            return MID_GRID_LINE_COLOR;
+            return 1;
         }
-        return LIGHT_GRID_LINE_COLOR;
+        return 0;
     }
 
-    private int calculateWidth(final ImageModel imageModel) {
+    private int calculateWidth(final int columns) {
         // each block represents one original pixel with a grid line between 2 crosses and 2 outer grid lines
         // additionally labels are added on both sides
-        return imageModel.getWidth() * BLOCK_SIZE + (imageModel.getWidth() + 1) * GRID_LINE_WIDTH + LABEL_AREA_WIDTH * 2;
+        return columns * BLOCK_SIZE + (columns + 1) * GRID_LINE_WIDTH + LABEL_AREA_WIDTH * 2;
     }
 
-    private int calculateHeight(final ImageModel imageModel) {
+    private int calculateHeight(final int rows) {
         // each block represents one original pixel with a grid line between 2 crosses and 2 outer grid lines
         // additionally labels are added on both sides
-        return imageModel.getHeight() * BLOCK_SIZE + (imageModel.getHeight() + 1) * GRID_LINE_WIDTH + LABEL_AREA_WIDTH * 2;
+        return rows * BLOCK_SIZE + (rows + 1) * GRID_LINE_WIDTH + LABEL_AREA_WIDTH * 2;
+    }
+
+    /**
+     * Band of the pattern painting only the pixel rows of its tile. The rows next to the window of a page are only
+     * painted into its grid, where their crosses reach into the grid lines as in the whole pattern.
+     */
+    private final class PatternBand implements RowRenderer.Band {
+
+        private final Canvas canvas;
+        private final Canvas gridCanvas;
+        private final Rectangle tile;
+        private final int width;
+        private final int height;
+        private final ImageModel imageModel;
+        private final Rectangle window;
+        private final BufferedImage[][] sprites;
+
+        private PatternBand(final Canvas canvas,
+                            final Rectangle tile,
+                            final int width,
+                            final int height,
+                            final ImageModel imageModel,
+                            final Rectangle window,
+                            final BufferedImage[][] sprites) {
+            this.canvas = canvas;
+            gridCanvas = canvas.clip(0, LABEL_AREA_WIDTH, width, height - LABEL_AREA_WIDTH * 2);
+            this.tile = tile;
+            this.width = width;
+            this.height = height;
+            this.imageModel = imageModel;
+            this.window = window;
+            this.sprites = sprites;
+        }
+
+        @Override
+        public void begin() {
+            canvas.fillRect(tile.x, tile.y, tile.width, tile.height, BACKGROUND);
+            paintGrid(canvas, tile, width, height, window);
+            paintLabels(canvas, tile, width, height, window);
+        }
+
+        @Override
+        public void paintRow(final int y, final int[] paletteRow) {
+            final int row = y - window.y;
+            final Canvas rowCanvas = row < 0 || row >= window.height ? gridCanvas : canvas;
+            final int yPos = LABEL_AREA_WIDTH + row * BLOCK_SIZE + (row + 1) * GRID_LINE_WIDTH;
+            final int gridLineColorIndex = getGridLineColorIndex(y + 1);
+            for (int x = window.x; x < window.x + window.width; x++) {
+                final BufferedImage[] crossSprites = sprites[paletteRow[x]];
+                if (crossSprites == null) { // only draw full opaque pixels
+                    continue;
+                }
+                final int column = x - window.x;
+                final int xPos = LABEL_AREA_WIDTH + column * BLOCK_SIZE + (column + 1) * GRID_LINE_WIDTH;
+                final BufferedImage sprite = crossSprites[gridLineColorIndex];
+                if (sprite != null) {
+                    rowCanvas.drawImage(sprite, xPos, yPos);
+                } else {
+                    paintCross(rowCanvas, xPos, yPos, imageModel, imageModel.getPaletteColor(paletteRow[x]).getYarn());
+                }
+            }
+        }
+
+        @Override
+        public void end() {
+            gridCanvas.dispose();
+            canvas.dispose();
+        }
+
     }
 
 }
@@ -1,19 +1,14 @@
 package com.github.wargulwb.pixelcross;
 
-import java.awt.image.BufferedImage;
-import java.io.IOException;
+import java.io.PrintStream;
 import java.nio.file.Path;
 
-import javax.imageio.ImageIO;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.wargulwb.pixelcross.config.PixelCrossConfig;
-import com.github.wargulwb.pixelcross.error.ErrorCode;
-import com.github.wargulwb.pixelcross.error.RuntimeErrorCodeException;
-import com.github.wargulwb.pixelcross.model.ImageModel;
-import com.github.wargulwb.pixelcross.model.ImageModelLoader;
+import com.github.wargulwb.pixelcross.utils.JsonUtils;
+import com.github.wargulwb.pixelcross.utils.MemoryBudget;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 
@@ -21,18 +16,57 @@ public class PixelCrossMain {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PixelCrossMain.class);
 
+    /**
+     * Share of the maximal heap the images processed in parallel (batch and server) may take, the rest is left for
+     * everything else.
+     */
+    private static final double PARALLEL_MEMORY_FRACTION = 0.75D;
+
     public static void main(final String[] args) {
         final ArgumentHandler argumentHandler = new ArgumentHandler(args);
         argumentHandler.init();
+        final PrintStream standardOut = System.out;
+        if (argumentHandler.getMode() == ArgumentHandler.Mode.WORKER) {
+            // stdout is reserved for the job results, the log follows System.out
+            System.setOut(System.err);
+        }
+        LOGGER.debug("Was called with arguments: '{}'", String.join("', '", args));
         final Injector injector = initInjectionDependencies();
+        final ImageProcessor imageProcessor = injector.getInstance(ImageProcessor.class);
 
-        final Path originalPixelArtImage = argumentHandler.getInputImageArgument();
-        final ImageModel imageModel = injector.getInstance(ImageModelLoader.class).loadImageModel(originalPixelArtImage);
-
-        final BufferedImage resultImage = injector.getInstance(CrossStitchPainter.class).paint(imageModel);
-        writeImage(resultImage, originalPixelArtImage.getParent().resolve("@crosstitch.png"));
-        final BufferedImage patternResultImage = injector.getInstance(CombinedPainter.class).paint(imageModel);
-        writeImage(patternResultImage, originalPixelArtImage.getParent().resolve("@crosstitch_pattern.png"));
+        switch (argumentHandler.getMode()) {
+            case SINGLE:
+                final Path originalPixelArtImage = argumentHandler.getInputImageArgument();
+                imageProcessor.process(originalPixelArtImage,
+                                       originalPixelArtImage.getParent().resolve(ImageProcessor.CROSS_STITCH_SUFFIX),
+                                       originalPixelArtImage.getParent().resolve(ImageProcessor.PATTERN_SUFFIX));
+                break;
+            case BATCH:
+                new BatchProcessor(imageProcessor,
+                                   argumentHandler.getWorkerCount(),
+                                   argumentHandler.getBatchThreads(),
+                                   MemoryBudget.ofMaxHeap(PARALLEL_MEMORY_FRACTION),
+                                   injector.getInstance(PixelCrossConfig.class))
+                        .process(argumentHandler.getBatchImages());
+                break;
+            case SERVE:
+                new RenderServer(imageProcessor,
+                                 argumentHandler.getPort(),
+                                 argumentHandler.getWorkerCount(),
+                                 MemoryBudget.ofMaxHeap(PARALLEL_MEMORY_FRACTION))
+                        .start();
+                // the server threads keep the JVM running
+                return;
+            case WORKER:
+                new JobWorker(imageProcessor,
+                              injector.getInstance(JsonUtils.class),
+                              argumentHandler.getWorkerCount(),
+                              MemoryBudget.ofMaxHeap(PARALLEL_MEMORY_FRACTION))
+                        .run(System.in, standardOut);
+                break;
+            default:
+                throw new IllegalStateException("Unsupported mode '" + argumentHandler.getMode() + "'!");
+        }
         LOGGER.debug("'pixelcross' terminating normally.");
     }
 
@@ -42,12 +76,4 @@ public class PixelCrossMain {
         return injector;
     }
 
-    private static void writeImage(final BufferedImage resultImage, final Path resultImagePath) {
-        try {
-            ImageIO.write(resultImage, "PNG", resultImagePath.toFile());
-        } catch (final IOException exc) {
-            throw new RuntimeErrorCodeException(ErrorCode.FAILED_TO_WRITE_IMAGE, "Failed to write image to '" + resultImagePath + "'!");
-        }
-    }
-
 }
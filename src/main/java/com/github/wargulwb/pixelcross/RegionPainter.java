@@ -0,0 +1,36 @@
+package com.github.wargulwb.pixelcross;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+
+import com.github.wargulwb.pixelcross.canvas.Canvas;
+import com.github.wargulwb.pixelcross.model.ImageModel;
+
+/**
+ * Painter whose size is known before painting, so it may paint into a region of a bigger image laid out up front.
+ */
+public interface RegionPainter extends Painter {
+
+    public Dimension getSize(final ImageModel imageModel);
+
+    /**
+     * Paints into the region [0, width) x [0, height) (see {@link #getSize(ImageModel)}) of the given canvas, which is
+     * expected to be clipped to that region.
+     */
+    public void paint(final Canvas canvas, final ImageModel imageModel);
+
+    public Canvas createCanvas(final int width, final int height);
+
+    @Override
+    public default BufferedImage paint(final ImageModel imageModel) {
+        final Dimension size = getSize(imageModel);
+        final Canvas canvas = createCanvas(size.width, size.height);
+        try {
+            paint(canvas, imageModel);
+        } finally {
+            canvas.dispose();
+        }
+        return canvas.getImage();
+    }
+
+}
@@ -0,0 +1,370 @@
+package com.github.wargulwb.pixelcross;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.wargulwb.pixelcross.ImageProcessor.Outputs;
+import com.github.wargulwb.pixelcross.ImageProcessor.PageSink;
+import com.github.wargulwb.pixelcross.error.ErrorCode;
+import com.github.wargulwb.pixelcross.error.RuntimeErrorCodeException;
+import com.github.wargulwb.pixelcross.utils.MemoryBudget;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local HTTP server converting uploaded images, so the injector, the yarn catalog and the JIT compiled code stay warm
+ * between images. Listens on the loopback address only.
+ * <ul>
+ * <li>'POST /render' with the image file as body responds a zip of '@crosstitch.png' and
+ * '@crosstitch_pattern.png' (and '@crosstitch_pattern_page&lt;number&gt;.png' if the pattern is paginated), with the
+ * query 'output=crosstitch' or 'output=pattern' only that PNG. A paginated pattern is only available in the zip, so
+ * 'output=pattern' is answered with '400 Bad Request' then. The pages are streamed into the zip while they are
+ * converted. If the conversion fails after the first page, the connection is closed before the end of the chunked
+ * response, so the client sees a transport error instead of a cut off zip.</li>
+ * <li>'GET /health' responds 'OK'</li>
+ * </ul>
+ * At most 'workerCount' uploads are converted at the same time and at most {@link #QUEUED_PER_WORKER} times as many
+ * wait for it, any further upload is answered with '503 Service Unavailable' right away. An upload is only read once its
+ * bytes fit into the {@link MemoryBudget}, they count against it until the upload is converted. Like in a batch, an
+ * upload also has to wait until its estimated memory demand fits into the budget.
+ */
+class RenderServer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RenderServer.class);
+
+    private static final String RENDER_PATH = "/render";
+    private static final String HEALTH_PATH = "/health";
+    private static final String OUTPUT_PARAMETER = "output";
+    private static final String CROSS_STITCH_OUTPUT = "crosstitch";
+    private static final String PATTERN_OUTPUT = "pattern";
+    private static final String UPLOAD_NAME = "upload";
+    private static final int QUEUED_PER_WORKER = 4;
+    private static final int MAX_UPLOAD_BYTES = 64 << 20;
+    private static final int STOP_DELAY_SECONDS = 5;
+
+    private final ImageProcessor imageProcessor;
+    private final int port;
+    private final int workerCount;
+    private final MemoryBudget memoryBudget;
+    private final int admissionCount;
+    private final Semaphore admissionPermits;
+    private final Semaphore conversionPermits;
+
+    RenderServer(final ImageProcessor imageProcessor, final int port, final int workerCount, final MemoryBudget memoryBudget) {
+        this.imageProcessor = Objects.requireNonNull(imageProcessor, getClass().getSimpleName() + ".imageProcessor cannot be null!");
+        this.memoryBudget = Objects.requireNonNull(memoryBudget, getClass().getSimpleName() + ".memoryBudget cannot be null!");
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Given 'workerCount'=" + workerCount + " must be greater than 0!");
+        }
+        this.port = port;
+        this.workerCount = workerCount;
+        admissionCount = workerCount * (1 + QUEUED_PER_WORKER);
+        admissionPermits = new Semaphore(admissionCount);
+        conversionPermits = new Semaphore(workerCount);
+    }
+
+    /**
+     * Starts the server, which runs until the JVM is shut down.
+     */
+    void start() {
+        final HttpServer server;
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (final IOException exc) {
+            throw new RuntimeErrorCodeException(ErrorCode.SERVER_FAILED, "Failed to listen on port " + port + "!", exc);
+        }
+        // one thread more than admitted uploads, so rejecting an upload never waits for a conversion
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(
+                admissionCount + 1,
+                runnable -> new Thread(runnable, "pixelcross-http-" + threadCount.incrementAndGet()));
+        server.setExecutor(executor);
+        server.createContext(RENDER_PATH, this::handleRender);
+        server.createContext(HEALTH_PATH, exchange -> handle(exchange, () -> sendText(exchange, HttpURLConnection.HTTP_OK, "OK")));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(STOP_DELAY_SECONDS);
+            executor.shutdown();
+        }, "pixelcross-http-shutdown"));
+        server.start();
+        LOGGER.info("Listening on http://{}:{}{} with {} workers and a memory budget of {} MiB.",
+                    server.getAddress().getHostString(),
+                    server.getAddress().getPort(),
+                    RENDER_PATH,
+                    workerCount,
+                    memoryBudget.getCapacity() >> 20);
+    }
+
+    private void handleRender(final HttpExchange exchange) throws IOException {
+        handle(exchange, () -> {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendText(exchange, HttpURLConnection.HTTP_BAD_METHOD, "Only POST is supported!");
+            } else if (!admissionPermits.tryAcquire()) {
+                sendText(exchange, HttpURLConnection.HTTP_UNAVAILABLE, "Too many uploads, try again later!");
+            } else {
+                try {
+                    render(exchange);
+                } finally {
+                    admissionPermits.release();
+                }
+            }
+        });
+    }
+
+    private void render(final HttpExchange exchange) throws IOException {
+        final String output;
+        try {
+            output = getOutput(exchange);
+        } catch (final IllegalArgumentException exc) {
+            sendText(exchange, HttpURLConnection.HTTP_BAD_REQUEST, exc.getMessage());
+            return;
+        }
+        if (output != null && !CROSS_STITCH_OUTPUT.equals(output) && !PATTERN_OUTPUT.equals(output)) {
+            sendText(exchange, HttpURLConnection.HTTP_BAD_REQUEST, "Unknown output '" + output + "'!");
+            return;
+        }
+        if (PATTERN_OUTPUT.equals(output) && imageProcessor.isPaginated()) {
+            sendText(exchange, HttpURLConnection.HTTP_BAD_REQUEST, "Output '" + output + "' is not supported for paginated patterns, request the zip instead!");
+            return;
+        }
+        final long contentLength = getContentLength(exchange);
+        if (contentLength > MAX_UPLOAD_BYTES) {
+            sendText(exchange, HttpURLConnection.HTTP_ENTITY_TOO_LARGE, "Upload exceeds " + (MAX_UPLOAD_BYTES >> 20) + " MiB!");
+            return;
+        }
+        // an upload of unknown length (chunked) may take up to the limit
+        final long uploadBytes = contentLength < 0L ? MAX_UPLOAD_BYTES + 1L : contentLength;
+        final byte[] upload;
+        final long start;
+        final Outputs outputs;
+        final ZipResponse zip = output == null ? new ZipResponse(exchange) : null;
+        try {
+            memoryBudget.reserve(uploadBytes);
+            try {
+                upload = readUpload(exchange.getRequestBody());
+                if (upload.length > MAX_UPLOAD_BYTES) {
+                    sendText(exchange, HttpURLConnection.HTTP_ENTITY_TOO_LARGE, "Upload exceeds " + (MAX_UPLOAD_BYTES >> 20) + " MiB!");
+                    return;
+                }
+                start = System.nanoTime();
+                outputs = convert(upload, output, zip);
+            } finally {
+                memoryBudget.unreserve(uploadBytes);
+            }
+        } catch (final InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            sendError(exchange, zip, HttpURLConnection.HTTP_UNAVAILABLE, "Server is shutting down!");
+            return;
+        } catch (final RuntimeErrorCodeException exc) {
+            LOGGER.debug("Failed to convert upload.", exc);
+            sendError(exchange, zip, HttpURLConnection.HTTP_BAD_REQUEST, exc.getMessage());
+            return;
+        } catch (final RuntimeException | OutOfMemoryError exc) {
+            LOGGER.error("Failed to convert upload.", exc);
+            sendError(exchange, zip, HttpURLConnection.HTTP_INTERNAL_ERROR, "Failed to convert upload!");
+            return;
+        }
+        LOGGER.debug("Converted upload of {} bytes in {} ms.", upload.length, (System.nanoTime() - start) / 1_000_000L);
+        if (CROSS_STITCH_OUTPUT.equals(output)) {
+            sendPng(exchange, outputs.crossStitchImage());
+        } else if (PATTERN_OUTPUT.equals(output)) {
+            sendPng(exchange, outputs.patternImage());
+        } else {
+            zip.addEntry(ImageProcessor.CROSS_STITCH_SUFFIX, outputs.crossStitchImage());
+            zip.addEntry(ImageProcessor.PATTERN_SUFFIX, outputs.patternImage());
+            zip.finish();
+        }
+    }
+
+    /**
+     * Converts the upload, only painting the requested output. The pages of a paginated pattern are added to the given
+     * zip while the memory and the conversion permit of the upload are held.
+     *
+     * @param output
+     *            requested output, null for the zip
+     * @param zip
+     *            the response if the zip is requested, otherwise null
+     */
+    private Outputs convert(final byte[] upload, final String output, final ZipResponse zip) throws InterruptedException {
+        final PageSink pages =
+                zip == null ? null : (pageNumber, page) -> zip.addEntry(ImageProcessor.getPatternPageName(pageNumber), page);
+        final long memory = imageProcessor.estimateMemory(UPLOAD_NAME, upload);
+        memoryBudget.acquire(memory);
+        try {
+            conversionPermits.acquire();
+            try {
+                return imageProcessor.convert(UPLOAD_NAME, upload, !PATTERN_OUTPUT.equals(output), !CROSS_STITCH_OUTPUT.equals(output), pages);
+            } finally {
+                conversionPermits.release();
+            }
+        } finally {
+            memoryBudget.release(memory);
+        }
+    }
+
+    /**
+     * @return the length of the upload, -1 if unknown
+     */
+    private static long getContentLength(final HttpExchange exchange) {
+        final String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (contentLength == null) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(contentLength.trim());
+        } catch (final NumberFormatException exc) {
+            return -1L;
+        }
+    }
+
+    /**
+     * @return the decoded value of the query parameter {@link #OUTPUT_PARAMETER}, null if it is missing
+     * @throws IllegalArgumentException
+     *             if the query cannot be decoded or names the parameter more than once
+     */
+    private static String getOutput(final HttpExchange exchange) {
+        final String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        String output = null;
+        for (final String parameter : query.split("&")) {
+            final int separator = parameter.indexOf('=');
+            final String name = URLDecoder.decode(separator < 0 ? parameter : parameter.substring(0, separator), StandardCharsets.UTF_8);
+            if (OUTPUT_PARAMETER.equals(name)) {
+                if (output != null) {
+                    throw new IllegalArgumentException("Parameter '" + OUTPUT_PARAMETER + "' is given more than once!");
+                }
+                output = separator < 0 ? "" : URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return output;
+    }
+
+    /**
+     * @return the upload, longer than {@link #MAX_UPLOAD_BYTES} if it exceeds the limit
+     */
+    private static byte[] readUpload(final InputStream body) throws IOException {
+        try (body) {
+            return body.readNBytes(MAX_UPLOAD_BYTES + 1);
+        }
+    }
+
+    /**
+     * Answers with the given error, unless the zip was already started, then the response is aborted.
+     */
+    private static void sendError(final HttpExchange exchange, final ZipResponse zip, final int status, final String text) throws IOException {
+        if (zip != null && zip.isStarted()) {
+            throw new AbortedResponseException("Aborted zip after an error: " + text);
+        }
+        sendText(exchange, status, text);
+    }
+
+    private static void sendText(final HttpExchange exchange, final int status, final String text) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        sendBytes(exchange, status, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void sendPng(final HttpExchange exchange, final byte[] bytes) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "image/png");
+        sendBytes(exchange, HttpURLConnection.HTTP_OK, bytes);
+    }
+
+    private static void sendBytes(final HttpExchange exchange, final int status, final byte[] bytes) throws IOException {
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+
+    /**
+     * Runs the handler and closes the exchange, unless the response was aborted. Then the exception is passed on to the
+     * server, which closes the connection without ending the response.
+     */
+    private static void handle(final HttpExchange exchange, final Handler handler) throws IOException {
+        boolean aborted = false;
+        try {
+            handler.handle();
+        } catch (final AbortedResponseException exc) {
+            LOGGER.debug("Aborted response to '" + exchange.getRemoteAddress() + "'.", exc);
+            aborted = true;
+            throw exc;
+        } catch (final IOException exc) {
+            LOGGER.debug("Failed to answer request of '" + exchange.getRemoteAddress() + "'.", exc);
+        } finally {
+            if (!aborted) {
+                exchange.close();
+            }
+        }
+    }
+
+    /**
+     * Thrown by a handler to abort a response which was already started. Closing the exchange would end the chunked
+     * response properly, so a cut off body would look complete to the client.
+     */
+    private static final class AbortedResponseException extends IOException {
+
+        private static final long serialVersionUID = 202610181200L;
+
+        private AbortedResponseException(final String message) {
+            super(message);
+        }
+
+    }
+
+    /**
+     * Zip response whose headers are sent with its first entry, so the entries may be added while converting.
+     */
+    private static final class ZipResponse {
+
+        private final HttpExchange exchange;
+        private ZipOutputStream zip;
+
+        private ZipResponse(final HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+
+        private boolean isStarted() {
+            return zip != null;
+        }
+
+        private void addEntry(final String name, final byte[] bytes) throws IOException {
+            if (zip == null) {
+                exchange.getResponseHeaders().set("Content-Type", "application/zip");
+                exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"crosstitch.zip\"");
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, 0); // chunked
+                zip = new ZipOutputStream(exchange.getResponseBody());
+            }
+            zip.putNextEntry(new ZipEntry(name));
+            zip.write(bytes);
+        }
+
+        private void finish() throws IOException {
+            zip.close();
+        }
+
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+
+        void handle() throws IOException;
+
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.github.wargulwb.pixelcross;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * One output image of a model which is painted row by row of crosses, so the {@link FusedRenderer} may feed several
+ * outputs from a single traversal of the model.
+ */
+public interface RowRenderer {
+
+    /**
+     * Creates the band painting the pixel rows of the rows of crosses [fromY, toY). Called for all bands before any of
+     * them is painted, the bands are then painted concurrently.
+     */
+    public Band createBand(final int fromY, final int toY);
+
+    /**
+     * Called once all bands were painted.
+     *
+     * @return the painted image
+     */
+    public BufferedImage finish();
+
+    /**
+     * Paints only its own pixel rows, but gets the rows of crosses next to it as well, as crosses may reach a bit into
+     * the neighboring rows.
+     */
+    public interface Band {
+
+        /**
+         * Paints everything but the crosses, e.g. the background and the grid.
+         */
+        public void begin();
+
+        /**
+         * Paints the crosses of row 'y', called in ascending order of the rows.
+         *
+         * @param paletteRow
+         *            the palette indices of the row, only valid during this call
+         */
+        public void paintRow(final int y, final int[] paletteRow);
+
+        /**
+         * Releases the resources of the band, also called if painting failed.
+         */
+        public void end();
+
+    }
+
+}
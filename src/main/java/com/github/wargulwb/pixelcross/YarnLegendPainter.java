@@ -1,13 +1,11 @@
 package com.github.wargulwb.pixelcross;
 
-import java.awt.Font;
-import java.awt.Graphics2D;
-import java.awt.RenderingHints;
-import java.awt.image.BufferedImage;
+import java.awt.Dimension;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.github.wargulwb.pixelcross.canvas.Canvas;
 import com.github.wargulwb.pixelcross.config.PixelCrossConfig;
 import com.github.wargulwb.pixelcross.model.ImageModel;
 import com.github.wargulwb.pixelcross.model.yarn.Yarn;
@@ -15,7 +13,7 @@ import com.github.wargulwb.pixelcross.utils.ColorUtils;
 
 import jakarta.inject.Inject;
 
-public class YarnLegendPainter extends AbstractPainter {
+public class YarnLegendPainter extends AbstractPainter implements RegionPainter {
 
     private static final int LEGEND_LEFT_PAD_CROSS_COUNT = 6;
     private static final int LEGEND_LEFT_PAD_ID = 5;
@@ -26,13 +24,13 @@ public class YarnLegendPainter extends AbstractPainter {
     }
 
     @Override
-    public BufferedImage paint(final ImageModel imageModel) {
-        final int width = calculateLegendWidth(imageModel);
-        final int height = calculateLegendHeight(imageModel);
+    public Dimension getSize(final ImageModel imageModel) {
+        return new Dimension(calculateLegendWidth(imageModel), calculateLegendHeight(imageModel));
+    }
 
-        final BufferedImage paintedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        paintLegend((Graphics2D) paintedImage.getGraphics(), paintedImage, imageModel);
-        return paintedImage;
+    @Override
+    public void paint(final Canvas canvas, final ImageModel imageModel) {
+        paintLegend(canvas, calculateLegendWidth(imageModel), calculateLegendHeight(imageModel), imageModel);
     }
 
     private int calculateLegendHeight(final ImageModel imageModel) {
@@ -40,11 +38,8 @@ public class YarnLegendPainter extends AbstractPainter {
         return colorCount * BLOCK_SIZE + (colorCount - 1) * LEGEND_PADDING;
     }
 
-    private void paintLegend(final Graphics2D graphics, final BufferedImage image, final ImageModel imageModel) {
-        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        graphics.setColor(BACKGROUND);
-        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
-        graphics.setColor(TEXT_COLOR);
+    private void paintLegend(final Canvas canvas, final int width, final int height, final ImageModel imageModel) {
+        canvas.fillRect(0, 0, width, height, BACKGROUND);
 
         final List<Yarn> yarns = imageModel.getYarns()
                 .stream()
@@ -52,19 +47,19 @@ public class YarnLegendPainter extends AbstractPainter {
                 .toList();
         int yPos = 0;
         for (final Yarn yarn : yarns) {
-            paintLegendEntry(graphics, yPos, imageModel, yarn);
+            paintLegendEntry(canvas, yPos, imageModel, yarn);
             yPos += BLOCK_SIZE + LEGEND_PADDING;
         }
     }
 
-    private void paintLegendEntry(final Graphics2D graphics, final int yPos, final ImageModel imageModel, final Yarn yarn) {
+    private void paintLegendEntry(final Canvas canvas, final int yPos, final ImageModel imageModel, final Yarn yarn) {
         final int xOffset = 10;
-        paintCross(graphics, xOffset, yPos, imageModel, yarn);
-        graphics.setColor(TEXT_COLOR);
-        graphics.setFont(new Font(Font.MONOSPACED, Font.PLAIN, FONT_SIZE));
-        graphics.drawString(getLegendEntry(imageModel, yarn),
+        paintCross(canvas, xOffset, yPos, imageModel, yarn);
+        canvas.drawString(getLegendEntry(imageModel, yarn),
                 xOffset + BLOCK_SIZE + LEGEND_PADDING,
-                yPos + FONT_SIZE);
+                yPos + FONT_SIZE,
+                TEXT_FONT,
+                TEXT_COLOR);
     }
 
     private String getLegendEntry(final ImageModel imageModel, final Yarn yarn) {
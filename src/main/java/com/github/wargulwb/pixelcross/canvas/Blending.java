@@ -0,0 +1,32 @@
+package com.github.wargulwb.pixelcross.canvas;
+
+/**
+ * Blending of an opaque color over an opaque pixel by a coverage (or alpha), rounded exactly like the anti-aliased
+ * src over loops of Java2D.
+ */
+final class Blending {
+
+    static final int OPAQUE = 0xff;
+
+    private Blending() {
+    }
+
+    static int blend(final int argb, final int pixel, final int coverage) {
+        if (coverage == OPAQUE) {
+            return argb | OPAQUE << 24;
+        }
+        final int inverse = OPAQUE - coverage;
+        return OPAQUE << 24
+               | mul8(coverage, argb >> 16 & OPAQUE) + mul8(inverse, pixel >> 16 & OPAQUE) << 16
+               | mul8(coverage, argb >> 8 & OPAQUE) + mul8(inverse, pixel >> 8 & OPAQUE) << 8
+               | mul8(coverage, argb & OPAQUE) + mul8(inverse, pixel & OPAQUE);
+    }
+
+    /**
+     * a * b / 255 rounded like the multiplication table of Java2D
+     */
+    private static int mul8(final int a, final int b) {
+        return (int) ((b * (a * 0x10101L) + (1L << 23)) >> 24);
+    }
+
+}
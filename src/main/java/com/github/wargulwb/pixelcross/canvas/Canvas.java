@@ -0,0 +1,53 @@
+package com.github.wargulwb.pixelcross.canvas;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+
+/**
+ * Surface the painters paint on, created by a {@link RenderBackend}. Everything is painted with anti-aliasing and opaque
+ * colors onto an opaque image, painting outside of the canvas has no effect.
+ * <p>
+ * A canvas is not thread safe, but the canvases created by {@link #create(int, int, int, int)} and
+ * {@link #clip(int, int, int, int)} may be painted on in parallel as long as their areas do not overlap.
+ */
+public interface Canvas {
+
+    public void fillRect(final int x, final int y, final int width, final int height, final Color color);
+
+    /**
+     * Paints the image with its top left corner at (x, y), blending it by its alpha.
+     */
+    public void drawImage(final BufferedImage image, final int x, final int y);
+
+    /**
+     * Paints the text with its baseline starting at (x, y).
+     */
+    public void drawString(final String text, final int x, final int y, final Font font, final Color color);
+
+    /**
+     * Paints the stamp with the origin of its shape at (x, y).
+     */
+    public void stamp(final CoverageStamp.Prepared stamp, final int x, final int y);
+
+    /**
+     * @return a canvas on the given area of this canvas, with its origin at (x, y)
+     */
+    public Canvas create(final int x, final int y, final int width, final int height);
+
+    /**
+     * @return a canvas only painting into the given area of this canvas, with the same origin as this canvas
+     */
+    public Canvas clip(final int x, final int y, final int width, final int height);
+
+    /**
+     * @return the whole image this canvas (or the canvas it was created from) paints on
+     */
+    public BufferedImage getImage();
+
+    /**
+     * Releases the resources of the canvas, it must not be used afterwards.
+     */
+    public void dispose();
+
+}
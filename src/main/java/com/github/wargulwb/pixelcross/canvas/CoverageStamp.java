@@ -0,0 +1,158 @@
+package com.github.wargulwb.pixelcross.canvas;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A shape painted with anti-aliasing, prepared to be stamped onto a {@link Canvas} many times. The shape consists of
+ * parts (e.g. lines) painted one after the other. The {@link RenderBackend#RASTER} backend takes the coverage of each
+ * part from {@link Graphics2D} once and then blends the color the way {@link Graphics2D} does, so stamping gives the
+ * same pixels as painting the parts.
+ */
+public final class CoverageStamp {
+
+    private final List<Consumer<Graphics2D>> parts;
+    private final int margin;
+    private final int size;
+    /**
+     * Coverage of the parts in paint order for each pixel of the stamp, without the parts before the last fully
+     * covering one (these are painted over anyway), null if no part touches the pixel.
+     */
+    private final int[][] coverages;
+    /**
+     * Whether a part fully covers the pixel, in that case the pixel does not depend on what was painted before.
+     */
+    private final boolean[] covered;
+
+    private CoverageStamp(final List<Consumer<Graphics2D>> parts,
+                          final int margin,
+                          final int size,
+                          final int[][] coverages,
+                          final boolean[] covered) {
+        this.parts = parts;
+        this.margin = margin;
+        this.size = size;
+        this.coverages = coverages;
+        this.covered = covered;
+    }
+
+    /**
+     * @param shapeSize
+     *            size of the shape, painted at (0, 0)
+     * @param margin
+     *            pixels around the shape, which anti-aliasing may reach
+     * @param parts
+     *            the parts of the shape in paint order, each painting with the current color of the graphics
+     */
+    public static CoverageStamp of(final int shapeSize, final int margin, final List<Consumer<Graphics2D>> parts) {
+        final int size = shapeSize + margin * 2;
+        final int[][] coverages = new int[size * size][];
+        final boolean[] covered = new boolean[size * size];
+        for (final Consumer<Graphics2D> part : parts) {
+            // painting on a transparent image leaves the coverage in the alpha channel
+            final BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+            final Graphics2D graphics = (Graphics2D) image.getGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setColor(Color.BLACK);
+            graphics.translate(margin, margin);
+            part.accept(graphics);
+            graphics.dispose();
+            for (int i = 0; i < coverages.length; i++) {
+                final int coverage = image.getRGB(i % size, i / size) >>> 24;
+                if (coverage == Blending.OPAQUE) {
+                    coverages[i] = new int[0];
+                    covered[i] = true;
+                } else if (coverage != 0) {
+                    coverages[i] = append(coverages[i], coverage);
+                }
+            }
+        }
+        return new CoverageStamp(List.copyOf(parts), margin, size, coverages, covered);
+    }
+
+    private static int[] append(final int[] values, final int value) {
+        if (values == null) {
+            return new int[] {value};
+        }
+        final int[] result = new int[values.length + 1];
+        System.arraycopy(values, 0, result, 0, values.length);
+        result[values.length] = value;
+        return result;
+    }
+
+    public Prepared prepare(final Color color) {
+        final int argb = color.getRGB() | Blending.OPAQUE << 24;
+        final int[] coveredPixels = new int[coverages.length];
+        for (int i = 0; i < coverages.length; i++) {
+            if (covered[i]) {
+                coveredPixels[i] = blend(argb, argb, coverages[i]);
+            }
+        }
+        return new Prepared(this, color, coveredPixels);
+    }
+
+    List<Consumer<Graphics2D>> getParts() {
+        return parts;
+    }
+
+    int getMargin() {
+        return margin;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    boolean isCovered(final int index) {
+        return covered[index];
+    }
+
+    /**
+     * @return the pixel after stamping the given color over it
+     */
+    int blend(final int argb, final int pixel, final int index) {
+        return coverages[index] == null ? pixel : blend(argb, pixel, coverages[index]);
+    }
+
+    private static int blend(final int argb, final int pixel, final int[] coverages) {
+        int result = pixel;
+        for (final int coverage : coverages) {
+            result = Blending.blend(argb, result, coverage);
+        }
+        return result;
+    }
+
+    /**
+     * The stamp in a color, with the pixels which do not depend on what was painted before already blended.
+     */
+    public static final class Prepared {
+
+        private final CoverageStamp stamp;
+        private final Color color;
+        private final int[] coveredPixels;
+
+        private Prepared(final CoverageStamp stamp, final Color color, final int[] coveredPixels) {
+            this.stamp = stamp;
+            this.color = color;
+            this.coveredPixels = coveredPixels;
+        }
+
+        CoverageStamp getStamp() {
+            return stamp;
+        }
+
+        Color getColor() {
+            return color;
+        }
+
+        int getCoveredPixel(final int index) {
+            return coveredPixels[index];
+        }
+
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.github.wargulwb.pixelcross.canvas;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.font.GlyphVector;
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coverage masks and advances of the glyphs painted by the {@link RasterCanvas}, taken from {@link Graphics2D} once per
+ * font and character and kept for the lifetime of the JVM (the painters only use a handful of fonts and characters).
+ */
+final class GlyphAtlas {
+
+    private static final int MARGIN = 2;
+    private static final Map<GlyphKey, Glyph> GLYPHS = new ConcurrentHashMap<>();
+
+    private GlyphAtlas() {
+    }
+
+    static Glyph getGlyph(final Font font, final int codePoint) {
+        return GLYPHS.computeIfAbsent(new GlyphKey(font, codePoint), GlyphAtlas::renderGlyph);
+    }
+
+    private static Glyph renderGlyph(final GlyphKey key) {
+        final String text = new String(Character.toChars(key.codePoint()));
+        final Graphics2D measureGraphics = createGraphics(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB), key.font());
+        final GlyphVector glyphVector = key.font().createGlyphVector(measureGraphics.getFontRenderContext(), text);
+        final Rectangle bounds = glyphVector.getPixelBounds(measureGraphics.getFontRenderContext(), 0, 0);
+        final int advance = (int) Math.round(glyphVector.getGlyphPosition(glyphVector.getNumGlyphs()).getX());
+        measureGraphics.dispose();
+
+        // painting on a transparent image leaves the coverage in the alpha channel
+        final int width = bounds.width + MARGIN * 2;
+        final int height = bounds.height + MARGIN * 2;
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = createGraphics(image, key.font());
+        graphics.drawString(text, MARGIN - bounds.x, MARGIN - bounds.y);
+        graphics.dispose();
+        final int[] coverages = new int[width * height];
+        for (int i = 0; i < coverages.length; i++) {
+            coverages[i] = image.getRGB(i % width, i / width) >>> 24;
+        }
+        return new Glyph(bounds.x - MARGIN, bounds.y - MARGIN, width, height, coverages, advance);
+    }
+
+    private static Graphics2D createGraphics(final BufferedImage image, final Font font) {
+        final Graphics2D graphics = (Graphics2D) image.getGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setColor(Color.BLACK);
+        graphics.setFont(font);
+        return graphics;
+    }
+
+    private record GlyphKey(Font font, int codePoint) {
+    }
+
+    /**
+     * @param x
+     *            left of the mask relative to the pen position
+     * @param y
+     *            top of the mask relative to the baseline
+     * @param coverages
+     *            coverage of each pixel of the mask, row by row
+     */
+    record Glyph(int x, int y, int width, int height, int[] coverages, int advance) {
+    }
+
+}
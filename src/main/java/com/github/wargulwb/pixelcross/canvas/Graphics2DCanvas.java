@@ -0,0 +1,78 @@
+package com.github.wargulwb.pixelcross.canvas;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.function.Consumer;
+
+/**
+ * Canvas painting through {@link Graphics2D}.
+ */
+final class Graphics2DCanvas implements Canvas {
+
+    private final BufferedImage image;
+    private final Graphics2D graphics;
+
+    Graphics2DCanvas(final BufferedImage image) {
+        this(image, (Graphics2D) image.getGraphics());
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    }
+
+    private Graphics2DCanvas(final BufferedImage image, final Graphics2D graphics) {
+        this.image = image;
+        this.graphics = graphics;
+    }
+
+    @Override
+    public void fillRect(final int x, final int y, final int width, final int height, final Color color) {
+        graphics.setColor(color);
+        graphics.fillRect(x, y, width, height);
+    }
+
+    @Override
+    public void drawImage(final BufferedImage source, final int x, final int y) {
+        graphics.drawImage(source, x, y, null);
+    }
+
+    @Override
+    public void drawString(final String text, final int x, final int y, final Font font, final Color color) {
+        graphics.setColor(color);
+        graphics.setFont(font);
+        graphics.drawString(text, x, y);
+    }
+
+    @Override
+    public void stamp(final CoverageStamp.Prepared prepared, final int x, final int y) {
+        graphics.setColor(prepared.getColor());
+        graphics.translate(x, y);
+        for (final Consumer<Graphics2D> part : prepared.getStamp().getParts()) {
+            part.accept(graphics);
+        }
+        graphics.translate(-x, -y);
+    }
+
+    @Override
+    public Canvas create(final int x, final int y, final int width, final int height) {
+        return new Graphics2DCanvas(image, (Graphics2D) graphics.create(x, y, width, height));
+    }
+
+    @Override
+    public Canvas clip(final int x, final int y, final int width, final int height) {
+        final Graphics2D clipped = (Graphics2D) graphics.create();
+        clipped.clipRect(x, y, width, height);
+        return new Graphics2DCanvas(image, clipped);
+    }
+
+    @Override
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    @Override
+    public void dispose() {
+        graphics.dispose();
+    }
+
+}
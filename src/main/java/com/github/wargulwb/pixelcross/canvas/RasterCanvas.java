@@ -0,0 +1,144 @@
+package com.github.wargulwb.pixelcross.canvas;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * Canvas writing straight into the int array of a {@link BufferedImage#TYPE_INT_ARGB} image, without any locking or
+ * state validation of Java2D.
+ */
+final class RasterCanvas implements Canvas {
+
+    private final BufferedImage image;
+    private final int[] pixels;
+    private final int stride;
+    private final int originX;
+    private final int originY;
+    /**
+     * area painted into, in image coordinates
+     */
+    private final Rectangle clip;
+
+    RasterCanvas(final BufferedImage image) {
+        this(image, 0, 0, new Rectangle(0, 0, image.getWidth(), image.getHeight()));
+    }
+
+    private RasterCanvas(final BufferedImage image, final int originX, final int originY, final Rectangle clip) {
+        if (image.getType() != BufferedImage.TYPE_INT_ARGB) {
+            throw new IllegalArgumentException("Given image of type " + image.getType() + " is no TYPE_INT_ARGB image!");
+        }
+        this.image = image;
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        stride = image.getWidth();
+        this.originX = originX;
+        this.originY = originY;
+        this.clip = clip;
+    }
+
+    @Override
+    public void fillRect(final int x, final int y, final int width, final int height, final Color color) {
+        final Rectangle area = clip.intersection(new Rectangle(originX + x, originY + y, width, height));
+        if (area.isEmpty()) {
+            return;
+        }
+        final int argb = color.getRGB() | Blending.OPAQUE << 24;
+        for (int row = area.y; row < area.y + area.height; row++) {
+            Arrays.fill(pixels, row * stride + area.x, row * stride + area.x + area.width, argb);
+        }
+    }
+
+    @Override
+    public void drawImage(final BufferedImage source, final int x, final int y) {
+        final int left = originX + x;
+        final int top = originY + y;
+        final Rectangle area = clip.intersection(new Rectangle(left, top, source.getWidth(), source.getHeight()));
+        if (area.isEmpty()) {
+            return;
+        }
+        final int[] sourcePixels = getPixels(source);
+        for (int row = area.y; row < area.y + area.height; row++) {
+            final int sourceRow = (row - top) * source.getWidth();
+            for (int column = area.x; column < area.x + area.width; column++) {
+                final int argb = sourcePixels[sourceRow + column - left];
+                final int alpha = argb >>> 24;
+                if (alpha != 0) {
+                    pixels[row * stride + column] = Blending.blend(argb, pixels[row * stride + column], alpha);
+                }
+            }
+        }
+    }
+
+    private static int[] getPixels(final BufferedImage source) {
+        if (source.getType() == BufferedImage.TYPE_INT_ARGB && source.getRaster().getDataBuffer() instanceof DataBufferInt) {
+            return ((DataBufferInt) source.getRaster().getDataBuffer()).getData();
+        }
+        return source.getRGB(0, 0, source.getWidth(), source.getHeight(), null, 0, source.getWidth());
+    }
+
+    @Override
+    public void drawString(final String text, final int x, final int y, final Font font, final Color color) {
+        final int argb = color.getRGB();
+        int pen = originX + x;
+        final int baseline = originY + y;
+        for (int i = 0; i < text.length(); i += Character.charCount(text.codePointAt(i))) {
+            final GlyphAtlas.Glyph glyph = GlyphAtlas.getGlyph(font, text.codePointAt(i));
+            paintGlyph(glyph, pen + glyph.x(), baseline + glyph.y(), argb);
+            pen += glyph.advance();
+        }
+    }
+
+    private void paintGlyph(final GlyphAtlas.Glyph glyph, final int left, final int top, final int argb) {
+        final Rectangle area = clip.intersection(new Rectangle(left, top, glyph.width(), glyph.height()));
+        for (int row = area.y; row < area.y + area.height; row++) {
+            final int glyphRow = (row - top) * glyph.width();
+            for (int column = area.x; column < area.x + area.width; column++) {
+                final int coverage = glyph.coverages()[glyphRow + column - left];
+                if (coverage != 0) {
+                    pixels[row * stride + column] = Blending.blend(argb, pixels[row * stride + column], coverage);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void stamp(final CoverageStamp.Prepared prepared, final int x, final int y) {
+        final CoverageStamp stamp = prepared.getStamp();
+        final int left = originX + x - stamp.getMargin();
+        final int top = originY + y - stamp.getMargin();
+        final Rectangle area = clip.intersection(new Rectangle(left, top, stamp.getSize(), stamp.getSize()));
+        final int argb = prepared.getColor().getRGB();
+        for (int row = area.y; row < area.y + area.height; row++) {
+            final int stampRow = (row - top) * stamp.getSize();
+            for (int column = area.x; column < area.x + area.width; column++) {
+                final int index = stampRow + column - left;
+                final int pixel = row * stride + column;
+                pixels[pixel] = stamp.isCovered(index) ? prepared.getCoveredPixel(index) : stamp.blend(argb, pixels[pixel], index);
+            }
+        }
+    }
+
+    @Override
+    public Canvas create(final int x, final int y, final int width, final int height) {
+        return new RasterCanvas(image, originX + x, originY + y, clip.intersection(new Rectangle(originX + x, originY + y, width, height)));
+    }
+
+    @Override
+    public Canvas clip(final int x, final int y, final int width, final int height) {
+        return new RasterCanvas(image, originX, originY, clip.intersection(new Rectangle(originX + x, originY + y, width, height)));
+    }
+
+    @Override
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    @Override
+    public void dispose() {
+        // nothing to release
+    }
+
+}
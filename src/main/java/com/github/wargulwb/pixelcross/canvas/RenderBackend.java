@@ -0,0 +1,52 @@
+package com.github.wargulwb.pixelcross.canvas;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Ways the painters paint on their images.
+ */
+public enum RenderBackend {
+
+    /**
+     * writes the pixels straight into the int array of the image, glyphs and shapes are taken from Java2D once and then
+     * blended like Java2D does, so the images are the same as with {@link #GRAPHICS2D}
+     */
+    RASTER("raster"),
+    /**
+     * paints through {@link java.awt.Graphics2D}, the fallback
+     */
+    GRAPHICS2D("graphics2d");
+
+    private final String id;
+
+    RenderBackend(final String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return a canvas on a new opaque {@link BufferedImage#TYPE_INT_ARGB} image, which is transparent until painted on
+     */
+    public Canvas createCanvas(final int width, final int height) {
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        return switch (this) {
+            case RASTER -> new RasterCanvas(image);
+            case GRAPHICS2D -> new Graphics2DCanvas(image);
+        };
+    }
+
+    public static RenderBackend fromId(final String id) {
+        return Arrays.stream(values())
+                .filter(backend -> backend.id.equalsIgnoreCase(id))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown render backend '" + id + "', expected one of '"
+                                                                + Arrays.stream(values()).map(RenderBackend::getId).collect(Collectors.joining("', '"))
+                                                                + "'!"));
+    }
+
+}
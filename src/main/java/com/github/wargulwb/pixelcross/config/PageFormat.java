@@ -0,0 +1,96 @@
+package com.github.wargulwb.pixelcross.config;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Paper sizes the pattern may be split into (see {@link PixelCrossConfig#isPaginated()}).
+ */
+public enum PageFormat {
+
+    A4("a4", 21D, 29.7D),
+    A3("a3", 29.7D, 42D),
+    LETTER("letter", 21.59D, 27.94D);
+
+    private static final double CM_TO_INCH = 1 / 2.54D;
+    /**
+     * Typically printers have: 300 DPI
+     */
+    private static final double DPI_300 = 300D;
+    /**
+     * Pixels of a cross of the pattern, its block and one grid line.
+     */
+    public static final int CROSS_PIXELS = 21;
+    /**
+     * Pixels of a page around its crosses: the label areas on both sides and the last grid line.
+     */
+    public static final int BORDER_PIXELS = 2 * 50 + 1;
+    /**
+     * Pixels below the pattern of a page, for its caption.
+     */
+    public static final int FOOTER_PIXELS = 40;
+
+    private final String id;
+    private final double widthCm;
+    private final double heightCm;
+
+    PageFormat(final String id, final double widthCm, final double heightCm) {
+        this.id = id;
+        this.widthCm = widthCm;
+        this.heightCm = heightCm;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return width of the page in portrait orientation in pixels at 300 DPI
+     */
+    public int getWidth() {
+        return (int) (widthCm * CM_TO_INCH * DPI_300);
+    }
+
+    /**
+     * @return height of the page in portrait orientation in pixels at 300 DPI
+     */
+    public int getHeight() {
+        return (int) (heightCm * CM_TO_INCH * DPI_300);
+    }
+
+    /**
+     * @return columns of crosses fitting on a page in the given orientation
+     */
+    public int getColumns(final boolean landscape) {
+        return getCrosses(landscape ? getHeight() : getWidth());
+    }
+
+    /**
+     * @return rows of crosses fitting on a page in the given orientation, above the footer
+     */
+    public int getRows(final boolean landscape) {
+        return getCrosses((landscape ? getWidth() : getHeight()) - FOOTER_PIXELS);
+    }
+
+    /**
+     * @return the greatest overlap of neighboring pages, one less than the rows and columns of crosses fitting on a page
+     *         in either orientation
+     */
+    public int getMaxOverlap() {
+        return Math.min(Math.min(getColumns(false), getRows(false)), Math.min(getColumns(true), getRows(true))) - 1;
+    }
+
+    private static int getCrosses(final int pixels) {
+        return (pixels - BORDER_PIXELS) / CROSS_PIXELS;
+    }
+
+    public static PageFormat fromId(final String id) {
+        return Arrays.stream(values())
+                .filter(format -> format.id.equalsIgnoreCase(id))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown page format '" + id + "', expected one of '"
+                                                                + Arrays.stream(values()).map(PageFormat::getId).collect(Collectors.joining("', '"))
+                                                                + "'!"));
+    }
+
+}
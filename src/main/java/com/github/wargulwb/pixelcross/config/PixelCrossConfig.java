@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 
 import org.jdom2.Document;
 import org.jdom2.Element;
@@ -17,10 +18,14 @@ import org.jdom2.input.sax.XMLReaders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.wargulwb.pixelcross.canvas.RenderBackend;
 import com.github.wargulwb.pixelcross.error.ErrorCode;
 import com.github.wargulwb.pixelcross.error.RuntimeErrorCodeException;
+import com.github.wargulwb.pixelcross.model.DitheringMode;
 import com.github.wargulwb.pixelcross.model.yarn.Yarn;
+import com.github.wargulwb.pixelcross.model.yarn.YarnCatalog;
 import com.github.wargulwb.pixelcross.model.yarn.YarnSortiment;
+import com.github.wargulwb.pixelcross.utils.ColorMetric;
 import com.github.wargulwb.pixelcross.utils.JDOMUtils;
 
 import jakarta.inject.Inject;
@@ -34,7 +39,28 @@ public class PixelCrossConfig {
 
     private final JDOMUtils jdomUtils;
     private final List<YarnSortiment> sortiments = new ArrayList<>();
+    private YarnCatalog yarnCatalog;
     private boolean outputGrayscale = false;
+    private ColorMetric colorMetric = ColorMetric.RGB;
+    private int lookupTableBits = 8;
+    private int maxYarns = 0;
+    private DitheringMode ditheringMode = DitheringMode.NONE;
+    private boolean prefillLookupTable = false;
+    private boolean persistentLookupTable = true;
+    private int pipelineDecodeQueueDepth = 2;
+    private int pipelineMatchQueueDepth = 2;
+    private int pipelinePaintQueueDepth = 2;
+    private int pipelineEncodeQueueDepth = 2;
+    private int pipelineDecodeThreads = 1;
+    private int pipelineMatchThreads = 1;
+    private int pipelinePaintThreads = 2;
+    private int pipelineEncodeThreads = 2;
+    private RenderBackend renderBackend = RenderBackend.RASTER;
+    private boolean paginated = false;
+    private PageFormat pageFormat = PageFormat.A4;
+    private int pageOverlap = 2;
+    private int pageParallelism = 2;
+    private Path configDirectory; // null if the default config is used
 
     @Inject
     PixelCrossConfig(final JDOMUtils jdomUtils) {
@@ -45,10 +71,151 @@ public class PixelCrossConfig {
         return Collections.unmodifiableList(sortiments);
     }
 
+    /**
+     * @return all yarns of all sortiments, only available after {@link #init()}
+     */
+    public YarnCatalog getYarnCatalog() {
+        if (yarnCatalog == null) {
+            throw new IllegalStateException("Yarn catalog is not available before the config was initialized!");
+        }
+        return yarnCatalog;
+    }
+
     public boolean isOutputGrayscale() {
         return outputGrayscale;
     }
 
+    /**
+     * @return metric used to match image colors to yarns
+     */
+    public ColorMetric getColorMetric() {
+        return colorMetric;
+    }
+
+    /**
+     * @return bits per RGB channel used as key of the color to yarn lookup table, 8 means exact matching
+     */
+    public int getLookupTableBits() {
+        return lookupTableBits;
+    }
+
+    /**
+     * @return maximal number of yarns a pattern may use, 0 if unlimited
+     */
+    public int getMaxYarns() {
+        return maxYarns;
+    }
+
+    public DitheringMode getDitheringMode() {
+        return ditheringMode;
+    }
+
+    public boolean isPrefillLookupTable() {
+        return prefillLookupTable;
+    }
+
+    /**
+     * @return true if the color to yarn lookup table should be persisted in the config directory
+     */
+    public boolean isPersistentLookupTable() {
+        return persistentLookupTable;
+    }
+
+    /**
+     * @return capacity of the queue in front of the batch pipeline stage which reads and decodes the images
+     */
+    public int getPipelineDecodeQueueDepth() {
+        return pipelineDecodeQueueDepth;
+    }
+
+    /**
+     * @return capacity of the queue in front of the batch pipeline stage which matches the colors to yarns
+     */
+    public int getPipelineMatchQueueDepth() {
+        return pipelineMatchQueueDepth;
+    }
+
+    /**
+     * @return capacity of the queue in front of the batch pipeline stage which paints the output images
+     */
+    public int getPipelinePaintQueueDepth() {
+        return pipelinePaintQueueDepth;
+    }
+
+    /**
+     * @return capacity of the queue in front of the batch pipeline stage which encodes and writes the output images
+     */
+    public int getPipelineEncodeQueueDepth() {
+        return pipelineEncodeQueueDepth;
+    }
+
+    /**
+     * @return threads of the batch pipeline stage which reads and decodes the images
+     */
+    public int getPipelineDecodeThreads() {
+        return pipelineDecodeThreads;
+    }
+
+    /**
+     * @return threads of the batch pipeline stage which matches the colors to yarns
+     */
+    public int getPipelineMatchThreads() {
+        return pipelineMatchThreads;
+    }
+
+    /**
+     * @return threads of the batch pipeline stage which paints the output images
+     */
+    public int getPipelinePaintThreads() {
+        return pipelinePaintThreads;
+    }
+
+    /**
+     * @return threads of the batch pipeline stage which encodes and writes the output images
+     */
+    public int getPipelineEncodeThreads() {
+        return pipelineEncodeThreads;
+    }
+
+    /**
+     * @return the way the painters paint on their images
+     */
+    public RenderBackend getRenderBackend() {
+        return renderBackend;
+    }
+
+    /**
+     * @return true if the pattern should be split into pages of the {@link #getPageFormat()} instead of one image
+     */
+    public boolean isPaginated() {
+        return paginated;
+    }
+
+    public PageFormat getPageFormat() {
+        return pageFormat;
+    }
+
+    /**
+     * @return rows and columns of crosses repeated on neighboring pages
+     */
+    public int getPageOverlap() {
+        return pageOverlap;
+    }
+
+    /**
+     * @return number of pages painted and encoded at the same time
+     */
+    public int getPageParallelism() {
+        return pageParallelism;
+    }
+
+    /**
+     * @return the directory the config was read from, empty if the default config is used
+     */
+    public Optional<Path> getConfigDirectory() {
+        return Optional.ofNullable(configDirectory);
+    }
+
     public void init() {
         boolean useDefaultConfig = false;
         if (!Files.isDirectory(CONFIG_PATH)) {
@@ -69,6 +236,7 @@ public class PixelCrossConfig {
                 throw new RuntimeException("Failed to load default config 'pixelcross.config.xml'!", exc);
             }
         } else {
+            configDirectory = CONFIG_PATH;
             init(CONFIG_FILE);
         }
     }
@@ -79,7 +247,7 @@ public class PixelCrossConfig {
             final Element configRoot = document.getRootElement();
             initGeneralConfig(configRoot);
             initYarnSortiments(configRoot);
-        } catch (IOException | JDOMException exc) {
+        } catch (IOException | JDOMException | IllegalArgumentException exc) {
             throw new RuntimeErrorCodeException(
                     ErrorCode.FAILED_TO_LOAD_CONFIG,
                     "Failed to load config from file '" + configFile + "'!",
@@ -89,6 +257,49 @@ public class PixelCrossConfig {
 
     private void initGeneralConfig(final Element configRoot) {
         outputGrayscale = jdomUtils.getBooleanAttribute(configRoot, "output/grayscale", false);
+        colorMetric = ColorMetric.fromId(jdomUtils.getStringAttribute(configRoot, "matching/metric", ColorMetric.RGB.getId()));
+        lookupTableBits = jdomUtils.getIntegerAttribute(configRoot, "matching/lookupbits", 8);
+        if (lookupTableBits < 1 || lookupTableBits > 8) {
+            throw new IllegalArgumentException("Attribute 'matching/lookupbits'=" + lookupTableBits + " is out of bounds [1, 8]!");
+        }
+        maxYarns = jdomUtils.getIntegerAttribute(configRoot, "matching/maxyarns", 0);
+        if (maxYarns < 0) {
+            throw new IllegalArgumentException("Attribute 'matching/maxyarns'=" + maxYarns + " must not be negative!");
+        }
+        ditheringMode = DitheringMode.fromId(jdomUtils.getStringAttribute(configRoot, "matching/dithering", DitheringMode.NONE.getId()));
+        prefillLookupTable = jdomUtils.getBooleanAttribute(configRoot, "matching/prefill", false);
+        persistentLookupTable = jdomUtils.getBooleanAttribute(configRoot, "matching/persistent", true);
+        final int pipelineQueueDepth = getPositiveIntegerAttribute(configRoot, "pipeline/queuedepth", 2);
+        pipelineDecodeQueueDepth = getPositiveIntegerAttribute(configRoot, "pipeline/decodequeue", pipelineQueueDepth);
+        pipelineMatchQueueDepth = getPositiveIntegerAttribute(configRoot, "pipeline/matchqueue", pipelineQueueDepth);
+        pipelinePaintQueueDepth = getPositiveIntegerAttribute(configRoot, "pipeline/paintqueue", pipelineQueueDepth);
+        pipelineEncodeQueueDepth = getPositiveIntegerAttribute(configRoot, "pipeline/encodequeue", pipelineQueueDepth);
+        pipelineDecodeThreads = getPositiveIntegerAttribute(configRoot, "pipeline/decodethreads", 1);
+        pipelineMatchThreads = getPositiveIntegerAttribute(configRoot, "pipeline/matchthreads", 1);
+        pipelinePaintThreads = getPositiveIntegerAttribute(configRoot, "pipeline/paintthreads", 2);
+        pipelineEncodeThreads = getPositiveIntegerAttribute(configRoot, "pipeline/encodethreads", 2);
+        renderBackend = RenderBackend.fromId(jdomUtils.getStringAttribute(configRoot, "output/backend", RenderBackend.RASTER.getId()));
+        paginated = jdomUtils.getBooleanAttribute(configRoot, "pages/enabled", false);
+        pageFormat = PageFormat.fromId(jdomUtils.getStringAttribute(configRoot, "pages/format", PageFormat.A4.getId()));
+        pageOverlap = jdomUtils.getIntegerAttribute(configRoot, "pages/overlap", 2);
+        if (pageOverlap < 0) {
+            throw new IllegalArgumentException("Attribute 'pages/overlap'=" + pageOverlap + " must not be negative!");
+        }
+        final int maxPageOverlap = pageFormat.getMaxOverlap();
+        if (pageOverlap > maxPageOverlap) {
+            throw new IllegalArgumentException("Attribute 'pages/overlap'=" + pageOverlap + " must not be greater than " + maxPageOverlap
+                                               + ", the rows and columns of crosses fitting on a page of format '" + pageFormat.getId()
+                                               + "' less one!");
+        }
+        pageParallelism = getPositiveIntegerAttribute(configRoot, "pages/parallel", 2);
+    }
+
+    private int getPositiveIntegerAttribute(final Element configRoot, final String path, final int defaultValue) {
+        final int value = jdomUtils.getIntegerAttribute(configRoot, path, defaultValue);
+        if (value < 1) {
+            throw new IllegalArgumentException("Attribute '" + path + "'=" + value + " must be greater than 0!");
+        }
+        return value;
     }
 
     private void initYarnSortiments(final Element configRoot) {
@@ -99,6 +310,7 @@ public class PixelCrossConfig {
                         .map(this::parseYarnSortiment)
                         .toList();
         sortiments.addAll(yarnSortiments);
+        yarnCatalog = YarnCatalog.of(sortiments);
     }
 
     private YarnSortiment parseYarnSortiment(final Element sortimentNode) {
@@ -9,7 +9,10 @@ public enum ErrorCode {
     FAILED_TO_LOAD_CONFIG(-5, "Failed to load yarn data"),
     NOT_ENOUGH_COLOR_SYMBOLS(-6, "Not enough color symbols"),
     ILLEGAL_ARGUMENT_COUNT(-7, "Argument count not as expected"),
-    INPUT_IMAGE_NO_FILE(-8, "Input image is no regular file");
+    INPUT_IMAGE_NO_FILE(-8, "Input image is no regular file"),
+    INVALID_ARGUMENT(-9, "Invalid argument"),
+    BATCH_FAILED(-10, "Failed to process images of batch"),
+    SERVER_FAILED(-11, "Failed to start server");
 
     private final int code;
     private final String text;
@@ -0,0 +1,352 @@
+package com.github.wargulwb.pixelcross.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+import com.github.wargulwb.pixelcross.utils.ColorUtils;
+
+/**
+ * Reduces a color histogram (distinct colors with their pixel counts) to at most a given number of clusters in CIE
+ * L*a*b* space. The clusters are initialized by median cut and refined by weighted k-means. Since only the distinct
+ * colors are clustered, the cost does not depend on the number of pixels. Histograms with many colors (e.g. of photos)
+ * are binned by their upper {@link #BIN_BITS} bits per channel first, the bins are clustered by their weighted mean
+ * color and each color is assigned to the centroid closest to it in the end.
+ * <p>
+ * The k-means steps run in parallel over fixed chunks of the histogram whose partial sums are merged in chunk order,
+ * so the result does not depend on the number of threads.
+ */
+class ColorReducer {
+
+    private static final int CHUNK_SIZE = 1 << 12;
+    private static final int MAX_ITERATIONS = 32;
+    private static final int BIN_BITS = 5;
+    private static final int BINNING_THRESHOLD = 1 << 12; // histograms with more colors are binned
+    private static final double SORT_KEY_SCALE = 1000D; // Lab values are sorted with a precision of 1/1000
+    private static final long SORT_KEY_OFFSET = 1L << 30;
+
+    private final ForkJoinPool pool;
+    private final ColorUtils colorUtils;
+
+    ColorReducer(final ForkJoinPool pool, final ColorUtils colorUtils) {
+        this.pool = Objects.requireNonNull(pool, getClass().getSimpleName() + ".pool cannot be null!");
+        this.colorUtils = Objects.requireNonNull(colorUtils, getClass().getSimpleName() + ".colorUtils cannot be null!");
+    }
+
+    /**
+     * Converts the given histogram to L*a*b* and bins it if necessary, so it can be reduced several times.
+     *
+     * @param rgbs
+     *            distinct colors as 0xRRGGBB (higher bits are ignored)
+     * @param weights
+     *            number of pixels per color, all greater than 0
+     */
+    Histogram prepare(final int[] rgbs, final int[] weights) {
+        if (rgbs.length != weights.length) {
+            throw new IllegalArgumentException("Given 'rgbs' and 'weights' need to be of equal length!");
+        }
+        final int size = rgbs.length;
+        final double[][] labs = new double[3][size];
+        forEachChunk(size, chunk -> {
+            final double[] lab = new double[3];
+            for (int i = chunk * CHUNK_SIZE; i < Math.min(size, (chunk + 1) * CHUNK_SIZE); i++) {
+                colorUtils.toLab(rgbs[i] >> 16 & 0xFF, rgbs[i] >> 8 & 0xFF, rgbs[i] & 0xFF, lab);
+                labs[0][i] = lab[0];
+                labs[1][i] = lab[1];
+                labs[2][i] = lab[2];
+            }
+        });
+        return new Histogram(labs, weights.clone(), size > BINNING_THRESHOLD ? bin(rgbs, weights, labs) : null);
+    }
+
+    /**
+     * @param maxClusters
+     *            maximal number of clusters, greater than 0
+     */
+    Reduction reduce(final Histogram histogram, final int maxClusters) {
+        if (maxClusters < 1) {
+            throw new IllegalArgumentException("Given 'maxClusters'=" + maxClusters + " must be greater than 0!");
+        }
+        final double[][] labs = histogram.labs;
+        final int size = histogram.weights.length;
+        final double[][] centroids;
+        final int[] clusters = new int[size];
+        if (histogram.bins != null) {
+            final Bins bins = histogram.bins;
+            centroids = cluster(bins.labs, bins.weights, maxClusters, new int[bins.weights.length]);
+            forEachChunk(size, chunk -> {
+                for (int i = chunk * CHUNK_SIZE; i < Math.min(size, (chunk + 1) * CHUNK_SIZE); i++) {
+                    clusters[i] = closestCentroid(labs, i, centroids);
+                }
+            });
+        } else {
+            centroids = cluster(labs, histogram.weights, maxClusters, clusters);
+        }
+
+        final int[] centroidRgbs = new int[centroids.length];
+        for (int cluster = 0; cluster < centroids.length; cluster++) {
+            centroidRgbs[cluster] = colorUtils.labToRGB(centroids[cluster][0], centroids[cluster][1], centroids[cluster][2]);
+        }
+        return new Reduction(clusters, centroidRgbs);
+    }
+
+    /**
+     * @param clusters
+     *            receives the cluster of each color
+     * @return the centroids
+     */
+    private double[][] cluster(final double[][] labs, final int[] weights, final int maxClusters, final int[] clusters) {
+        final double[][] centroids = medianCut(labs, weights, Math.min(maxClusters, weights.length));
+        Arrays.fill(clusters, -1);
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            if (!assignAndUpdate(labs, weights, centroids, clusters)) {
+                break;
+            }
+        }
+        return centroids;
+    }
+
+    /**
+     * Sums up the colors by their upper {@link #BIN_BITS} bits per channel.
+     */
+    private static Bins bin(final int[] rgbs, final int[] weights, final double[][] labs) {
+        final int shift = 8 - BIN_BITS;
+        final int[] binIndices = new int[1 << BIN_BITS * 3];
+        Arrays.fill(binIndices, -1);
+        final double[][] sums = new double[3][Math.min(binIndices.length, rgbs.length)];
+        final int[] binWeights = new int[sums[0].length];
+        int binCount = 0;
+        for (int i = 0; i < rgbs.length; i++) {
+            final int key = (rgbs[i] >> 16 & 0xFF) >> shift << BIN_BITS * 2 | (rgbs[i] >> 8 & 0xFF) >> shift << BIN_BITS | (rgbs[i] & 0xFF) >> shift;
+            int bin = binIndices[key];
+            if (bin < 0) {
+                bin = binCount++;
+                binIndices[key] = bin;
+            }
+            for (int axis = 0; axis < 3; axis++) {
+                sums[axis][bin] += labs[axis][i] * weights[i];
+            }
+            binWeights[bin] += weights[i];
+        }
+        final double[][] means = new double[3][binCount];
+        for (int bin = 0; bin < binCount; bin++) {
+            for (int axis = 0; axis < 3; axis++) {
+                means[axis][bin] = sums[axis][bin] / binWeights[bin];
+            }
+        }
+        return new Bins(means, Arrays.copyOf(binWeights, binCount));
+    }
+
+    /**
+     * Splits the colors into boxes, always splitting the box with the biggest weighted squared error along its widest
+     * axis at the weighted median.
+     *
+     * @return the weighted means of the boxes
+     */
+    private static double[][] medianCut(final double[][] labs, final int[] weights, final int boxCount) {
+        final int size = weights.length;
+        final int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        final List<Box> boxes = new ArrayList<>(boxCount);
+        boxes.add(new Box(labs, weights, order, 0, size));
+        while (boxes.size() < boxCount) {
+            Box widest = null;
+            for (final Box box : boxes) {
+                if (box.size() > 1 && (widest == null || box.squaredError > widest.squaredError)) {
+                    widest = box;
+                }
+            }
+            if (widest == null || widest.squaredError == 0D) {
+                break; // all remaining boxes hold a single color
+            }
+            final int split = widest.split(labs, weights, order);
+            boxes.remove(widest);
+            boxes.add(new Box(labs, weights, order, widest.from, split));
+            boxes.add(new Box(labs, weights, order, split, widest.to));
+        }
+        return boxes.stream().map(box -> box.mean.clone()).toArray(double[][]::new);
+    }
+
+    /**
+     * One k-means step: assigns each color to the closest centroid and moves the centroids to the weighted means of
+     * their colors. Centroids without colors keep their position.
+     *
+     * @return true if any color changed its cluster
+     */
+    private boolean assignAndUpdate(final double[][] labs, final int[] weights, final double[][] centroids, final int[] clusters) {
+        final int size = weights.length;
+        final int chunkCount = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        final double[][][] chunkSums = new double[chunkCount][][];
+        final boolean[] chunkChanged = new boolean[chunkCount];
+        forEachChunk(size, chunk -> {
+            final double[][] sums = new double[centroids.length][4]; // L, a, b, weight
+            for (int i = chunk * CHUNK_SIZE; i < Math.min(size, (chunk + 1) * CHUNK_SIZE); i++) {
+                final int closest = closestCentroid(labs, i, centroids);
+                if (clusters[i] != closest) {
+                    clusters[i] = closest;
+                    chunkChanged[chunk] = true;
+                }
+                sums[closest][0] += labs[0][i] * weights[i];
+                sums[closest][1] += labs[1][i] * weights[i];
+                sums[closest][2] += labs[2][i] * weights[i];
+                sums[closest][3] += weights[i];
+            }
+            chunkSums[chunk] = sums;
+        });
+
+        boolean changed = false;
+        final double[][] totals = new double[centroids.length][4];
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            changed |= chunkChanged[chunk];
+            for (int cluster = 0; cluster < centroids.length; cluster++) {
+                for (int component = 0; component < 4; component++) {
+                    totals[cluster][component] += chunkSums[chunk][cluster][component];
+                }
+            }
+        }
+        for (int cluster = 0; cluster < centroids.length; cluster++) {
+            final double weight = totals[cluster][3];
+            if (weight > 0D) {
+                centroids[cluster][0] = totals[cluster][0] / weight;
+                centroids[cluster][1] = totals[cluster][1] / weight;
+                centroids[cluster][2] = totals[cluster][2] / weight;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @return the centroid closest to color 'i' by euclidean distance in L*a*b* space
+     */
+    private static int closestCentroid(final double[][] labs, final int i, final double[][] centroids) {
+        int closest = 0;
+        double closestDistance = Double.MAX_VALUE;
+        for (int cluster = 0; cluster < centroids.length; cluster++) {
+            final double lightnessDistance = labs[0][i] - centroids[cluster][0];
+            final double aDistance = labs[1][i] - centroids[cluster][1];
+            final double bDistance = labs[2][i] - centroids[cluster][2];
+            final double distance = lightnessDistance * lightnessDistance + aDistance * aDistance + bDistance * bDistance;
+            if (distance < closestDistance) {
+                closestDistance = distance;
+                closest = cluster;
+            }
+        }
+        return closest;
+    }
+
+    private void forEachChunk(final int size, final IntConsumer action) {
+        ParallelIndices.forEachIndex(pool, (size + CHUNK_SIZE - 1) / CHUNK_SIZE, action);
+    }
+
+    /**
+     * Result of the reduction, 'clusters' holds the cluster of each color and 'centroids' the color of each cluster as
+     * 0xRRGGBB.
+     */
+    record Reduction(int[] clusters, int[] centroids) {
+    }
+
+    /**
+     * Histogram prepared for {@link ColorReducer#reduce(Histogram, int)}, 'bins' is null if the colors are clustered
+     * directly.
+     */
+    static final class Histogram {
+
+        private final double[][] labs;
+        private final int[] weights;
+        private final Bins bins;
+
+        private Histogram(final double[][] labs, final int[] weights, final Bins bins) {
+            this.labs = labs;
+            this.weights = weights;
+            this.bins = bins;
+        }
+
+    }
+
+    /**
+     * Weighted mean L*a*b* colors of the bins and their weights.
+     */
+    private record Bins(double[][] labs, int[] weights) {
+    }
+
+    /**
+     * Range [from, to) of the median cut order.
+     */
+    private static final class Box {
+
+        private final int from;
+        private final int to;
+        private final double[] mean = new double[3];
+        private final double[] squaredErrors = new double[3]; // per axis
+        private final double squaredError;
+
+        private Box(final double[][] labs, final int[] weights, final int[] order, final int from, final int to) {
+            this.from = from;
+            this.to = to;
+            double weight = 0D;
+            for (int i = from; i < to; i++) {
+                final int color = order[i];
+                weight += weights[color];
+                for (int axis = 0; axis < 3; axis++) {
+                    mean[axis] += labs[axis][color] * weights[color];
+                }
+            }
+            for (int axis = 0; axis < 3; axis++) {
+                mean[axis] /= weight;
+            }
+            for (int i = from; i < to; i++) {
+                final int color = order[i];
+                for (int axis = 0; axis < 3; axis++) {
+                    final double distance = labs[axis][color] - mean[axis];
+                    squaredErrors[axis] += distance * distance * weights[color];
+                }
+            }
+            squaredError = squaredErrors[0] + squaredErrors[1] + squaredErrors[2];
+        }
+
+        private int size() {
+            return to - from;
+        }
+
+        /**
+         * Sorts the colors of this box along the axis with the biggest squared error.
+         *
+         * @return index of the first color of the second half, in range (from, to)
+         */
+        private int split(final double[][] labs, final int[] weights, final int[] order) {
+            int axis = 0;
+            for (int candidate = 1; candidate < 3; candidate++) {
+                if (squaredErrors[candidate] > squaredErrors[axis]) {
+                    axis = candidate;
+                }
+            }
+            // sort by key and color in one primitive array, the color occupies the lower 32 bits
+            final long[] keys = new long[size()];
+            for (int i = from; i < to; i++) {
+                final long key = Math.round(labs[axis][order[i]] * SORT_KEY_SCALE) + SORT_KEY_OFFSET;
+                keys[i - from] = key << 32 | order[i];
+            }
+            Arrays.sort(keys);
+            long totalWeight = 0L;
+            for (int i = from; i < to; i++) {
+                order[i] = (int) keys[i - from];
+                totalWeight += weights[order[i]];
+            }
+            long weight = 0L;
+            for (int i = from; i < to - 1; i++) {
+                weight += weights[order[i]];
+                if (weight * 2 >= totalWeight) {
+                    return i + 1;
+                }
+            }
+            return to - 1;
+        }
+
+    }
+
+}
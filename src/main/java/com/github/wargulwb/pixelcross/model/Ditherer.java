@@ -0,0 +1,197 @@
+package com.github.wargulwb.pixelcross.model;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+import com.github.wargulwb.pixelcross.model.yarn.Yarn;
+import com.github.wargulwb.pixelcross.utils.NearestColorSearch;
+
+/**
+ * Maps the pixels of an {@link ImageModel} to a given list of yarns by dithering, so gradients which fall into a few
+ * yarns are kept. The palette indices are rewritten in place, row by row: the new palette holds the transparent colors
+ * of the old palette followed by one color per yarn, hence it is never bigger than the old palette and fits the grid.
+ * <p>
+ * Floyd-Steinberg dithering carries the diffused error in two row buffers. Ordered dithering needs no state, so the
+ * rows are processed in parallel bands.
+ */
+class Ditherer {
+
+    private static final int BAND_ROWS = 64;
+    private static final int[][] BAYER_MATRIX = {
+            { 0, 32, 8, 40, 2, 34, 10, 42 },
+            { 48, 16, 56, 24, 50, 18, 58, 26 },
+            { 12, 44, 4, 36, 14, 46, 6, 38 },
+            { 60, 28, 52, 20, 62, 30, 54, 22 },
+            { 3, 35, 11, 43, 1, 33, 9, 41 },
+            { 51, 19, 59, 27, 49, 17, 57, 25 },
+            { 15, 47, 7, 39, 13, 45, 5, 37 },
+            { 63, 31, 55, 23, 61, 29, 53, 21 } };
+    private static final int BAYER_SIZE = BAYER_MATRIX.length;
+
+    private final ForkJoinPool pool;
+
+    Ditherer(final ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool, getClass().getSimpleName() + ".pool cannot be null!");
+    }
+
+    /**
+     * @param imageModel
+     *            model to dither, its grid is rewritten, so the model must not be used afterwards
+     * @param yarns
+     *            yarns to use
+     * @param search
+     *            search answering indices into 'yarns'
+     * @return model sharing the rewritten grid with the new palette, without yarn statistics
+     */
+    ImageModel dither(final ImageModel imageModel, final DitheringMode mode, final List<Yarn> yarns, final NearestColorSearch search) {
+        final Palette palette = new Palette(imageModel, yarns);
+        final int[] counts;
+        switch (mode) {
+            case FLOYD_STEINBERG:
+                counts = ditherFloydSteinberg(imageModel, palette, search);
+                break;
+            case ORDERED:
+                counts = ditherOrdered(imageModel, palette, search);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported dithering mode '" + mode + "'!");
+        }
+        return new ImageModel(imageModel.getGrid(), palette.colors, counts);
+    }
+
+    private static int[] ditherFloydSteinberg(final ImageModel imageModel, final Palette palette, final NearestColorSearch search) {
+        final int width = imageModel.getWidth();
+        final PaletteIndexGrid grid = imageModel.getGrid();
+        final int[] counts = new int[palette.colors.size()];
+        // RGB errors per pixel, shifted by one pixel, so the neighbors of the borders need no special handling
+        float[] errors = new float[(width + 2) * 3];
+        float[] nextErrors = new float[(width + 2) * 3];
+        final int[] row = new int[width];
+        for (int y = 0; y < imageModel.getHeight(); y++) {
+            grid.getRow(y, row, 0);
+            for (int x = 0; x < width; x++) {
+                final int oldIndex = row[x];
+                final int transparentIndex = palette.transparentIndices[oldIndex];
+                if (transparentIndex >= 0) {
+                    row[x] = transparentIndex;
+                    counts[transparentIndex]++;
+                    continue;
+                }
+                final int offset = (x + 1) * 3;
+                final int rgb = palette.oldRgbs[oldIndex];
+                final int red = clamp((rgb >> 16 & 0xFF) + errors[offset]);
+                final int green = clamp((rgb >> 8 & 0xFF) + errors[offset + 1]);
+                final int blue = clamp((rgb & 0xFF) + errors[offset + 2]);
+                final int yarn = search.getClosestNeighborIndex(red, green, blue);
+                final int yarnRgb = palette.yarnRgbs[yarn];
+                diffuse(errors, nextErrors, offset, 0, red - (yarnRgb >> 16 & 0xFF));
+                diffuse(errors, nextErrors, offset, 1, green - (yarnRgb >> 8 & 0xFF));
+                diffuse(errors, nextErrors, offset, 2, blue - (yarnRgb & 0xFF));
+                row[x] = palette.firstYarnIndex + yarn;
+                counts[row[x]]++;
+            }
+            grid.setRow(y, row, 0);
+            final float[] swap = errors;
+            errors = nextErrors;
+            nextErrors = swap;
+            Arrays.fill(nextErrors, 0F);
+        }
+        return counts;
+    }
+
+    private static void diffuse(final float[] errors, final float[] nextErrors, final int offset, final int channel, final int error) {
+        errors[offset + 3 + channel] += error * 7F / 16F;
+        nextErrors[offset - 3 + channel] += error * 3F / 16F;
+        nextErrors[offset + channel] += error * 5F / 16F;
+        nextErrors[offset + 3 + channel] += error * 1F / 16F;
+    }
+
+    private int[] ditherOrdered(final ImageModel imageModel, final Palette palette, final NearestColorSearch search) {
+        final int width = imageModel.getWidth();
+        final int height = imageModel.getHeight();
+        final PaletteIndexGrid grid = imageModel.getGrid();
+        // the threshold spreads about the distance of neighboring yarns, if they were evenly distributed
+        final float spread = 255F / (float) Math.cbrt(palette.yarnRgbs.length);
+        final int bandCount = (height + BAND_ROWS - 1) / BAND_ROWS;
+        final int[][] bandCounts = new int[bandCount][];
+        ParallelIndices.forEachIndex(pool, bandCount, band -> {
+            final int[] counts = new int[palette.colors.size()];
+            final int[] row = new int[width];
+            for (int y = band * BAND_ROWS; y < Math.min(height, (band + 1) * BAND_ROWS); y++) {
+                grid.getRow(y, row, 0);
+                final int[] thresholds = BAYER_MATRIX[y % BAYER_SIZE];
+                for (int x = 0; x < width; x++) {
+                    final int oldIndex = row[x];
+                    final int transparentIndex = palette.transparentIndices[oldIndex];
+                    if (transparentIndex >= 0) {
+                        row[x] = transparentIndex;
+                    } else {
+                        final float offset = ((thresholds[x % BAYER_SIZE] + 0.5F) / (BAYER_SIZE * BAYER_SIZE) - 0.5F) * spread;
+                        final int rgb = palette.oldRgbs[oldIndex];
+                        final int yarn = search.getClosestNeighborIndex(
+                                clamp((rgb >> 16 & 0xFF) + offset),
+                                clamp((rgb >> 8 & 0xFF) + offset),
+                                clamp((rgb & 0xFF) + offset));
+                        row[x] = palette.firstYarnIndex + yarn;
+                    }
+                    counts[row[x]]++;
+                }
+                grid.setRow(y, row, 0);
+            }
+            bandCounts[band] = counts;
+        });
+
+        final int[] counts = new int[palette.colors.size()];
+        for (final int[] band : bandCounts) {
+            for (int index = 0; index < counts.length; index++) {
+                counts[index] += band[index];
+            }
+        }
+        return counts;
+    }
+
+    private static int clamp(final float value) {
+        return Math.max(0, Math.min(255, Math.round(value)));
+    }
+
+    /**
+     * The new palette: the transparent colors of the old palette followed by the yarns.
+     */
+    private static final class Palette {
+
+        private final List<PixelCrossColor> colors = new ArrayList<>();
+        private final int[] transparentIndices; // new index per old index, -1 if the old color is opaque
+        private final int[] oldRgbs;
+        private final int[] yarnRgbs;
+        private final int firstYarnIndex;
+
+        private Palette(final ImageModel imageModel, final List<Yarn> yarns) {
+            final int oldSize = imageModel.getColors().size();
+            transparentIndices = new int[oldSize];
+            oldRgbs = new int[oldSize];
+            for (int index = 0; index < oldSize; index++) {
+                final PixelCrossColor color = imageModel.getPaletteColor(index);
+                oldRgbs[index] = color.getOriginalColor().getRGB();
+                if (color.isPixelOpaque()) {
+                    transparentIndices[index] = -1;
+                } else {
+                    transparentIndices[index] = colors.size();
+                    colors.add(color);
+                }
+            }
+            firstYarnIndex = colors.size();
+            yarnRgbs = new int[yarns.size()];
+            for (int i = 0; i < yarns.size(); i++) {
+                final Color yarnColor = yarns.get(i).getColor();
+                yarnRgbs[i] = yarnColor.getRGB();
+                colors.add(new PixelCrossColor(new Color(yarnColor.getRGB())).setYarn(yarns.get(i)));
+            }
+        }
+
+    }
+
+}
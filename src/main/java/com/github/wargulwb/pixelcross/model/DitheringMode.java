@@ -0,0 +1,43 @@
+package com.github.wargulwb.pixelcross.model;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Ways to map the pixels of an image to the yarns chosen for its colors.
+ */
+public enum DitheringMode {
+
+    /**
+     * each pixel gets the yarn of its color
+     */
+    NONE("none"),
+    /**
+     * Floyd-Steinberg error diffusion, keeps gradients best, processes the rows one after another
+     */
+    FLOYD_STEINBERG("floydsteinberg"),
+    /**
+     * ordered dithering by an 8x8 Bayer matrix, gives a regular pattern, processes the rows in parallel
+     */
+    ORDERED("ordered");
+
+    private final String id;
+
+    DitheringMode(final String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public static DitheringMode fromId(final String id) {
+        return Arrays.stream(values())
+                .filter(mode -> mode.id.equalsIgnoreCase(id))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown dithering mode '" + id + "', expected one of '"
+                                                                + Arrays.stream(values()).map(DitheringMode::getId).collect(Collectors.joining("', '"))
+                                                                + "'!"));
+    }
+
+}
@@ -1,28 +1,40 @@
 package com.github.wargulwb.pixelcross.model;
 
+import java.awt.Rectangle;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.stream.IntStream;
 
 import com.github.wargulwb.pixelcross.model.yarn.Yarn;
 
+/**
+ * Crosses of an image, their palette colors and the yarns of those. Only {@link ImageModelLoader} modifies a model
+ * while loading it, afterwards it is read-only and may be read by several threads concurrently, e.g. by painters
+ * rendering different outputs in parallel.
+ */
 public class ImageModel {
 
     private final int width;
     private final int height;
 
-    private final PixelCross[][] grid;
+    private final PaletteIndexGrid grid;
     private final List<PixelCrossColor> colors;
-    private final Map<Yarn, YarnData> yarnIndexMap = new HashMap<>(); // unfortunately modifiable
-
-    ImageModel(final int width, final int height, final PixelCross[][] grid, final List<PixelCrossColor> colors) {
-        this.width = width;
-        this.height = height;
+    private final int[] paletteCounts;
+    private int[] yarnOrder; // only computed once, the palette of a model never changes
+    private YarnStatistics statistics; // only updated by the loader, read-only once the model was loaded
+    private Rectangle paintedBounds; // only updated by the loader, read-only once the model was loaded
+
+    ImageModel(final PaletteIndexGrid grid, final List<PixelCrossColor> colors, final int[] paletteCounts) {
+        this.width = grid.getWidth();
+        this.height = grid.getHeight();
         this.grid = grid;
         this.colors = colors;
+        this.paletteCounts = paletteCounts;
     }
 
     public int getWidth() {
@@ -33,66 +45,170 @@ public class ImageModel {
         return height;
     }
 
-    public PixelCross getPixelCross(final int x, final int y) {
+    /**
+     * @return the index of the palette color (see {@link #getColors()}) of the cross at the given position
+     */
+    public int getPaletteIndex(final int x, final int y) {
         if (x < 0 || x >= width) {
             throw new IllegalArgumentException("Given paramet 'x'=" + x + " is out of bounds [0, " + width + ")!");
         }
+        checkRowBounds(y);
+        return grid.get(x, y);
+    }
+
+    public PixelCrossColor getPixelColor(final int x, final int y) {
+        return colors.get(getPaletteIndex(x, y));
+    }
+
+    /**
+     * Copies the palette indices of row 'y' into the given buffer, which is reused if it can hold at least
+     * {@link #getWidth()} values.
+     *
+     * @param y
+     *            row to read
+     * @param buffer
+     *            buffer to reuse, may be null
+     * @return the buffer holding the palette indices of the row, starting at index 0
+     */
+    public int[] getPaletteRow(final int y, final int[] buffer) {
+        checkRowBounds(y);
+        final int[] row = buffer == null || buffer.length < width ? new int[width] : buffer;
+        grid.getRow(y, row, 0);
+        return row;
+    }
+
+    private void checkRowBounds(final int y) {
         if (y < 0 || y >= height) {
             throw new IllegalArgumentException("Given paramet 'y'=" + y + " is out of bounds [0, " + height + ")!");
         }
-        return grid[x][y];
     }
 
+    /**
+     * @return the palette of this model, the palette indices of the crosses refer to this list
+     */
     public List<PixelCrossColor> getColors() {
         return Collections.unmodifiableList(colors);
     }
 
-    public void updateYarnIndexMap() {
-        yarnIndexMap.clear();
-        int index = 1;
-        for (final Yarn distinctYarn : colors.stream()
-                .filter(PixelCrossColor::isPixelOpaque) // only leave opaque colors
-                .map(PixelCrossColor::getYarn)
-                .distinct()
-                .toList()) {
-            yarnIndexMap.put(distinctYarn, new YarnData(index, countCrossesOfYarn(distinctYarn)));
-            index++;
+    public PixelCrossColor getPaletteColor(final int paletteIndex) {
+        return colors.get(paletteIndex);
+    }
+
+    PaletteIndexGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * @return number of crosses using the palette color with the given index
+     */
+    int getPaletteCount(final int paletteIndex) {
+        return paletteCounts[paletteIndex];
+    }
+
+    /**
+     * Recalculates the {@link YarnStatistics} from the histogram of the palette, which has to be done whenever the
+     * yarns of the palette colors change. Also finds the {@link #getPaintedBounds() painted bounds} in one pass over the
+     * rows.
+     */
+    void updateYarnIndexMap() {
+        if (yarnOrder == null) {
+            yarnOrder = findYarnOrder();
         }
+        statistics = YarnStatistics.of(colors, paletteCounts, yarnOrder);
+        paintedBounds = findPaintedBounds();
     }
 
-    private int countCrossesOfYarn(final Yarn yarn) {
-        int count = 0;
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                if (grid[x][y].getPixelColor().getYarn() == yarn) {
-                    count++;
+    /**
+     * Yarns are indexed, and so get their symbols, in the iteration order of a {@link HashMap} of the palette colors
+     * filled column by column, like before the palette was introduced, so the pattern of an image keeps its symbols.
+     *
+     * @return the used palette indices in that order
+     */
+    private int[] findYarnOrder() {
+        // first occurrence of each palette color column by column, found in one pass over the rows
+        final int[] firstX = new int[colors.size()];
+        final int[] firstY = new int[colors.size()];
+        Arrays.fill(firstX, width);
+        final int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            grid.getRow(y, row, 0);
+            for (int x = 0; x < width; x++) {
+                if (x < firstX[row[x]]) {
+                    firstX[row[x]] = x;
+                    firstY[row[x]] = y;
                 }
             }
         }
-        return count;
+        // the ARGB keys hash like the java.awt.Color keys used before
+        final Map<Integer, Integer> paletteIndices = new HashMap<>();
+        IntStream.range(0, colors.size())
+                .filter(paletteIndex -> firstX[paletteIndex] < width)
+                .boxed()
+                .sorted(Comparator.comparingLong(paletteIndex -> (long) firstX[paletteIndex] * height + firstY[paletteIndex]))
+                .forEach(paletteIndex -> paletteIndices.put(colors.get(paletteIndex).getOriginalColor().getRGB(), paletteIndex));
+        return paletteIndices.values().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private Rectangle findPaintedBounds() {
+        final boolean[] opaque = new boolean[colors.size()];
+        for (int paletteIndex = 0; paletteIndex < opaque.length; paletteIndex++) {
+            opaque[paletteIndex] = colors.get(paletteIndex).isPixelOpaque();
+        }
+        int left = width;
+        int right = -1;
+        int top = height;
+        int bottom = -1;
+        final int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            grid.getRow(y, row, 0);
+            int x = 0;
+            while (x < width && !opaque[row[x]]) {
+                x++;
+            }
+            if (x == width) {
+                continue; // nothing painted in this row
+            }
+            left = Math.min(left, x);
+            x = width - 1;
+            while (!opaque[row[x]]) {
+                x--;
+            }
+            right = Math.max(right, x);
+            top = Math.min(top, y);
+            bottom = y;
+        }
+        return bottom < 0 ? null : new Rectangle(left, top, right - left + 1, bottom - top + 1);
+    }
+
+    public YarnStatistics getStatistics() {
+        if (statistics == null) {
+            throw new IllegalStateException("Yarn statistics were not calculated yet!");
+        }
+        return statistics;
+    }
+
+    /**
+     * @return the smallest rectangle of crosses containing all opaque (painted) crosses, null if there are none
+     */
+    public Rectangle getPaintedBounds() {
+        getStatistics(); // both are calculated together
+        return paintedBounds == null ? null : new Rectangle(paintedBounds);
     }
 
     public int getYarnIndex(final Yarn yarn) {
-        return Optional.ofNullable(yarnIndexMap.get(yarn))
-                .map(y -> y.index())
-                .orElse(-1);
+        return getStatistics().getYarnIndex(yarn);
     }
 
     public int getYarnCrossCount(final Yarn yarn) {
-        return Optional.ofNullable(yarnIndexMap.get(yarn))
-                .map(y -> y.crossCount())
-                .orElse(0);
+        return getStatistics().getCrossCount(yarn);
     }
 
     public int getEffectiveColorCount() {
-        return yarnIndexMap.size();
+        return getStatistics().getYarnCount();
     }
 
     public Collection<Yarn> getYarns() {
-        return Collections.unmodifiableCollection(yarnIndexMap.keySet());
-    }
-
-    private record YarnData(int index, int crossCount) {
+        return getStatistics().getYarns();
     }
 
 }
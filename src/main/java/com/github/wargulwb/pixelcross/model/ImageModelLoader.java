@@ -5,49 +5,125 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Path;
-import java.util.Collection;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 import javax.imageio.ImageIO;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.github.wargulwb.pixelcross.config.PixelCrossConfig;
 import com.github.wargulwb.pixelcross.error.ErrorCode;
 import com.github.wargulwb.pixelcross.error.RuntimeErrorCodeException;
+import com.github.wargulwb.pixelcross.model.ColorReducer.Histogram;
+import com.github.wargulwb.pixelcross.model.ColorReducer.Reduction;
+import com.github.wargulwb.pixelcross.model.RasterDecoder.DecodedRaster;
 import com.github.wargulwb.pixelcross.model.yarn.Yarn;
-import com.github.wargulwb.pixelcross.model.yarn.YarnSortiment;
+import com.github.wargulwb.pixelcross.model.yarn.YarnCatalog;
+import com.github.wargulwb.pixelcross.utils.ColorLookupTable;
+import com.github.wargulwb.pixelcross.utils.ColorMetric;
 import com.github.wargulwb.pixelcross.utils.ColorUtils;
+import com.github.wargulwb.pixelcross.utils.IntIndexMap;
+import com.github.wargulwb.pixelcross.utils.NearestColorSearch;
 
 import jakarta.inject.Inject;
 
 public class ImageModelLoader {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageModelLoader.class);
+
+    /**
+     * Number of reductions with more clusters tried, if clusters fall into the same yarn.
+     */
+    private static final int MAX_REDUCTION_ATTEMPTS = 4;
+
     private final PixelCrossConfig config;
     private final ColorUtils colorUtils;
+    private final RasterDecoder rasterDecoder = new RasterDecoder(ForkJoinPool.commonPool());
+    private final ColorReducer colorReducer;
+    private final Ditherer ditherer = new Ditherer(ForkJoinPool.commonPool());
+    private final YarnLookupTableFactory lookupTableFactory;
+    private volatile YarnMatcher yarnMatcher; // built on first use, since the config is initialized after injection
 
     @Inject
     ImageModelLoader(final PixelCrossConfig config, final ColorUtils colorUtils) {
         this.config = Objects.requireNonNull(config, getClass().getSimpleName() + ".config cannot be null!");
         this.colorUtils = Objects.requireNonNull(colorUtils, getClass().getSimpleName() + ".colorUtils cannot be null!");
+        lookupTableFactory = new YarnLookupTableFactory(config);
+        colorReducer = new ColorReducer(ForkJoinPool.commonPool(), colorUtils);
     }
 
     public ImageModel loadImageModel(final Path imageFile) {
         Objects.requireNonNull("Parameter 'imageFile' may not be null!");
-        final BufferedImage image = loadBufferedImage(imageFile);
+        return loadImageModel(loadBufferedImage(imageFile));
+    }
+
+    /**
+     * Like {@link #loadImageModel(Path)} for an image which was already decoded.
+     */
+    public ImageModel loadImageModel(final BufferedImage image) {
+        Objects.requireNonNull(image, "Parameter 'image' may not be null!");
         final ImageModel imageModel = convertToImageModel(image);
         addYarnData(imageModel);
+        if (config.getDitheringMode() != DitheringMode.NONE) {
+            return dither(imageModel);
+        }
         return imageModel;
     }
 
+    /**
+     * Dithers the image with the yarns chosen for its colors, so the number of yarns does not grow. An image without
+     * yarns (fully transparent) is returned unchanged.
+     */
+    private ImageModel dither(final ImageModel imageModel) {
+        final long start = System.nanoTime();
+        final List<Yarn> yarns = new ArrayList<>(imageModel.getYarns());
+        if (yarns.isEmpty()) {
+            return imageModel;
+        }
+        final NearestColorSearch search = new ColorLookupTable(
+                colorUtils.createNearestNeighborIndex(
+                        config.getColorMetric(),
+                        yarns.stream().mapToInt(yarn -> yarn.getColor().getRed()).toArray(),
+                        yarns.stream().mapToInt(yarn -> yarn.getColor().getGreen()).toArray(),
+                        yarns.stream().mapToInt(yarn -> yarn.getColor().getBlue()).toArray()),
+                config.getLookupTableBits());
+        final ImageModel ditheredModel = ditherer.dither(imageModel, config.getDitheringMode(), yarns, search);
+        ditheredModel.updateYarnIndexMap();
+        LOGGER.debug("Dithered image ({}) with {} yarns in {} ms.",
+                     config.getDitheringMode().getId(),
+                     yarns.size(),
+                     (System.nanoTime() - start) / 1_000_000L);
+        return ditheredModel;
+    }
+
     private void addYarnData(final ImageModel imageModel) {
+        final long start = System.nanoTime();
         imageModel.getColors().forEach(this::addYarnData);
+        final int maxYarns = config.getMaxYarns();
+        if (maxYarns > 0 && countYarns(imageModel) > maxYarns) {
+            reduceYarns(imageModel, maxYarns);
+        }
         imageModel.updateYarnIndexMap();
+        if (LOGGER.isDebugEnabled()) {
+            final long micros = Math.max(1L, (System.nanoTime() - start) / 1000L);
+            LOGGER.debug("Matched {} colors to yarns by metric '{}' in {} ms ({} colors/s).",
+                         imageModel.getColors().size(),
+                         config.getColorMetric().getId(),
+                         micros / 1000L,
+                         imageModel.getColors().size() * 1_000_000L / micros);
+        }
     }
 
     private void addYarnData(final PixelCrossColor color) {
-        color.setYarn(pickClosestYarn(color)); // TODO solve the issue of two colors falling into the same yarn color aka color reduction
+        color.setYarn(pickClosestYarn(color));
     }
 
     private Yarn pickClosestYarn(final PixelCrossColor color) {
@@ -55,12 +131,85 @@ public class ImageModelLoader {
         if (!color.isPixelOpaque()) { // skip pixels with transparency
             return null;
         }
-        final List<Yarn> allYarns = config.getYarnSortiments()
-                .stream()
-                .map(YarnSortiment::getYarns)
-                .flatMap(Collection::stream)
-                .toList();
-        return colorUtils.getClosestNeighborByColor(color.getOriginalColor(), allYarns);
+        final Color originalColor = color.getOriginalColor();
+        return pickClosestYarn(originalColor.getRed(), originalColor.getGreen(), originalColor.getBlue());
+    }
+
+    private Yarn pickClosestYarn(final int red, final int green, final int blue) {
+        final YarnMatcher matcher = getYarnMatcher();
+        return matcher.catalog().getYarn(matcher.lookupTable().getClosestNeighborIndex(red, green, blue));
+    }
+
+    private static int countYarns(final ImageModel imageModel) {
+        final Set<Yarn> yarns = new HashSet<>();
+        for (int index = 0; index < imageModel.getColors().size(); index++) {
+            final Yarn yarn = imageModel.getPaletteColor(index).getYarn();
+            if (yarn != null && imageModel.getPaletteCount(index) > 0) {
+                yarns.add(yarn);
+            }
+        }
+        return yarns.size();
+    }
+
+    /**
+     * Clusters the opaque palette colors into at most 'maxYarns' clusters and assigns the yarn closest to the cluster
+     * color to all colors of a cluster. Since several clusters may fall into the same yarn, the clustering is repeated
+     * with more clusters while yarns are left over.
+     */
+    private void reduceYarns(final ImageModel imageModel, final int maxYarns) {
+        final long start = System.nanoTime();
+        final int[] paletteIndices = IntStream.range(0, imageModel.getColors().size())
+                .filter(index -> imageModel.getPaletteColor(index).isPixelOpaque() && imageModel.getPaletteCount(index) > 0)
+                .toArray();
+        final int[] rgbs = Arrays.stream(paletteIndices).map(index -> imageModel.getPaletteColor(index).getOriginalColor().getRGB()).toArray();
+        final int[] weights = Arrays.stream(paletteIndices).map(imageModel::getPaletteCount).toArray();
+
+        final Histogram histogram = colorReducer.prepare(rgbs, weights);
+        int clusterCount = maxYarns;
+        Yarn[] bestYarns = null; // yarn per opaque color
+        int bestYarnCount = 0;
+        for (int attempt = 0; attempt < MAX_REDUCTION_ATTEMPTS && clusterCount <= rgbs.length; attempt++) {
+            final Reduction reduction = colorReducer.reduce(histogram, clusterCount);
+            final Yarn[] clusterYarns = Arrays.stream(reduction.centroids())
+                    .mapToObj(rgb -> pickClosestYarn(rgb >> 16 & 0xFF, rgb >> 8 & 0xFF, rgb & 0xFF))
+                    .toArray(Yarn[]::new);
+            final int yarnCount = (int) Arrays.stream(clusterYarns).distinct().count();
+            if (yarnCount > maxYarns) {
+                break;
+            }
+            if (yarnCount > bestYarnCount) {
+                bestYarnCount = yarnCount;
+                bestYarns = Arrays.stream(reduction.clusters()).mapToObj(cluster -> clusterYarns[cluster]).toArray(Yarn[]::new);
+            }
+            if (yarnCount == maxYarns) {
+                break;
+            }
+            clusterCount += maxYarns - yarnCount;
+        }
+        for (int i = 0; i < paletteIndices.length; i++) {
+            imageModel.getPaletteColor(paletteIndices[i]).setYarn(bestYarns[i]);
+        }
+        LOGGER.debug("Reduced {} colors to {} yarns in {} ms.", rgbs.length, bestYarnCount, (System.nanoTime() - start) / 1_000_000L);
+    }
+
+    private YarnMatcher getYarnMatcher() {
+        YarnMatcher matcher = yarnMatcher;
+        if (matcher == null) {
+            synchronized (this) {
+                matcher = yarnMatcher;
+                if (matcher == null) {
+                    final YarnCatalog catalog = config.getYarnCatalog();
+                    final ColorMetric metric = config.getColorMetric();
+                    final ColorLookupTable lookupTable = lookupTableFactory.create(
+                            catalog,
+                            metric.getId(),
+                            colorUtils.createNearestNeighborIndex(metric, catalog.getReds(), catalog.getGreens(), catalog.getBlues()));
+                    matcher = new YarnMatcher(catalog, lookupTable);
+                    yarnMatcher = matcher;
+                }
+            }
+        }
+        return matcher;
     }
 
     private ImageModel convertToImageModel(final BufferedImage image) {
@@ -71,23 +220,16 @@ public class ImageModelLoader {
                     ErrorCode.INVALID_IMAGE_FORMAT,
                     "Image must have a width and height greater than 1 pixel, but dimension were (w:'" + width + "',h:'" + height + "')");
         }
-        final PixelCross[][] grid = new PixelCross[width][height];
-        final Map<Color, PixelCrossColor> colorMemory = new HashMap<>();
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < width; y++) {
-                final Color color = new Color(image.getRGB(x, y), true);
-                final PixelCrossColor pixelCrossColor;
-                if (!colorMemory.containsKey(color)) {
-                    pixelCrossColor = new PixelCrossColor(color);
-                    colorMemory.put(color, pixelCrossColor);
-                } else {
-                    pixelCrossColor = colorMemory.get(color);
-                }
-                grid[x][y] = new PixelCross(pixelCrossColor);
-            }
+        final DecodedRaster raster = rasterDecoder.decode(image);
+        final IntIndexMap palette = raster.palette();
+        final List<PixelCrossColor> colors = new ArrayList<>(palette.size());
+        for (int index = 0; index < palette.size(); index++) {
+            colors.add(new PixelCrossColor(new Color(palette.keyAt(index), true)));
         }
-        final List<PixelCrossColor> colors = colorMemory.values().stream().distinct().toList();
-        return new ImageModel(width, height, grid, colors);
+        return new ImageModel(PaletteIndexGrid.of(width, height, colors.size(), raster.indices()), colors, raster.paletteCounts());
+    }
+
+    private record YarnMatcher(YarnCatalog catalog, ColorLookupTable lookupTable) {
     }
 
     private BufferedImage loadBufferedImage(final Path imageFile) {
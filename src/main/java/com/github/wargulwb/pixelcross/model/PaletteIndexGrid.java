@@ -0,0 +1,204 @@
+package com.github.wargulwb.pixelcross.model;
+
+/**
+ * Row-major grid of palette indices. Depending on the size of the palette the indices are stored as bytes, shorts or
+ * ints, so each cross only takes as many bytes as the palette requires.
+ */
+abstract class PaletteIndexGrid {
+
+    private static final int BYTE_CAPACITY = 1 << Byte.SIZE;
+    private static final int SHORT_CAPACITY = 1 << Short.SIZE;
+
+    protected final int width;
+    protected final int height;
+
+    private PaletteIndexGrid(final int width, final int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Creates an empty grid which is able to hold indices for a palette of the given size.
+     */
+    static PaletteIndexGrid create(final int width, final int height, final int paletteSize) {
+        final int length = Math.multiplyExact(width, height);
+        if (paletteSize <= BYTE_CAPACITY) {
+            return new BytePaletteIndexGrid(width, height, new byte[length]);
+        }
+        if (paletteSize <= SHORT_CAPACITY) {
+            return new ShortPaletteIndexGrid(width, height, new short[length]);
+        }
+        return new IntPaletteIndexGrid(width, height, new int[length]);
+    }
+
+    /**
+     * Creates a grid from the given row-major indices, using the smallest storage type the palette size permits.
+     */
+    static PaletteIndexGrid of(final int width, final int height, final int paletteSize, final int[] indices) {
+        if (indices.length != width * height) {
+            throw new IllegalArgumentException(
+                    "Given 'indices' has length " + indices.length + " but expected is " + width * height + " (" + width + "x" + height + ")!");
+        }
+        final PaletteIndexGrid grid = create(width, height, paletteSize);
+        for (int y = 0; y < height; y++) {
+            grid.setRow(y, indices, y * width);
+        }
+        return grid;
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    int get(final int x, final int y) {
+        return get(y * width + x);
+    }
+
+    void set(final int x, final int y, final int index) {
+        set(y * width + x, index);
+    }
+
+    /**
+     * Copies the indices of row 'y' into 'target' starting at 'targetOffset'.
+     */
+    abstract void getRow(int y, int[] target, int targetOffset);
+
+    /**
+     * Overwrites the indices of row 'y' with the values of 'source' starting at 'sourceOffset'.
+     */
+    abstract void setRow(int y, int[] source, int sourceOffset);
+
+    /**
+     * @return the maximal palette size this grid can address
+     */
+    abstract int capacity();
+
+    abstract int get(int offset);
+
+    abstract void set(int offset, int index);
+
+    private static final class BytePaletteIndexGrid extends PaletteIndexGrid {
+
+        private final byte[] indices;
+
+        private BytePaletteIndexGrid(final int width, final int height, final byte[] indices) {
+            super(width, height);
+            this.indices = indices;
+        }
+
+        @Override
+        void getRow(final int y, final int[] target, final int targetOffset) {
+            final int rowOffset = y * width;
+            for (int x = 0; x < width; x++) {
+                target[targetOffset + x] = indices[rowOffset + x] & 0xFF;
+            }
+        }
+
+        @Override
+        void setRow(final int y, final int[] source, final int sourceOffset) {
+            final int rowOffset = y * width;
+            for (int x = 0; x < width; x++) {
+                indices[rowOffset + x] = (byte) source[sourceOffset + x];
+            }
+        }
+
+        @Override
+        int capacity() {
+            return BYTE_CAPACITY;
+        }
+
+        @Override
+        int get(final int offset) {
+            return indices[offset] & 0xFF;
+        }
+
+        @Override
+        void set(final int offset, final int index) {
+            indices[offset] = (byte) index;
+        }
+
+    }
+
+    private static final class ShortPaletteIndexGrid extends PaletteIndexGrid {
+
+        private final short[] indices;
+
+        private ShortPaletteIndexGrid(final int width, final int height, final short[] indices) {
+            super(width, height);
+            this.indices = indices;
+        }
+
+        @Override
+        void getRow(final int y, final int[] target, final int targetOffset) {
+            final int rowOffset = y * width;
+            for (int x = 0; x < width; x++) {
+                target[targetOffset + x] = indices[rowOffset + x] & 0xFFFF;
+            }
+        }
+
+        @Override
+        void setRow(final int y, final int[] source, final int sourceOffset) {
+            final int rowOffset = y * width;
+            for (int x = 0; x < width; x++) {
+                indices[rowOffset + x] = (short) source[sourceOffset + x];
+            }
+        }
+
+        @Override
+        int capacity() {
+            return SHORT_CAPACITY;
+        }
+
+        @Override
+        int get(final int offset) {
+            return indices[offset] & 0xFFFF;
+        }
+
+        @Override
+        void set(final int offset, final int index) {
+            indices[offset] = (short) index;
+        }
+
+    }
+
+    private static final class IntPaletteIndexGrid extends PaletteIndexGrid {
+
+        private final int[] indices;
+
+        private IntPaletteIndexGrid(final int width, final int height, final int[] indices) {
+            super(width, height);
+            this.indices = indices;
+        }
+
+        @Override
+        void getRow(final int y, final int[] target, final int targetOffset) {
+            System.arraycopy(indices, y * width, target, targetOffset, width);
+        }
+
+        @Override
+        void setRow(final int y, final int[] source, final int sourceOffset) {
+            System.arraycopy(source, sourceOffset, indices, y * width, width);
+        }
+
+        @Override
+        int capacity() {
+            return Integer.MAX_VALUE;
+        }
+
+        @Override
+        int get(final int offset) {
+            return indices[offset];
+        }
+
+        @Override
+        void set(final int offset, final int index) {
+            indices[offset] = index;
+        }
+
+    }
+
+}
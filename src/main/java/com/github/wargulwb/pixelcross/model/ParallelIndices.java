@@ -0,0 +1,57 @@
+package com.github.wargulwb.pixelcross.model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs an action for each index of a range on a {@link ForkJoinPool}, e.g. for each band of rows of an image. The
+ * range is split in halves until single indices remain, so idle threads steal the larger halves.
+ */
+final class ParallelIndices {
+
+    private ParallelIndices() {
+        // hide constructor
+    }
+
+    /**
+     * Calls the action for each index in [0, count) and returns once all calls finished, on the calling thread only if
+     * there is at most one index or the pool has a parallelism of 1.
+     */
+    static void forEachIndex(final ForkJoinPool pool, final int count, final IntConsumer action) {
+        if (count <= 1 || pool.getParallelism() == 1) {
+            for (int index = 0; index < count; index++) {
+                action.accept(index);
+            }
+            return;
+        }
+        pool.invoke(new IndexAction(0, count, action));
+    }
+
+    private static final class IndexAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 202610180630L;
+
+        private final int fromIndex;
+        private final int toIndex;
+        private final transient IntConsumer action;
+
+        private IndexAction(final int fromIndex, final int toIndex, final IntConsumer action) {
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (toIndex - fromIndex == 1) {
+                action.accept(fromIndex);
+                return;
+            }
+            final int middle = (fromIndex + toIndex) >>> 1;
+            invokeAll(new IndexAction(fromIndex, middle, action), new IndexAction(middle, toIndex, action));
+        }
+
+    }
+
+}
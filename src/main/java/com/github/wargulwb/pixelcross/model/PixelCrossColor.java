@@ -8,7 +8,7 @@ import com.github.wargulwb.pixelcross.model.yarn.Yarn;
 public class PixelCrossColor {
 
     private final Color pixelColor;
-    private Yarn yarn; // unfortunately modifiable
+    private Yarn yarn; // only set by the loader, read-only once the model was loaded
 
     public PixelCrossColor(final Color color) {
         pixelColor = Objects.requireNonNull(color, "Parameter 'color' cannot be null!");
@@ -22,7 +22,7 @@ public class PixelCrossColor {
         return yarn;
     }
 
-    public PixelCrossColor setYarn(final Yarn yarn) {
+    PixelCrossColor setYarn(final Yarn yarn) {
         this.yarn = yarn;
         return this;
     }
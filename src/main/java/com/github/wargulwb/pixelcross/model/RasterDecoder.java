@@ -0,0 +1,136 @@
+package com.github.wargulwb.pixelcross.model;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+import com.github.wargulwb.pixelcross.utils.IntIndexMap;
+
+/**
+ * Decodes a {@link BufferedImage} into row-major palette indices, the palette of distinct ARGB colors and the number of
+ * pixels per palette color. The palette is ordered by first occurrence (row by row, left to right).
+ * <p>
+ * Large images are decoded in parallel: the image is split into bands of rows, each band builds a local palette, and
+ * the local palettes are merged in band order afterwards. Since the band layout only depends on the image dimension
+ * and the merge preserves the order of first occurrence, the result is identical to the sequential decoding regardless
+ * of the number of threads.
+ */
+class RasterDecoder {
+
+    /**
+     * Images with less pixels are decoded sequentially, since the overhead of forking would outweigh the gain.
+     */
+    private static final int PARALLEL_THRESHOLD_PIXELS = 1 << 18;
+    private static final int BAND_PIXELS = 1 << 16;
+
+    private final ForkJoinPool pool;
+
+    RasterDecoder(final ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool, getClass().getSimpleName() + ".pool cannot be null!");
+    }
+
+    DecodedRaster decode(final BufferedImage image) {
+        final long pixelCount = (long) image.getWidth() * image.getHeight();
+        if (pixelCount < PARALLEL_THRESHOLD_PIXELS || pool.getParallelism() == 1) {
+            return decodeSequential(image);
+        }
+        return decodeParallel(image);
+    }
+
+    DecodedRaster decodeSequential(final BufferedImage image) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final int[] indices = new int[Math.multiplyExact(width, height)];
+        final BandPalette palette = new BandPalette();
+        decodeRows(RasterRowReader.of(image), 0, height, width, indices, palette);
+        return new DecodedRaster(width, height, indices, palette.colors, palette.countsTrimmed());
+    }
+
+    DecodedRaster decodeParallel(final BufferedImage image) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final int[] indices = new int[Math.multiplyExact(width, height)];
+        final RasterRowReader rowReader = RasterRowReader.of(image);
+        final int rowsPerBand = Math.max(1, BAND_PIXELS / width);
+        final int bandCount = (height + rowsPerBand - 1) / rowsPerBand;
+
+        // 1. decode each band with its own local palette
+        final BandPalette[] bandPalettes = new BandPalette[bandCount];
+        ParallelIndices.forEachIndex(pool, bandCount, band -> {
+            final BandPalette bandPalette = new BandPalette();
+            final int fromRow = band * rowsPerBand;
+            decodeRows(rowReader, fromRow, Math.min(fromRow + rowsPerBand, height), width, indices, bandPalette);
+            bandPalettes[band] = bandPalette;
+        });
+
+        // 2. merge the local palettes in band order, which keeps the global order of first occurrence
+        final BandPalette palette = new BandPalette();
+        final int[][] translations = new int[bandCount][];
+        for (int band = 0; band < bandCount; band++) {
+            final BandPalette bandPalette = bandPalettes[band];
+            final int[] translation = new int[bandPalette.colors.size()];
+            for (int localIndex = 0; localIndex < translation.length; localIndex++) {
+                translation[localIndex] = palette.add(bandPalette.colors.keyAt(localIndex), bandPalette.counts[localIndex]);
+            }
+            translations[band] = translation;
+        }
+
+        // 3. translate the local indices to global ones
+        ParallelIndices.forEachIndex(pool, bandCount, band -> {
+            final int[] translation = translations[band];
+            final int from = band * rowsPerBand * width;
+            final int to = Math.min((band + 1) * rowsPerBand, height) * width;
+            for (int i = from; i < to; i++) {
+                indices[i] = translation[indices[i]];
+            }
+        });
+        return new DecodedRaster(width, height, indices, palette.colors, palette.countsTrimmed());
+    }
+
+    private static void decodeRows(final RasterRowReader rowReader,
+                                   final int fromRow,
+                                   final int toRow,
+                                   final int width,
+                                   final int[] indices,
+                                   final BandPalette palette) {
+        for (int y = fromRow; y < toRow; y++) {
+            final int rowOffset = y * width;
+            rowReader.readRow(y, indices, rowOffset); // read packed ARGB, replaced by palette indices below
+            for (int i = rowOffset; i < rowOffset + width; i++) {
+                indices[i] = palette.add(indices[i], 1);
+            }
+        }
+    }
+
+    /**
+     * Result of the decoding, 'indices' refer to the keys of 'palette' which are non premultiplied ARGB values.
+     * 'paletteCounts' holds the number of pixels per palette index.
+     */
+    record DecodedRaster(int width, int height, int[] indices, IntIndexMap palette, int[] paletteCounts) {
+    }
+
+    /**
+     * Palette of a band (or of the whole image) together with its histogram.
+     */
+    private static final class BandPalette {
+
+        private final IntIndexMap colors = new IntIndexMap();
+        private int[] counts = new int[64];
+
+        private int add(final int argb, final int count) {
+            final int index = colors.add(argb);
+            if (index == counts.length) {
+                counts = Arrays.copyOf(counts, counts.length * 2);
+            }
+            counts[index] += count;
+            return index;
+        }
+
+        private int[] countsTrimmed() {
+            return Arrays.copyOf(counts, colors.size());
+        }
+
+    }
+
+}
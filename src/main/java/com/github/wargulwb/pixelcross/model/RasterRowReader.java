@@ -0,0 +1,147 @@
+package com.github.wargulwb.pixelcross.model;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SinglePixelPackedSampleModel;
+
+/**
+ * Reads whole rows of a {@link BufferedImage} as packed (non premultiplied) ARGB ints. For the image types
+ * {@link javax.imageio.ImageIO} typically produces the backing {@link java.awt.image.DataBuffer} is read directly,
+ * for all other types this falls back to the row wise {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)}.
+ */
+abstract class RasterRowReader {
+
+    private static final int OPAQUE = 0xFF000000;
+
+    protected final int width;
+
+    private RasterRowReader(final int width) {
+        this.width = width;
+    }
+
+    static RasterRowReader of(final BufferedImage image) {
+        final Raster raster = image.getRaster();
+        switch (image.getType()) {
+            case BufferedImage.TYPE_INT_ARGB:
+            case BufferedImage.TYPE_INT_RGB:
+                if (raster.getDataBuffer() instanceof DataBufferInt
+                    && raster.getSampleModel() instanceof SinglePixelPackedSampleModel) {
+                    return new IntRowReader(image, image.getType() == BufferedImage.TYPE_INT_RGB);
+                }
+                break;
+            case BufferedImage.TYPE_4BYTE_ABGR:
+            case BufferedImage.TYPE_3BYTE_BGR:
+                if (raster.getDataBuffer() instanceof DataBufferByte
+                    && raster.getSampleModel() instanceof ComponentSampleModel) {
+                    return new ByteRowReader(image, image.getType() == BufferedImage.TYPE_4BYTE_ABGR);
+                }
+                break;
+            default:
+                break;
+        }
+        return new GenericRowReader(image);
+    }
+
+    /**
+     * Reads row 'y' of the image into 'target' starting at 'targetOffset'.
+     */
+    abstract void readRow(int y, int[] target, int targetOffset);
+
+    private static final class IntRowReader extends RasterRowReader {
+
+        private final int[] data;
+        private final int offset;
+        private final int scanlineStride;
+        private final int alphaMask;
+
+        private IntRowReader(final BufferedImage image, final boolean ignoreAlpha) {
+            super(image.getWidth());
+            final Raster raster = image.getRaster();
+            final SinglePixelPackedSampleModel sampleModel = (SinglePixelPackedSampleModel) raster.getSampleModel();
+            final DataBufferInt dataBuffer = (DataBufferInt) raster.getDataBuffer();
+            data = dataBuffer.getData();
+            scanlineStride = sampleModel.getScanlineStride();
+            offset = dataBuffer.getOffset()
+                     + sampleModel.getOffset(-raster.getSampleModelTranslateX(), -raster.getSampleModelTranslateY());
+            alphaMask = ignoreAlpha ? OPAQUE : 0;
+        }
+
+        @Override
+        void readRow(final int y, final int[] target, final int targetOffset) {
+            final int rowOffset = offset + y * scanlineStride;
+            if (alphaMask == 0) {
+                System.arraycopy(data, rowOffset, target, targetOffset, width);
+                return;
+            }
+            for (int x = 0; x < width; x++) {
+                target[targetOffset + x] = data[rowOffset + x] | alphaMask;
+            }
+        }
+
+    }
+
+    private static final class ByteRowReader extends RasterRowReader {
+
+        private final byte[] data;
+        private final int offset;
+        private final int scanlineStride;
+        private final int pixelStride;
+        private final int redOffset;
+        private final int greenOffset;
+        private final int blueOffset;
+        private final int alphaOffset;
+
+        private ByteRowReader(final BufferedImage image, final boolean hasAlpha) {
+            super(image.getWidth());
+            final Raster raster = image.getRaster();
+            final ComponentSampleModel sampleModel = (ComponentSampleModel) raster.getSampleModel();
+            final DataBufferByte dataBuffer = (DataBufferByte) raster.getDataBuffer();
+            final int[] bandOffsets = sampleModel.getBandOffsets();
+            data = dataBuffer.getData();
+            scanlineStride = sampleModel.getScanlineStride();
+            pixelStride = sampleModel.getPixelStride();
+            // ComponentSampleModel.getOffset(x, y) already adds the first band offset, hence computed manually
+            offset = dataBuffer.getOffset()
+                     - raster.getSampleModelTranslateY() * scanlineStride
+                     - raster.getSampleModelTranslateX() * pixelStride;
+            redOffset = bandOffsets[0];
+            greenOffset = bandOffsets[1];
+            blueOffset = bandOffsets[2];
+            alphaOffset = hasAlpha ? bandOffsets[3] : -1;
+        }
+
+        @Override
+        void readRow(final int y, final int[] target, final int targetOffset) {
+            int pixelOffset = offset + y * scanlineStride;
+            for (int x = 0; x < width; x++) {
+                final int alpha = alphaOffset < 0 ? 0xFF : data[pixelOffset + alphaOffset] & 0xFF;
+                target[targetOffset + x] = alpha << 24
+                                           | (data[pixelOffset + redOffset] & 0xFF) << 16
+                                           | (data[pixelOffset + greenOffset] & 0xFF) << 8
+                                           | data[pixelOffset + blueOffset] & 0xFF;
+                pixelOffset += pixelStride;
+            }
+        }
+
+    }
+
+    private static final class GenericRowReader extends RasterRowReader {
+
+        private final BufferedImage image;
+
+        private GenericRowReader(final BufferedImage image) {
+            super(image.getWidth());
+            this.image = image;
+        }
+
+        @Override
+        void readRow(final int y, final int[] target, final int targetOffset) {
+            image.getRGB(0, y, width, 1, target, targetOffset, width);
+        }
+
+    }
+
+}
@@ -0,0 +1,187 @@
+package com.github.wargulwb.pixelcross.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.wargulwb.pixelcross.config.PixelCrossConfig;
+import com.github.wargulwb.pixelcross.model.yarn.Yarn;
+import com.github.wargulwb.pixelcross.model.yarn.YarnCatalog;
+import com.github.wargulwb.pixelcross.utils.ColorLookupTable;
+import com.github.wargulwb.pixelcross.utils.NearestColorSearch;
+
+/**
+ * Creates the color to yarn {@link ColorLookupTable} as configured. If the table is configured to be persistent, it is
+ * backed by a memory mapped file in the 'cache' sub directory of the config directory, so the matches are shared by
+ * all jobs using the same yarns. The file name contains a fingerprint of the yarns, the distance metric and the key
+ * size; once any of them changes (e.g. 'pixelcross.config.xml' was edited) a new file is built. The files of the
+ * last few other configs are kept, older ones are removed.
+ */
+class YarnLookupTableFactory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(YarnLookupTableFactory.class);
+
+    private static final String CACHE_DIRECTORY = "cache";
+    private static final String FILE_PREFIX = "yarnlookup-";
+    private static final String FILE_SUFFIX = ".bin";
+    private static final byte[] MAGIC = "PXCLUT01".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_SIZE = 64; // magic, fingerprint, bits per channel, zero padding
+    private static final int KEPT_STALE_FILES = 3;
+
+    private final PixelCrossConfig config;
+
+    YarnLookupTableFactory(final PixelCrossConfig config) {
+        this.config = config;
+    }
+
+    ColorLookupTable create(final YarnCatalog catalog, final String metricId, final NearestColorSearch search) {
+        final int bitsPerChannel = config.getLookupTableBits();
+        final ColorLookupTable lookupTable = openPersistent(catalog, metricId, search, bitsPerChannel)
+                .orElseGet(() -> new ColorLookupTable(search, bitsPerChannel));
+        if (config.isPrefillLookupTable()) {
+            lookupTable.prefill();
+        }
+        return lookupTable;
+    }
+
+    private Optional<ColorLookupTable> openPersistent(final YarnCatalog catalog,
+                                                      final String metricId,
+                                                      final NearestColorSearch search,
+                                                      final int bitsPerChannel) {
+        if (!config.isPersistentLookupTable()) {
+            return Optional.empty();
+        }
+        final Optional<Path> configDirectory = config.getConfigDirectory();
+        if (configDirectory.isEmpty()) {
+            LOGGER.debug("No config directory in use, color to yarn lookup table is kept in memory only.");
+            return Optional.empty();
+        }
+        final byte[] fingerprint = fingerprint(catalog, metricId, bitsPerChannel);
+        final Path cacheDirectory = configDirectory.get().resolve(CACHE_DIRECTORY);
+        final Path file = cacheDirectory.resolve(FILE_PREFIX + HexFormat.of().formatHex(fingerprint, 0, 16) + FILE_SUFFIX);
+        try {
+            Files.createDirectories(cacheDirectory);
+            final ColorLookupTable lookupTable = openFile(file, fingerprint, search, bitsPerChannel);
+            // marks the table as recently used, writes through the mapping do not reliably update the time
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+            deleteStaleFiles(cacheDirectory, file);
+            LOGGER.debug("Using color to yarn lookup table '{}'.", file);
+            return Optional.of(lookupTable);
+        } catch (final IOException exc) {
+            LOGGER.warn("Failed to open color to yarn lookup table '" + file + "', keeping it in memory only.", exc);
+            return Optional.empty();
+        }
+    }
+
+    private static ColorLookupTable openFile(final Path file,
+                                             final byte[] fingerprint,
+                                             final NearestColorSearch search,
+                                             final int bitsPerChannel)
+            throws IOException {
+        final long fileSize = HEADER_SIZE + ColorLookupTable.getStoreSize(bitsPerChannel);
+        // the mapping stays valid after the channel was closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final FileLock lock = channel.lock(); // other processes might create the same file right now
+            try {
+                final ByteBuffer expectedHeader = createHeader(fingerprint, bitsPerChannel);
+                if (channel.size() != fileSize || !expectedHeader.equals(readHeader(channel))) {
+                    LOGGER.debug("(Re)building color to yarn lookup table '{}'.", file);
+                    channel.truncate(0);
+                    channel.write(expectedHeader, 0);
+                    // extending the file fills it with zeros, i.e. empty entries (sparse where supported)
+                    channel.write(ByteBuffer.allocate(1), fileSize - 1);
+                }
+            } finally {
+                lock.release();
+            }
+            return ColorLookupTable.mapped(search, bitsPerChannel, channel, HEADER_SIZE);
+        }
+    }
+
+    private static ByteBuffer createHeader(final byte[] fingerprint, final int bitsPerChannel) {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(MAGIC).put(fingerprint).putInt(bitsPerChannel);
+        header.clear();
+        return header;
+    }
+
+    private static ByteBuffer readHeader(final FileChannel channel) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // keep reading
+        }
+        header.clear();
+        return header;
+    }
+
+    /**
+     * Deletes the tables of other yarns, metrics or key sizes except for the {@value #KEPT_STALE_FILES} most recently
+     * used ones, so switching between a few configs does not rebuild the tables over and over again.
+     */
+    private static void deleteStaleFiles(final Path cacheDirectory, final Path currentFile) {
+        final Map<Path, FileTime> staleFiles = new HashMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDirectory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (final Path file : files) {
+                if (!file.getFileName().equals(currentFile.getFileName())) {
+                    staleFiles.put(file, Files.getLastModifiedTime(file));
+                }
+            }
+        } catch (final IOException exc) {
+            LOGGER.debug("Failed to list stale color to yarn lookup tables in '" + cacheDirectory + "'.", exc);
+            return;
+        }
+        staleFiles.entrySet()
+                .stream()
+                .sorted(Map.Entry.<Path, FileTime> comparingByValue().reversed())
+                .skip(KEPT_STALE_FILES)
+                .map(Map.Entry::getKey)
+                .forEach(file -> {
+                    try {
+                        LOGGER.debug("Deleting stale color to yarn lookup table '{}'.", file);
+                        Files.deleteIfExists(file);
+                    } catch (final IOException exc) {
+                        // might be in use by another process, which is fine
+                        LOGGER.debug("Failed to delete stale color to yarn lookup table '" + file + "'.", exc);
+                    }
+                });
+    }
+
+    private static byte[] fingerprint(final YarnCatalog catalog, final String metricId, final int bitsPerChannel) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException exc) {
+            throw new IllegalStateException("SHA-256 is not supported by this JVM!", exc);
+        }
+        final StringBuilder content = new StringBuilder()
+                .append("metric=").append(metricId)
+                .append(";bits=").append(bitsPerChannel)
+                .append(";yarns=").append(catalog.size());
+        for (final Yarn yarn : catalog.getYarns()) {
+            content.append(';')
+                    .append(yarn.getYarnSortiment().getProducer()).append('|')
+                    .append(yarn.getYarnSortiment().getName().orElse("")).append('|')
+                    .append(yarn.getId()).append('|')
+                    .append(yarn.getColor().getRGB());
+        }
+        return digest.digest(content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+}
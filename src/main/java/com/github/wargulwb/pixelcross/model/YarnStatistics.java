@@ -0,0 +1,101 @@
+package com.github.wargulwb.pixelcross.model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.github.wargulwb.pixelcross.model.yarn.Yarn;
+
+/**
+ * Immutable cross statistics of an {@link ImageModel}: how many crosses each yarn covers, the (symbol) index of each
+ * yarn and the number of opaque crosses. Built from the per palette color histogram, so creating it does not touch
+ * the grid.
+ */
+public class YarnStatistics {
+
+    private final Map<Yarn, YarnData> yarnData;
+    private final int[] paletteCounts;
+    private final int opaqueCrossCount;
+
+    private YarnStatistics(final Map<Yarn, YarnData> yarnData, final int[] paletteCounts, final int opaqueCrossCount) {
+        this.yarnData = Collections.unmodifiableMap(yarnData);
+        this.paletteCounts = paletteCounts;
+        this.opaqueCrossCount = opaqueCrossCount;
+    }
+
+    /**
+     * Aggregates the histogram of the palette to yarns. Yarns are indexed (starting at 1) in the order they first
+     * occur in the given order of the palette, transparent palette colors are not counted.
+     *
+     * @param colors
+     *            palette with assigned yarns
+     * @param paletteCounts
+     *            number of crosses per palette index
+     * @param order
+     *            palette indices of all used palette colors in the order to index their yarns in
+     */
+    static YarnStatistics of(final List<PixelCrossColor> colors, final int[] paletteCounts, final int[] order) {
+        if (colors.size() != paletteCounts.length) {
+            throw new IllegalArgumentException(
+                    "Palette has " + colors.size() + " colors but histogram has " + paletteCounts.length + " entries!");
+        }
+        final Map<Yarn, YarnData> yarnData = new LinkedHashMap<>();
+        int opaqueCrossCount = 0;
+        for (final int paletteIndex : order) {
+            final PixelCrossColor color = colors.get(paletteIndex);
+            final int count = paletteCounts[paletteIndex];
+            if (!color.isPixelOpaque() || count == 0) {
+                continue;
+            }
+            opaqueCrossCount += count;
+            final YarnData data = yarnData.get(color.getYarn());
+            if (data == null) {
+                yarnData.put(color.getYarn(), new YarnData(yarnData.size() + 1, count));
+            } else {
+                yarnData.put(color.getYarn(), new YarnData(data.index(), data.crossCount() + count));
+            }
+        }
+        return new YarnStatistics(yarnData, paletteCounts.clone(), opaqueCrossCount);
+    }
+
+    /**
+     * @return index of the yarn starting at 1, or -1 if the yarn is not used
+     */
+    public int getYarnIndex(final Yarn yarn) {
+        return Optional.ofNullable(yarnData.get(yarn))
+                .map(YarnData::index)
+                .orElse(-1);
+    }
+
+    public int getCrossCount(final Yarn yarn) {
+        return Optional.ofNullable(yarnData.get(yarn))
+                .map(YarnData::crossCount)
+                .orElse(0);
+    }
+
+    public int getPaletteCrossCount(final int paletteIndex) {
+        return paletteCounts[paletteIndex];
+    }
+
+    public int getOpaqueCrossCount() {
+        return opaqueCrossCount;
+    }
+
+    public int getYarnCount() {
+        return yarnData.size();
+    }
+
+    /**
+     * @return used yarns in index order
+     */
+    public Collection<Yarn> getYarns() {
+        return yarnData.keySet();
+    }
+
+    private record YarnData(int index, int crossCount) {
+    }
+
+}
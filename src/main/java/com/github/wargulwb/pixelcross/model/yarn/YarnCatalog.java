@@ -0,0 +1,117 @@
+package com.github.wargulwb.pixelcross.model.yarn;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable, flattened view of all yarns of a list of {@link YarnSortiment}s. Each yarn has a stable ordinal (its
+ * position in the flattened list), the RGB channels of the yarn colors are held as structure of arrays indexed by the
+ * ordinal, and the yarns of each sortiment form a contiguous ordinal range.
+ */
+public class YarnCatalog {
+
+    private final List<Yarn> yarns;
+    private final Map<Yarn, Integer> ordinals = new IdentityHashMap<>();
+    private final List<SortimentRange> sortimentRanges;
+    private final int[] reds;
+    private final int[] greens;
+    private final int[] blues;
+
+    private YarnCatalog(final List<YarnSortiment> sortiments) {
+        final List<Yarn> allYarns = new ArrayList<>();
+        final List<SortimentRange> ranges = new ArrayList<>();
+        for (final YarnSortiment sortiment : sortiments) {
+            final int from = allYarns.size();
+            allYarns.addAll(sortiment.getYarns());
+            ranges.add(new SortimentRange(sortiment, from, allYarns.size()));
+        }
+        yarns = List.copyOf(allYarns);
+        sortimentRanges = Collections.unmodifiableList(ranges);
+        reds = new int[yarns.size()];
+        greens = new int[yarns.size()];
+        blues = new int[yarns.size()];
+        for (int ordinal = 0; ordinal < yarns.size(); ordinal++) {
+            final Yarn yarn = yarns.get(ordinal);
+            final Color color = yarn.getColor();
+            reds[ordinal] = color.getRed();
+            greens[ordinal] = color.getGreen();
+            blues[ordinal] = color.getBlue();
+            ordinals.putIfAbsent(yarn, ordinal);
+        }
+    }
+
+    public static YarnCatalog of(final List<YarnSortiment> sortiments) {
+        return new YarnCatalog(sortiments);
+    }
+
+    public int size() {
+        return yarns.size();
+    }
+
+    public Yarn getYarn(final int ordinal) {
+        return yarns.get(ordinal);
+    }
+
+    /**
+     * @return all yarns ordered by ordinal
+     */
+    public List<Yarn> getYarns() {
+        return yarns;
+    }
+
+    /**
+     * @return the ordinal of the given yarn, empty if the yarn is not part of this catalog
+     */
+    public Optional<Integer> getOrdinal(final Yarn yarn) {
+        return Optional.ofNullable(ordinals.get(yarn));
+    }
+
+    public int getRed(final int ordinal) {
+        return reds[ordinal];
+    }
+
+    public int getGreen(final int ordinal) {
+        return greens[ordinal];
+    }
+
+    public int getBlue(final int ordinal) {
+        return blues[ordinal];
+    }
+
+    /**
+     * @return copy of the red channels of all yarns, indexed by ordinal
+     */
+    public int[] getReds() {
+        return reds.clone();
+    }
+
+    /**
+     * @return copy of the green channels of all yarns, indexed by ordinal
+     */
+    public int[] getGreens() {
+        return greens.clone();
+    }
+
+    /**
+     * @return copy of the blue channels of all yarns, indexed by ordinal
+     */
+    public int[] getBlues() {
+        return blues.clone();
+    }
+
+    public List<SortimentRange> getSortimentRanges() {
+        return sortimentRanges;
+    }
+
+    /**
+     * Ordinals [from, to) of the yarns of a sortiment.
+     */
+    public record SortimentRange(YarnSortiment sortiment, int from, int to) {
+    }
+
+}
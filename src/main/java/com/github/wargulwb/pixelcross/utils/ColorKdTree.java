@@ -0,0 +1,179 @@
+package com.github.wargulwb.pixelcross.utils;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Static k-d tree over a list of RGB colors, answering nearest neighbor queries by euclidean RGB distance. The result
+ * is exactly the one of {@link ColorUtils#getClosestNeighborByColor(Color, List)}, including ties, which are resolved
+ * in favor of the color coming first in the list.
+ * <p>
+ * The tree is stored implicitly in flat arrays: the node of the range [from, to) is the element in the middle of the
+ * range, its left subtree is [from, middle) and its right subtree is (middle, to).
+ */
+public class ColorKdTree implements NearestColorSearch {
+
+    private static final int LEAF_SIZE = 8;
+    private static final int AXIS_LEAF = -1;
+
+    private final int[][] channels; // red, green, blue, ordered by tree position
+    private final int[] listIndices; // index into the list of colors, ordered by tree position
+    private final byte[] splitAxes; // split axis of the node at the tree position
+
+    /**
+     * Builds the tree over the colors given as channel arrays, index i of all arrays is the i-th color.
+     */
+    ColorKdTree(final int[] reds, final int[] greens, final int[] blues) {
+        if (reds.length == 0 || reds.length != greens.length || reds.length != blues.length) {
+            throw new IllegalArgumentException("Given channels must not be empty and need to be of equal length!");
+        }
+        final int size = reds.length;
+        channels = new int[][] { reds.clone(), greens.clone(), blues.clone() };
+        listIndices = new int[size];
+        splitAxes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            listIndices[i] = i;
+        }
+        build(0, size);
+    }
+
+    private void build(final int from, final int to) {
+        if (to - from <= LEAF_SIZE) {
+            Arrays.fill(splitAxes, from, to, (byte) AXIS_LEAF);
+            return;
+        }
+        final int axis = widestAxis(from, to);
+        final int middle = (from + to) >>> 1;
+        select(from, to, middle, axis);
+        splitAxes[middle] = (byte) axis;
+        build(from, middle);
+        build(middle + 1, to);
+    }
+
+    private int widestAxis(final int from, final int to) {
+        int widestAxis = 0;
+        int widestSpread = -1;
+        for (int axis = 0; axis < 3; axis++) {
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int i = from; i < to; i++) {
+                min = Math.min(min, channels[axis][i]);
+                max = Math.max(max, channels[axis][i]);
+            }
+            if (max - min > widestSpread) {
+                widestSpread = max - min;
+                widestAxis = axis;
+            }
+        }
+        return widestAxis;
+    }
+
+    /**
+     * Quickselect, afterwards the element at 'k' has no smaller element after and no bigger element before it.
+     */
+    private void select(final int from, final int to, final int k, final int axis) {
+        int left = from;
+        int right = to - 1;
+        final int[] values = channels[axis];
+        while (left < right) {
+            final int pivot = values[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(final int i, final int j) {
+        for (final int[] channel : channels) {
+            final int value = channel[i];
+            channel[i] = channel[j];
+            channel[j] = value;
+        }
+        final int index = listIndices[i];
+        listIndices[i] = listIndices[j];
+        listIndices[j] = index;
+    }
+
+    /**
+     * @return the index (within the list the tree was built from) of the color closest to the given color
+     */
+    @Override
+    public int getClosestNeighborIndex(final int red, final int green, final int blue) {
+        final Search search = new Search(red, green, blue);
+        search(search, 0, listIndices.length);
+        return search.bestIndex;
+    }
+
+    private void search(final Search search, final int from, final int to) {
+        if (from >= to) {
+            return;
+        }
+        final int middle = (from + to) >>> 1;
+        final int axis = splitAxes[middle];
+        if (axis == AXIS_LEAF) {
+            for (int i = from; i < to; i++) {
+                search.offer(i);
+            }
+            return;
+        }
+        search.offer(middle);
+        final int delta = search.query[axis] - channels[axis][middle];
+        // visit the side of the query first, the other side only if the splitting plane is not farther than the best
+        if (delta < 0) {
+            search(search, from, middle);
+            if (delta * delta <= search.bestDistance) {
+                search(search, middle + 1, to);
+            }
+        } else {
+            search(search, middle + 1, to);
+            if (delta * delta <= search.bestDistance) {
+                search(search, from, middle);
+            }
+        }
+    }
+
+    private final class Search {
+
+        private final int[] query;
+        private int bestDistance = Integer.MAX_VALUE;
+        private int bestIndex = Integer.MAX_VALUE;
+
+        private Search(final int red, final int green, final int blue) {
+            query = new int[] { red, green, blue };
+        }
+
+        private void offer(final int treePosition) {
+            final int redDistance = query[0] - channels[0][treePosition];
+            final int greenDistance = query[1] - channels[1][treePosition];
+            final int blueDistance = query[2] - channels[2][treePosition];
+            final int distance = redDistance * redDistance + greenDistance * greenDistance + blueDistance * blueDistance;
+            final int index = listIndices[treePosition];
+            if (distance < bestDistance || distance == bestDistance && index < bestIndex) {
+                bestDistance = distance;
+                bestIndex = index;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,187 @@
+package com.github.wargulwb.pixelcross.utils;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+/**
+ * Lookup table caching the answers of a {@link NearestColorSearch}, keyed by the RGB color quantized to
+ * 'bitsPerChannel' bits per channel. With 8 bits per channel the table is exact, with less bits each entry holds the
+ * answer for the center of the quantization cell.
+ * <p>
+ * Entries are filled lazily on lookup or eagerly (in parallel) via {@link #prefill()}. They are either held in memory,
+ * split into pages which are only allocated once a color of the page is looked up, or in a memory mapped file (see
+ * {@link #mapped(NearestColorSearch, int, FileChannel, long)}) so they survive the JVM. Concurrent lookups are safe:
+ * racing threads (or processes) can only ever write the same value into an entry.
+ */
+public class ColorLookupTable implements NearestColorSearch {
+
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final short EMPTY = 0; // entries hold the index + 1
+    private static final int MAX_INDEX = Short.MAX_VALUE * 2;
+
+    private final NearestColorSearch search;
+    private final int bitsPerChannel;
+    private final int shift;
+    private final EntryStore store;
+
+    /**
+     * Creates a table held in memory.
+     *
+     * @param search
+     *            search to cache, it may not answer with indices bigger than 65534
+     * @param bitsPerChannel
+     *            bits per channel used as key, in range [1, 8]
+     */
+    public ColorLookupTable(final NearestColorSearch search, final int bitsPerChannel) {
+        this(search, bitsPerChannel, new PagedEntryStore(getEntryCount(bitsPerChannel)));
+    }
+
+    private ColorLookupTable(final NearestColorSearch search, final int bitsPerChannel, final EntryStore store) {
+        this.search = Objects.requireNonNull(search, getClass().getSimpleName() + ".search cannot be null!");
+        this.bitsPerChannel = bitsPerChannel;
+        this.store = store;
+        shift = 8 - bitsPerChannel;
+    }
+
+    /**
+     * Creates a table whose entries are stored in the given file channel, starting at 'offset'. The file has to be
+     * dedicated to the given search and bits per channel, entries already present in the file are trusted.
+     *
+     * @return table backed by a memory mapped region of {@link #getStoreSize(int)} bytes
+     */
+    public static ColorLookupTable mapped(final NearestColorSearch search,
+                                          final int bitsPerChannel,
+                                          final FileChannel channel,
+                                          final long offset)
+            throws IOException {
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, offset, getStoreSize(bitsPerChannel));
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return new ColorLookupTable(search, bitsPerChannel, new MappedEntryStore(buffer));
+    }
+
+    /**
+     * @return number of bytes the entries of a table with the given bits per channel take
+     */
+    public static long getStoreSize(final int bitsPerChannel) {
+        return (long) getEntryCount(bitsPerChannel) * Short.BYTES;
+    }
+
+    private static int getEntryCount(final int bitsPerChannel) {
+        if (bitsPerChannel < 1 || bitsPerChannel > 8) {
+            throw new IllegalArgumentException("Given 'bitsPerChannel'=" + bitsPerChannel + " is out of bounds [1, 8]!");
+        }
+        return 1 << bitsPerChannel * 3;
+    }
+
+    public int getBitsPerChannel() {
+        return bitsPerChannel;
+    }
+
+    @Override
+    public int getClosestNeighborIndex(final int red, final int green, final int blue) {
+        final int key = (red >> shift) << bitsPerChannel * 2 | (green >> shift) << bitsPerChannel | blue >> shift;
+        final short entry = store.get(key);
+        if (entry != EMPTY) {
+            return (entry & 0xFFFF) - 1;
+        }
+        return fill(key);
+    }
+
+    private int fill(final int key) {
+        final int mask = (1 << bitsPerChannel) - 1;
+        final int index = search.getClosestNeighborIndex(
+                toCellCenter(key >> bitsPerChannel * 2 & mask),
+                toCellCenter(key >> bitsPerChannel & mask),
+                toCellCenter(key & mask));
+        if (index < 0 || index >= MAX_INDEX) {
+            throw new IllegalStateException("Index " + index + " returned by search cannot be stored in lookup table!");
+        }
+        store.set(key, (short) (index + 1));
+        return index;
+    }
+
+    private int toCellCenter(final int quantizedValue) {
+        return shift == 0 ? quantizedValue : quantizedValue << shift | 1 << shift - 1;
+    }
+
+    /**
+     * Fills all missing entries of the table in parallel.
+     */
+    public void prefill() {
+        final int entryCount = getEntryCount(bitsPerChannel);
+        IntStream.range(0, (entryCount + PAGE_SIZE - 1) >> PAGE_BITS)
+                .parallel()
+                .forEach(page -> {
+                    final int to = Math.min((page + 1) << PAGE_BITS, entryCount);
+                    for (int key = page << PAGE_BITS; key < to; key++) {
+                        if (store.get(key) == EMPTY) {
+                            fill(key);
+                        }
+                    }
+                });
+    }
+
+    private interface EntryStore {
+
+        short get(int key);
+
+        void set(int key, short entry);
+
+    }
+
+    private static final class PagedEntryStore implements EntryStore {
+
+        private final AtomicReferenceArray<short[]> pages;
+        private final int pageSize;
+
+        private PagedEntryStore(final int entryCount) {
+            pageSize = Math.min(PAGE_SIZE, entryCount);
+            pages = new AtomicReferenceArray<>(entryCount / pageSize);
+        }
+
+        @Override
+        public short get(final int key) {
+            final short[] page = pages.get(key >> PAGE_BITS);
+            return page == null ? EMPTY : page[key & PAGE_SIZE - 1];
+        }
+
+        @Override
+        public void set(final int key, final short entry) {
+            final int pageIndex = key >> PAGE_BITS;
+            short[] page = pages.get(pageIndex);
+            if (page == null) {
+                final short[] newPage = new short[pageSize];
+                page = pages.compareAndSet(pageIndex, null, newPage) ? newPage : pages.get(pageIndex);
+            }
+            page[key & PAGE_SIZE - 1] = entry;
+        }
+
+    }
+
+    private static final class MappedEntryStore implements EntryStore {
+
+        private final MappedByteBuffer buffer;
+
+        private MappedEntryStore(final MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public short get(final int key) {
+            return buffer.getShort(key * Short.BYTES);
+        }
+
+        @Override
+        public void set(final int key, final short entry) {
+            buffer.putShort(key * Short.BYTES, entry);
+        }
+
+    }
+
+}
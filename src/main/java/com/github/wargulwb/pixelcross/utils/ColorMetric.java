@@ -0,0 +1,39 @@
+package com.github.wargulwb.pixelcross.utils;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Metrics to determine the distance of two colors, used to match image colors to yarns.
+ */
+public enum ColorMetric {
+
+    /**
+     * euclidean distance of the RGB values, fast but perceptually inaccurate
+     */
+    RGB("rgb"),
+    /**
+     * CIEDE2000 color difference in CIE L*a*b* space, perceptually accurate
+     */
+    CIEDE2000("ciede2000");
+
+    private final String id;
+
+    ColorMetric(final String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public static ColorMetric fromId(final String id) {
+        return Arrays.stream(values())
+                .filter(metric -> metric.id.equalsIgnoreCase(id))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown color metric '" + id + "', expected one of '"
+                                                                + Arrays.stream(values()).map(ColorMetric::getId).collect(Collectors.joining("', '"))
+                                                                + "'!"));
+    }
+
+}
@@ -7,6 +7,30 @@ import org.apache.commons.lang3.StringUtils;
 
 public class ColorUtils {
 
+    // sRGB (D65) to CIE XYZ
+    private static final double[][] RGB_TO_XYZ = {
+            { 0.4124564D, 0.3575761D, 0.1804375D },
+            { 0.2126729D, 0.7151522D, 0.0721750D },
+            { 0.0193339D, 0.1191920D, 0.9503041D } };
+    // CIE XYZ to linear sRGB (D65)
+    private static final double[][] XYZ_TO_RGB = {
+            { 3.2404542D, -1.5371385D, -0.4985314D },
+            { -0.9692660D, 1.8760108D, 0.0415560D },
+            { 0.0556434D, -0.2040259D, 1.0572252D } };
+    private static final double WHITE_X = 0.95047D;
+    private static final double WHITE_Y = 1D;
+    private static final double WHITE_Z = 1.08883D;
+    private static final double LAB_EPSILON = Math.pow(6D / 29D, 3);
+    private static final double[] LINEAR_RGB = new double[256];
+    private static final double POW_25_7 = Math.pow(25D, 7);
+
+    static {
+        for (int value = 0; value < LINEAR_RGB.length; value++) {
+            final double channel = value / 255D;
+            LINEAR_RGB[value] = channel <= 0.04045D ? channel / 12.92D : Math.pow((channel + 0.055D) / 1.055D, 2.4D);
+        }
+    }
+
     public Color colorFromRGBHexString(final String rgbHexNoAlpha) {
         if (rgbHexNoAlpha.length() != 7) {
             throw new IllegalArgumentException("Hex string '" + rgbHexNoAlpha + "' is not the expected 7 characters '#012345' long!");
@@ -31,6 +55,134 @@ public class ColorUtils {
         return Math.sqrt(redDistance * redDistance + greenDistance * greenDistance + blueDistance * blueDistance);
     }
 
+    /**
+     * Converts the given sRGB color to CIE L*a*b* (D65 white point).
+     *
+     * @param lab
+     *            target array with at least 3 elements, receives L*, a* and b*
+     * @return the given 'lab' array
+     */
+    public double[] toLab(final int red, final int green, final int blue, final double[] lab) {
+        final double r = LINEAR_RGB[red];
+        final double g = LINEAR_RGB[green];
+        final double b = LINEAR_RGB[blue];
+        final double fx = labF((RGB_TO_XYZ[0][0] * r + RGB_TO_XYZ[0][1] * g + RGB_TO_XYZ[0][2] * b) / WHITE_X);
+        final double fy = labF((RGB_TO_XYZ[1][0] * r + RGB_TO_XYZ[1][1] * g + RGB_TO_XYZ[1][2] * b) / WHITE_Y);
+        final double fz = labF((RGB_TO_XYZ[2][0] * r + RGB_TO_XYZ[2][1] * g + RGB_TO_XYZ[2][2] * b) / WHITE_Z);
+        lab[0] = 116D * fy - 16D;
+        lab[1] = 500D * (fx - fy);
+        lab[2] = 200D * (fy - fz);
+        return lab;
+    }
+
+    private static double labF(final double t) {
+        return t > LAB_EPSILON ? Math.cbrt(t) : t / (3D * (6D / 29D) * (6D / 29D)) + 4D / 29D;
+    }
+
+    /**
+     * Converts the given CIE L*a*b* color (D65 white point) to sRGB, colors outside of the sRGB gamut are clipped.
+     *
+     * @return the color as 0xRRGGBB
+     */
+    public int labToRGB(final double lightness, final double a, final double b) {
+        final double fy = (lightness + 16D) / 116D;
+        final double x = WHITE_X * labFInverse(fy + a / 500D);
+        final double y = WHITE_Y * labFInverse(fy);
+        final double z = WHITE_Z * labFInverse(fy - b / 200D);
+        int rgb = 0;
+        for (final double[] row : XYZ_TO_RGB) {
+            final double linear = row[0] * x + row[1] * y + row[2] * z;
+            final double channel = linear <= 0.0031308D ? 12.92D * linear : 1.055D * Math.pow(linear, 1D / 2.4D) - 0.055D;
+            rgb = rgb << 8 | (int) Math.round(Math.max(0D, Math.min(1D, channel)) * 255D);
+        }
+        return rgb;
+    }
+
+    private static double labFInverse(final double t) {
+        return t > 6D / 29D ? t * t * t : 3D * (6D / 29D) * (6D / 29D) * (t - 4D / 29D);
+    }
+
+    public double distanceCIEDE2000(final Color color1, final Color color2) {
+        final double[] lab1 = toLab(color1.getRed(), color1.getGreen(), color1.getBlue(), new double[3]);
+        final double[] lab2 = toLab(color2.getRed(), color2.getGreen(), color2.getBlue(), new double[3]);
+        return Math.sqrt(deltaE2000Squared(lab1[0], lab1[1], lab1[2], lab2[0], lab2[1], lab2[2]));
+    }
+
+    /**
+     * Calculates the square of the CIEDE2000 color difference (with kL = kC = kH = 1) of two L*a*b* colors, following
+     * Sharma, Wu, Dalal: "The CIEDE2000 Color-Difference Formula: Implementation Notes, Supplementary Test Data, and
+     * Mathematical Observations".
+     */
+    public double deltaE2000Squared(final double lightness1,
+                                    final double a1,
+                                    final double b1,
+                                    final double lightness2,
+                                    final double a2,
+                                    final double b2) {
+        final double chromaMean = (Math.sqrt(a1 * a1 + b1 * b1) + Math.sqrt(a2 * a2 + b2 * b2)) / 2D;
+        final double chromaMean7 = Math.pow(chromaMean, 7);
+        final double g = 0.5D * (1D - Math.sqrt(chromaMean7 / (chromaMean7 + POW_25_7)));
+        final double a1Prime = (1D + g) * a1;
+        final double a2Prime = (1D + g) * a2;
+        final double c1Prime = Math.sqrt(a1Prime * a1Prime + b1 * b1);
+        final double c2Prime = Math.sqrt(a2Prime * a2Prime + b2 * b2);
+        final double h1Prime = hueAngle(b1, a1Prime);
+        final double h2Prime = hueAngle(b2, a2Prime);
+
+        final double deltaLPrime = lightness2 - lightness1;
+        final double deltaCPrime = c2Prime - c1Prime;
+        final double chromaProduct = c1Prime * c2Prime;
+        double deltahPrime = 0D;
+        if (chromaProduct != 0D) {
+            deltahPrime = h2Prime - h1Prime;
+            if (deltahPrime > 180D) {
+                deltahPrime -= 360D;
+            } else if (deltahPrime < -180D) {
+                deltahPrime += 360D;
+            }
+        }
+        final double deltaHPrime = 2D * Math.sqrt(chromaProduct) * Math.sin(Math.toRadians(deltahPrime / 2D));
+
+        final double lightnessMeanPrime = (lightness1 + lightness2) / 2D;
+        final double chromaMeanPrime = (c1Prime + c2Prime) / 2D;
+        double hueMeanPrime = h1Prime + h2Prime;
+        if (chromaProduct != 0D) {
+            if (Math.abs(h1Prime - h2Prime) <= 180D) {
+                hueMeanPrime /= 2D;
+            } else if (hueMeanPrime < 360D) {
+                hueMeanPrime = (hueMeanPrime + 360D) / 2D;
+            } else {
+                hueMeanPrime = (hueMeanPrime - 360D) / 2D;
+            }
+        }
+        final double t = 1D
+                         - 0.17D * Math.cos(Math.toRadians(hueMeanPrime - 30D))
+                         + 0.24D * Math.cos(Math.toRadians(2D * hueMeanPrime))
+                         + 0.32D * Math.cos(Math.toRadians(3D * hueMeanPrime + 6D))
+                         - 0.20D * Math.cos(Math.toRadians(4D * hueMeanPrime - 63D));
+        final double deltaTheta = 30D * Math.exp(-Math.pow((hueMeanPrime - 275D) / 25D, 2));
+        final double chromaMeanPrime7 = Math.pow(chromaMeanPrime, 7);
+        final double rC = 2D * Math.sqrt(chromaMeanPrime7 / (chromaMeanPrime7 + POW_25_7));
+        final double lightnessOffset = (lightnessMeanPrime - 50D) * (lightnessMeanPrime - 50D);
+        final double sL = 1D + 0.015D * lightnessOffset / Math.sqrt(20D + lightnessOffset);
+        final double sC = 1D + 0.045D * chromaMeanPrime;
+        final double sH = 1D + 0.015D * chromaMeanPrime * t;
+        final double rT = -Math.sin(Math.toRadians(2D * deltaTheta)) * rC;
+
+        final double lightnessTerm = deltaLPrime / sL;
+        final double chromaTerm = deltaCPrime / sC;
+        final double hueTerm = deltaHPrime / sH;
+        return lightnessTerm * lightnessTerm + chromaTerm * chromaTerm + hueTerm * hueTerm + rT * chromaTerm * hueTerm;
+    }
+
+    private static double hueAngle(final double b, final double aPrime) {
+        if (b == 0D && aPrime == 0D) {
+            return 0D;
+        }
+        final double angle = Math.toDegrees(Math.atan2(b, aPrime));
+        return angle < 0D ? angle + 360D : angle;
+    }
+
     public float[] toHSB(final Color color) {
         return Color.RGBtoHSB(color.getRed(), color.getGreen(), color.getBlue(), null);
     }
@@ -81,6 +233,37 @@ public class ColorUtils {
         return closestNeighbor;
     }
 
+    /**
+     * Creates a nearest neighbor index over the given colors (index i of all arrays is the i-th color), which answers
+     * the same as {@link #getClosestNeighborByColor(Color, List)} but without scanning all colors for each query. If
+     * the Vector API is available a vectorized linear scan is used, which is slightly faster than a k-d tree for the few
+     * hundred colors of a yarn sortiment, otherwise a {@link ColorKdTree}.
+     */
+    public NearestColorSearch createNearestNeighborIndex(final int[] reds, final int[] greens, final int[] blues) {
+        if (LinearColorSearch.isVectorized()) {
+            return LinearColorSearch.create(reds, greens, blues);
+        }
+        return new ColorKdTree(reds, greens, blues);
+    }
+
+    /**
+     * Creates a nearest neighbor index over the given colors (index i of all arrays is the i-th color) using the given
+     * metric.
+     */
+    public NearestColorSearch createNearestNeighborIndex(final ColorMetric metric,
+                                                         final int[] reds,
+                                                         final int[] greens,
+                                                         final int[] blues) {
+        switch (metric) {
+            case RGB:
+                return createNearestNeighborIndex(reds, greens, blues);
+            case CIEDE2000:
+                return new LabNearestColorSearch(this, reds, greens, blues);
+            default:
+                throw new IllegalArgumentException("Unsupported color metric '" + metric + "'!");
+        }
+    }
+
     public Color toGrayScale(final Color color) {
         final float[] hsb = toHSB(color);
         return new Color(Color.HSBtoRGB(hsb[0], 0, hsb[2]));
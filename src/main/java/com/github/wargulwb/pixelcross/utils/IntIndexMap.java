@@ -0,0 +1,118 @@
+package com.github.wargulwb.pixelcross.utils;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map which assigns dense indices (0, 1, 2, ...) to int keys in the order they were added. Keys
+ * and indices are held in primitive arrays, so neither lookups nor insertions allocate objects (apart from growing).
+ */
+public class IntIndexMap {
+
+    private static final int NO_INDEX = -1;
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private int[] slotKeys;
+    private int[] slotIndices;
+    private int[] keys;
+    private int size;
+    private int mask;
+
+    public IntIndexMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntIndexMap(final int expectedSize) {
+        final int slots = slotCountFor(Math.max(expectedSize, 1));
+        slotKeys = new int[slots];
+        slotIndices = new int[slots];
+        Arrays.fill(slotIndices, NO_INDEX);
+        keys = new int[Math.max(expectedSize, 1)];
+        mask = slots - 1;
+    }
+
+    private static int slotCountFor(final int expectedSize) {
+        // keep load factor at or below 0.5
+        return Integer.highestOneBit(Math.max(expectedSize * 2 - 1, 1)) << 1;
+    }
+
+    private static int hash(final int key) {
+        final int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return the index of the given key or -1 if the key was not added yet
+     */
+    public int indexOf(final int key) {
+        int slot = hash(key) & mask;
+        while (true) {
+            final int index = slotIndices[slot];
+            if (index == NO_INDEX || slotKeys[slot] == key) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Adds the given key if it is not contained yet.
+     *
+     * @return the index of the key, which is {@link #size()} - 1 if the key was newly added
+     */
+    public int add(final int key) {
+        int slot = hash(key) & mask;
+        while (true) {
+            final int index = slotIndices[slot];
+            if (index == NO_INDEX) {
+                break;
+            }
+            if (slotKeys[slot] == key) {
+                return index;
+            }
+            slot = (slot + 1) & mask;
+        }
+        final int index = size;
+        if (index == keys.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+        }
+        keys[index] = key;
+        slotKeys[slot] = key;
+        slotIndices[slot] = index;
+        size++;
+        if (size * 2 > slotKeys.length) {
+            rehash();
+        }
+        return index;
+    }
+
+    private void rehash() {
+        final int slots = slotKeys.length * 2;
+        slotKeys = new int[slots];
+        slotIndices = new int[slots];
+        Arrays.fill(slotIndices, NO_INDEX);
+        mask = slots - 1;
+        for (int index = 0; index < size; index++) {
+            int slot = hash(keys[index]) & mask;
+            while (slotIndices[slot] != NO_INDEX) {
+                slot = (slot + 1) & mask;
+            }
+            slotKeys[slot] = keys[index];
+            slotIndices[slot] = index;
+        }
+    }
+
+    /**
+     * @return the key which was assigned the given index
+     */
+    public int keyAt(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Given 'index'=" + index + " is out of bounds [0, " + size + ")!");
+        }
+        return keys[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.github.wargulwb.pixelcross.utils;
+
+public class IntegerConverter implements Converter<Integer> {
+
+    @Override
+    public Integer fromString(final String value) {
+        if (value == null) {
+            return null;
+        }
+        return Integer.valueOf(value.trim());
+    }
+
+    @Override
+    public String toString(final Integer value) {
+        if (value == null) {
+            return null;
+        }
+        return value.toString();
+    }
+
+}
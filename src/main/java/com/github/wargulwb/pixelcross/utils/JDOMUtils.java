@@ -27,11 +27,13 @@ public class JDOMUtils {
 
     private final BooleanConverter booleanConverter;
     private final ColorConverter colorConverter;
+    private final IntegerConverter integerConverter;
 
     @Inject
-    JDOMUtils(final BooleanConverter booleanConverter, final ColorConverter colorConverter) {
+    JDOMUtils(final BooleanConverter booleanConverter, final ColorConverter colorConverter, final IntegerConverter integerConverter) {
         this.booleanConverter = Objects.requireNonNull(booleanConverter, getClass().getSimpleName() + ".booleanConverter cannot be null!");
         this.colorConverter = Objects.requireNonNull(colorConverter, getClass().getSimpleName() + ".colorConverter cannot be null!");
+        this.integerConverter = Objects.requireNonNull(integerConverter, getClass().getSimpleName() + ".integerConverter cannot be null!");
     }
 
     public Document readDocument(final Path path, final XMLReaders reader) throws IOException, JDOMException {
@@ -86,6 +88,26 @@ public class JDOMUtils {
                 .orElse(defaultValue);
     }
 
+    /**
+     * Returns the requested attribute value as Integer.
+     *
+     * @param node
+     *            node to extract attribute value from
+     * @param path
+     *            name of the attribute to get value for
+     * @param defaultValue
+     *            default returnvalue
+     * @return the attribute's value if node is not null and attribute value is
+     *         set, defaultvalue otherwise
+     */
+    public Integer getIntegerAttribute(final Element node, final String path, final Integer defaultValue) {
+        return Optional
+                .ofNullable(getAttribute(node, path))
+                .map(Attribute::getValue)
+                .map(integerConverter::fromString)
+                .orElse(defaultValue);
+    }
+
     /**
      * Returns the requested attribute value as Boolean.
      *
@@ -0,0 +1,313 @@
+package com.github.wargulwb.pixelcross.utils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.inject.Inject;
+
+/**
+ * Minimal JSON support for the line based job protocol. Parses JSON text into {@link Map}s (keeping the member order),
+ * {@link List}s, {@link String}s, {@link Long}s (integral numbers), {@link Double}s, {@link Boolean}s and null, and
+ * writes such values back as single line JSON text. Numbers which do not fit into a long or double are parsed as
+ * {@link BigInteger}s and {@link BigDecimal}s, so they are written back without loss.
+ */
+public class JsonUtils {
+
+    /**
+     * Maximal nesting of objects and arrays, deeper text is rejected before the parser's recursion could overflow the
+     * stack. Jobs are flat, so this is generous.
+     */
+    static final int MAX_DEPTH = 64;
+
+    @Inject
+    JsonUtils() {
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if the given text is no JSON object or nests objects and arrays deeper than {@link #MAX_DEPTH}
+     */
+    public Map<String, Object> parseObject(final String json) {
+        final Parser parser = new Parser(json);
+        parser.skipWhitespace();
+        final Map<String, Object> result = parser.parseObject();
+        parser.skipWhitespace();
+        if (parser.position < json.length()) {
+            throw parser.error("end of text");
+        }
+        return result;
+    }
+
+    /**
+     * @return the given value as JSON text without line breaks
+     * @throws IllegalArgumentException
+     *             if the value holds an infinite or NaN number, which JSON cannot represent
+     */
+    public String toJson(final Object value) {
+        final StringBuilder json = new StringBuilder();
+        append(json, value);
+        return json.toString();
+    }
+
+    private static void append(final StringBuilder json, final Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            if (!Double.isFinite(((Number) value).doubleValue())) {
+                throw new IllegalArgumentException("JSON cannot represent the number " + value + "!");
+            }
+            json.append(value);
+        } else if (value == null || value instanceof Boolean || value instanceof Number) {
+            json.append(value);
+        } else if (value instanceof Map) {
+            json.append('{');
+            String separator = "";
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                json.append(separator);
+                appendString(json, String.valueOf(entry.getKey()));
+                json.append(':');
+                append(json, entry.getValue());
+                separator = ",";
+            }
+            json.append('}');
+        } else if (value instanceof List) {
+            json.append('[');
+            String separator = "";
+            for (final Object element : (List<?>) value) {
+                json.append(separator);
+                append(json, element);
+                separator = ",";
+            }
+            json.append(']');
+        } else {
+            appendString(json, value.toString());
+        }
+    }
+
+    private static void appendString(final StringBuilder json, final String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+
+    private static final class Parser {
+
+        private final String json;
+        private int position = 0;
+        private int depth = 0;
+
+        private Parser(final String json) {
+            this.json = json;
+        }
+
+        private Object parseValue() {
+            if (position >= json.length()) {
+                throw error("value");
+            }
+            switch (json.charAt(position)) {
+                case '{':
+                    return parseObject();
+                case '[':
+                    return parseArray();
+                case '"':
+                    return parseString();
+                case 't':
+                    return parseLiteral("true", Boolean.TRUE);
+                case 'f':
+                    return parseLiteral("false", Boolean.FALSE);
+                case 'n':
+                    return parseLiteral("null", null);
+                default:
+                    return parseNumber();
+            }
+        }
+
+        private Map<String, Object> parseObject() {
+            expect('{');
+            enter();
+            final Map<String, Object> object = new LinkedHashMap<>();
+            skipWhitespace();
+            if (consume('}')) {
+                depth--;
+                return object;
+            }
+            do {
+                skipWhitespace();
+                if (position >= json.length() || json.charAt(position) != '"') {
+                    throw error("member name");
+                }
+                final String name = parseString();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                object.put(name, parseValue());
+                skipWhitespace();
+            } while (consume(','));
+            expect('}');
+            depth--;
+            return object;
+        }
+
+        private List<Object> parseArray() {
+            expect('[');
+            enter();
+            final List<Object> array = new ArrayList<>();
+            skipWhitespace();
+            if (consume(']')) {
+                depth--;
+                return array;
+            }
+            do {
+                skipWhitespace();
+                array.add(parseValue());
+                skipWhitespace();
+            } while (consume(','));
+            expect(']');
+            depth--;
+            return array;
+        }
+
+        private void enter() {
+            if (++depth > MAX_DEPTH) {
+                throw new IllegalArgumentException("Invalid JSON, objects and arrays are nested deeper than " + MAX_DEPTH
+                                                   + " at position " + position + "!");
+            }
+        }
+
+        private String parseString() {
+            expect('"');
+            final StringBuilder string = new StringBuilder();
+            while (position < json.length()) {
+                final char c = json.charAt(position++);
+                if (c == '"') {
+                    return string.toString();
+                }
+                if (c != '\\') {
+                    string.append(c);
+                    continue;
+                }
+                if (position >= json.length()) {
+                    break;
+                }
+                final char escaped = json.charAt(position++);
+                switch (escaped) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        string.append(escaped);
+                        break;
+                    case 'b':
+                        string.append('\b');
+                        break;
+                    case 'f':
+                        string.append('\f');
+                        break;
+                    case 'n':
+                        string.append('\n');
+                        break;
+                    case 'r':
+                        string.append('\r');
+                        break;
+                    case 't':
+                        string.append('\t');
+                        break;
+                    case 'u':
+                        if (position + 4 > json.length()) {
+                            throw error("unicode escape");
+                        }
+                        try {
+                            string.append((char) Integer.parseInt(json.substring(position, position + 4), 16));
+                        } catch (final NumberFormatException exc) {
+                            throw error("unicode escape");
+                        }
+                        position += 4;
+                        break;
+                    default:
+                        throw error("escape sequence");
+                }
+            }
+            throw error("'\"'");
+        }
+
+        private Object parseNumber() {
+            final int start = position;
+            while (position < json.length() && "+-0123456789.eE".indexOf(json.charAt(position)) >= 0) {
+                position++;
+            }
+            final String number = json.substring(start, position);
+            try {
+                if (number.indexOf('.') < 0 && number.indexOf('e') < 0 && number.indexOf('E') < 0) {
+                    final BigInteger integer = new BigInteger(number);
+                    return integer.bitLength() < Long.SIZE ? (Object) integer.longValue() : integer;
+                }
+                final BigDecimal decimal = new BigDecimal(number);
+                final double value = decimal.doubleValue();
+                return Double.isFinite(value) ? (Object) value : decimal;
+            } catch (final NumberFormatException exc) {
+                position = start;
+                throw error("value");
+            }
+        }
+
+        private Object parseLiteral(final String literal, final Object value) {
+            if (!json.startsWith(literal, position)) {
+                throw error("value");
+            }
+            position += literal.length();
+            return value;
+        }
+
+        private void skipWhitespace() {
+            while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+                position++;
+            }
+        }
+
+        private boolean consume(final char c) {
+            if (position < json.length() && json.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(final char c) {
+            if (!consume(c)) {
+                throw error("'" + c + "'");
+            }
+        }
+
+        private IllegalArgumentException error(final String expected) {
+            return new IllegalArgumentException("Invalid JSON, expected " + expected + " at position " + position + "!");
+        }
+
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.github.wargulwb.pixelcross.utils;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Nearest neighbor search over a list of RGB colors by the CIEDE2000 color difference. The colors are converted to
+ * CIE L*a*b* once and sorted by lightness. A query starts at the colors of the closest lightness and walks outwards in
+ * both directions, until the lightness difference alone rules out any further improvement: as the chroma and hue
+ * terms of CIEDE2000 can never become negative (|R_T| <= 2), ΔE00 >= |ΔL| / S_L and S_L <= {@link #MAX_SL}. Hence the
+ * result is exactly the one of a linear scan, ties are resolved in favor of the color coming first in the list.
+ */
+public class LabNearestColorSearch implements NearestColorSearch {
+
+    // S_L = 1 + 0.015 (L - 50)^2 / sqrt(20 + (L - 50)^2) is maximal at L = 0 and L = 100
+    private static final double MAX_SL = 1D + 0.015D * 2500D / Math.sqrt(2520D);
+    // slack for rounding errors, so the bound never prunes a color which is better by rounding
+    private static final double BOUND_TOLERANCE = 1e-9D;
+
+    private final ColorUtils colorUtils;
+    private final double[] lightnesses; // ordered by lightness
+    private final double[] as;
+    private final double[] bs;
+    private final int[] listIndices;
+
+    /**
+     * Builds the search over the colors given as channel arrays, index i of all arrays is the i-th color.
+     */
+    LabNearestColorSearch(final ColorUtils colorUtils, final int[] reds, final int[] greens, final int[] blues) {
+        if (reds.length == 0 || reds.length != greens.length || reds.length != blues.length) {
+            throw new IllegalArgumentException("Given channels must not be empty and need to be of equal length!");
+        }
+        this.colorUtils = colorUtils;
+        final int size = reds.length;
+        final double[][] labs = new double[size][];
+        for (int i = 0; i < size; i++) {
+            labs[i] = colorUtils.toLab(reds[i], greens[i], blues[i], new double[3]);
+        }
+        listIndices = IntStream.range(0, size)
+                .boxed()
+                .sorted(Comparator.comparingDouble(i -> labs[i][0]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        lightnesses = Arrays.stream(listIndices).mapToDouble(i -> labs[i][0]).toArray();
+        as = Arrays.stream(listIndices).mapToDouble(i -> labs[i][1]).toArray();
+        bs = Arrays.stream(listIndices).mapToDouble(i -> labs[i][2]).toArray();
+    }
+
+    /**
+     * @return the index (within the list the search was built from) of the color closest to the given color
+     */
+    @Override
+    public int getClosestNeighborIndex(final int red, final int green, final int blue) {
+        final double[] query = colorUtils.toLab(red, green, blue, new double[3]);
+        final double lightness = query[0];
+        int upper = Arrays.binarySearch(lightnesses, lightness);
+        if (upper < 0) {
+            upper = -upper - 1;
+        }
+        int lower = upper - 1;
+        double bestDistance = Double.MAX_VALUE;
+        int bestIndex = Integer.MAX_VALUE;
+        boolean lowerOpen = lower >= 0;
+        boolean upperOpen = upper < lightnesses.length;
+        while (lowerOpen || upperOpen) {
+            if (upperOpen) {
+                if (lowerBound(lightnesses[upper] - lightness) > bestDistance + BOUND_TOLERANCE) {
+                    upperOpen = false;
+                } else {
+                    final double distance = distance(query, upper);
+                    if (distance < bestDistance || distance == bestDistance && listIndices[upper] < bestIndex) {
+                        bestDistance = distance;
+                        bestIndex = listIndices[upper];
+                    }
+                    upperOpen = ++upper < lightnesses.length;
+                }
+            }
+            if (lowerOpen) {
+                if (lowerBound(lightness - lightnesses[lower]) > bestDistance + BOUND_TOLERANCE) {
+                    lowerOpen = false;
+                } else {
+                    final double distance = distance(query, lower);
+                    if (distance < bestDistance || distance == bestDistance && listIndices[lower] < bestIndex) {
+                        bestDistance = distance;
+                        bestIndex = listIndices[lower];
+                    }
+                    lowerOpen = --lower >= 0;
+                }
+            }
+        }
+        return bestIndex;
+    }
+
+    /**
+     * @return lower bound of the squared CIEDE2000 difference of colors with the given lightness difference
+     */
+    private static double lowerBound(final double lightnessDelta) {
+        final double bound = lightnessDelta / MAX_SL;
+        return bound * bound;
+    }
+
+    private double distance(final double[] query, final int position) {
+        return colorUtils.deltaE2000Squared(query[0], query[1], query[2], lightnesses[position], as[position], bs[position]);
+    }
+
+}
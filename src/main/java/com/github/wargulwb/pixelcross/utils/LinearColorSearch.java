@@ -0,0 +1,108 @@
+package com.github.wargulwb.pixelcross.utils;
+
+import java.awt.Color;
+import java.lang.reflect.Constructor;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Nearest neighbor search by euclidean RGB distance which compares the query with every color, held as structure of
+ * arrays. The result is exactly the one of {@link ColorUtils#getClosestNeighborByColor(Color, List)}, including ties,
+ * which are resolved in favor of the color coming first in the list.
+ * <p>
+ * Use {@link #create(int[], int[], int[])} to get a search which computes the distances in SIMD lanes via the
+ * incubating Vector API, if it was built with the Maven profile 'vector' and the JVM was started with '--add-modules
+ * jdk.incubator.vector'. Otherwise the scalar implementation of this class is used, both answer identically.
+ */
+public class LinearColorSearch implements NearestColorSearch {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LinearColorSearch.class);
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final Constructor<? extends LinearColorSearch> VECTOR_CONSTRUCTOR = findVectorConstructor();
+
+    protected final int[] reds;
+    protected final int[] greens;
+    protected final int[] blues;
+
+    /**
+     * Creates a scalar search over the colors given as channel arrays, index i of all arrays is the i-th color.
+     */
+    LinearColorSearch(final int[] reds, final int[] greens, final int[] blues) {
+        if (reds.length == 0 || reds.length != greens.length || reds.length != blues.length) {
+            throw new IllegalArgumentException("Given channels must not be empty and need to be of equal length!");
+        }
+        this.reds = reds.clone();
+        this.greens = greens.clone();
+        this.blues = blues.clone();
+    }
+
+    /**
+     * Creates a search over the colors given as channel arrays, index i of all arrays is the i-th color, using the
+     * Vector API if available.
+     */
+    static LinearColorSearch create(final int[] reds, final int[] greens, final int[] blues) {
+        if (VECTOR_CONSTRUCTOR != null) {
+            try {
+                return VECTOR_CONSTRUCTOR.newInstance(reds, greens, blues);
+            } catch (final ReflectiveOperationException exc) {
+                LOGGER.debug("Failed to create vectorized color search, using scalar search.", exc);
+            }
+        }
+        return new LinearColorSearch(reds, greens, blues);
+    }
+
+    /**
+     * @return true if {@link #create(int[], int[], int[])} creates vectorized searches
+     */
+    public static boolean isVectorized() {
+        return VECTOR_CONSTRUCTOR != null;
+    }
+
+    private static Constructor<? extends LinearColorSearch> findVectorConstructor() {
+        // the module is only resolved if requested on the command line, the class must not be loaded otherwise
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return null;
+        }
+        try {
+            return Class.forName(LinearColorSearch.class.getPackageName() + ".VectorColorSearch")
+                    .asSubclass(LinearColorSearch.class)
+                    .getDeclaredConstructor(int[].class, int[].class, int[].class);
+        } catch (ReflectiveOperationException | LinkageError exc) {
+            LOGGER.debug("Vector API is not usable, using scalar color search.", exc);
+            return null;
+        }
+    }
+
+    /**
+     * @return the index (within the list the search was built from) of the color closest to the given color
+     */
+    @Override
+    public int getClosestNeighborIndex(final int red, final int green, final int blue) {
+        return scan(red, green, blue, 0, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Scans the colors from index 'from' on, starting with the given best match.
+     *
+     * @return index of the best match
+     */
+    protected int scan(final int red, final int green, final int blue, final int from, final int bestDistance, final int bestIndex) {
+        int closestDistance = bestDistance;
+        int closestIndex = bestIndex;
+        for (int i = from; i < reds.length; i++) {
+            final int redDistance = red - reds[i];
+            final int greenDistance = green - greens[i];
+            final int blueDistance = blue - blues[i];
+            final int distance = redDistance * redDistance + greenDistance * greenDistance + blueDistance * blueDistance;
+            if (distance < closestDistance) { // indices grow, so ties keep the previous match
+                closestDistance = distance;
+                closestIndex = i;
+            }
+        }
+        return closestIndex;
+    }
+
+}
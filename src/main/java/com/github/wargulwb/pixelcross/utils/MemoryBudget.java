@@ -0,0 +1,103 @@
+package com.github.wargulwb.pixelcross.utils;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control for jobs with an estimated memory demand: a job may only start if the demands of all running jobs
+ * and its own fit into the budget. A job demanding more than the whole budget is admitted once no other job runs, so it
+ * is never blocked forever. Data waiting for a job, e.g. an upload, may be {@link #reserve(long) reserved} as well.
+ * <p>
+ * Waits on a {@link ReentrantLock} rather than a monitor, so waiting virtual threads do not pin their carrier thread.
+ */
+public class MemoryBudget {
+
+    private final long capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private long inUse = 0L;
+    private int jobCount = 0;
+
+    /**
+     * @param capacity
+     *            bytes available for all jobs together
+     */
+    public MemoryBudget(final long capacity) {
+        if (capacity <= 0L) {
+            throw new IllegalArgumentException("Given 'capacity'=" + capacity + " must be greater than 0!");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates a budget of the given fraction of the maximal heap size.
+     */
+    public static MemoryBudget ofMaxHeap(final double fraction) {
+        return new MemoryBudget(Math.max(1L, (long) (Runtime.getRuntime().maxMemory() * fraction)));
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Blocks until the given bytes fit into the budget and reserves them.
+     */
+    public void acquire(final long bytes) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (jobCount > 0 && inUse + bytes > capacity) {
+                released.await();
+            }
+            inUse += bytes;
+            jobCount++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns bytes reserved by {@link #acquire(long)}.
+     */
+    public void release(final long bytes) {
+        lock.lock();
+        try {
+            inUse -= bytes;
+            jobCount--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the given bytes of data waiting for a job fit into the budget and reserves them, more than the whole
+     * budget only if nothing else is reserved. Unlike {@link #acquire(long)} the data is no job, so a job is still
+     * admitted if no other job runs, even if the waiting data takes the whole budget.
+     */
+    public void reserve(final long bytes) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inUse > 0L && inUse + bytes > capacity) {
+                released.await();
+            }
+            inUse += bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns bytes reserved by {@link #reserve(long)}.
+     */
+    public void unreserve(final long bytes) {
+        lock.lock();
+        try {
+            inUse -= bytes;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
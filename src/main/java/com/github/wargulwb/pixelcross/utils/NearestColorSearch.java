@@ -0,0 +1,14 @@
+package com.github.wargulwb.pixelcross.utils;
+
+/**
+ * Nearest neighbor search over a fixed list of colors.
+ */
+@FunctionalInterface
+public interface NearestColorSearch {
+
+    /**
+     * @return the index (within the searched list of colors) of the color closest to the given one
+     */
+    int getClosestNeighborIndex(int red, int green, int blue);
+
+}
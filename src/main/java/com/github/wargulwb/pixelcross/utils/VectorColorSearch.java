@@ -0,0 +1,53 @@
+package com.github.wargulwb.pixelcross.utils;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link LinearColorSearch} computing the distances of the query to as many colors at once as the preferred vector
+ * species has lanes. Each lane keeps its own best match (the first one on ties, since lane indices grow), the lanes
+ * are reduced to the smallest distance with the smallest index and the remainder is scanned scalar.
+ * <p>
+ * Only compiled with the Maven profile 'vector' and only loaded reflectively by
+ * {@link LinearColorSearch#create(int[], int[], int[])} if the module 'jdk.incubator.vector' is available.
+ */
+final class VectorColorSearch extends LinearColorSearch {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private final int vectorLength;
+
+    VectorColorSearch(final int[] reds, final int[] greens, final int[] blues) {
+        super(reds, greens, blues);
+        vectorLength = SPECIES.loopBound(reds.length);
+    }
+
+    @Override
+    public int getClosestNeighborIndex(final int red, final int green, final int blue) {
+        if (vectorLength == 0) {
+            return super.getClosestNeighborIndex(red, green, blue);
+        }
+        IntVector bestDistances = IntVector.broadcast(SPECIES, Integer.MAX_VALUE);
+        IntVector bestIndices = IntVector.zero(SPECIES);
+        IntVector indices = IntVector.zero(SPECIES).addIndex(1);
+        final IntVector step = IntVector.broadcast(SPECIES, SPECIES.length());
+        for (int i = 0; i < vectorLength; i += SPECIES.length()) {
+            final IntVector redDistances = IntVector.fromArray(SPECIES, reds, i).sub(red);
+            final IntVector greenDistances = IntVector.fromArray(SPECIES, greens, i).sub(green);
+            final IntVector blueDistances = IntVector.fromArray(SPECIES, blues, i).sub(blue);
+            final IntVector distances = redDistances.mul(redDistances)
+                    .add(greenDistances.mul(greenDistances))
+                    .add(blueDistances.mul(blueDistances));
+            final VectorMask<Integer> closer = distances.lt(bestDistances);
+            bestDistances = bestDistances.blend(distances, closer);
+            bestIndices = bestIndices.blend(indices, closer);
+            indices = indices.add(step);
+        }
+        final int bestDistance = bestDistances.reduceLanes(VectorOperators.MIN);
+        final int bestIndex = bestIndices.reduceLanes(VectorOperators.MIN, bestDistances.eq(bestDistance));
+        return scan(red, green, blue, vectorLength, bestDistance, bestIndex);
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.github.wargulwb.pixelcross;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.github.wargulwb.pixelcross.canvas.RenderBackend;
+import com.github.wargulwb.pixelcross.config.PixelCrossConfig;
+import com.github.wargulwb.pixelcross.model.ImageModel;
+import com.github.wargulwb.pixelcross.model.ImageModels;
+import com.github.wargulwb.pixelcross.model.yarn.Yarn;
+import com.github.wargulwb.pixelcross.model.yarn.YarnSortiment;
+import com.github.wargulwb.pixelcross.utils.ColorUtils;
+
+class CombinedPainterTest {
+
+    private final PixelCrossConfig config = mock(PixelCrossConfig.class);
+    private final ColorUtils colorUtils = new ColorUtils();
+    private final CombinedPainter painter = new CombinedPainter(new PatternPainter(colorUtils, config),
+                                                                new PageMapPainter(colorUtils, config),
+                                                                new YarnLegendPainter(colorUtils, config),
+                                                                new CTMathLegendPainter(colorUtils, config),
+                                                                config);
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void paintsSameImageWithBothBackends(final boolean grayscale) {
+        when(config.isOutputGrayscale()).thenReturn(grayscale);
+        final Random random = new Random(23L);
+        final List<Yarn> yarns = IntStream.range(0, 12)
+                .mapToObj(i -> Yarn.newBuilder()
+                        .withColor(new Color(random.nextInt(1 << 24)))
+                        .withId("id" + i)
+                        .withName("Yarn " + i)
+                        .build())
+                .toList();
+        // the legend shows the producer of the sortiment of each yarn
+        YarnSortiment.newBuilder().withProducer("producer").withYarns(yarns).build();
+        final ImageModel imageModel = ImageModels.createRandom(70, 50, yarns, random);
+
+        when(config.getRenderBackend()).thenReturn(RenderBackend.GRAPHICS2D);
+        final BufferedImage expected = painter.paint(imageModel);
+        when(config.getRenderBackend()).thenReturn(RenderBackend.RASTER);
+        final BufferedImage actual = painter.paint(imageModel);
+
+        assertArrayEquals(getPixels(expected), getPixels(actual));
+    }
+
+    private static int[] getPixels(final BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+}
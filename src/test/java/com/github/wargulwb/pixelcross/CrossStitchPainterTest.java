@@ -0,0 +1,104 @@
+package com.github.wargulwb.pixelcross;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.github.wargulwb.pixelcross.canvas.RenderBackend;
+import com.github.wargulwb.pixelcross.config.PixelCrossConfig;
+import com.github.wargulwb.pixelcross.model.ImageModel;
+import com.github.wargulwb.pixelcross.model.ImageModels;
+import com.github.wargulwb.pixelcross.model.PixelCrossColor;
+import com.github.wargulwb.pixelcross.model.yarn.Yarn;
+
+class CrossStitchPainterTest {
+
+    private static final int CROSS_SIZE = 10;
+
+    private final Random random = new Random(17L);
+    private final List<Yarn> yarns = IntStream.range(0, 20)
+            .mapToObj(i -> Yarn.newBuilder().withColor(new Color(random.nextInt(1 << 24))).withId("" + i).withName("" + i).build())
+            .toList();
+    // several bands of rows
+    private final ImageModel imageModel = ImageModels.createRandom(80, 150, yarns, random);
+
+    @ParameterizedTest
+    @CsvSource({"raster, 1", "raster, 4", "graphics2d, 4"})
+    void stampsCrossesLikeGraphics(final String backend, final int parallelism) {
+        final BufferedImage expected = paintWithGraphics(imageModel);
+        final PixelCrossConfig config = mock(PixelCrossConfig.class);
+        when(config.getRenderBackend()).thenReturn(RenderBackend.fromId(backend));
+
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        final BufferedImage actual;
+        try {
+            actual = pool.submit(() -> new CrossStitchPainter(config).paint(imageModel)).join();
+        } finally {
+            pool.shutdown();
+        }
+        assertArrayEquals(getPixels(expected), getPixels(actual));
+    }
+
+    /**
+     * @return the preview painted with anti-aliased lines, like before the crosses were stamped
+     */
+    private static BufferedImage paintWithGraphics(final ImageModel imageModel) {
+        final int width = imageModel.getWidth() * (CROSS_SIZE + 1) + 1;
+        final int height = imageModel.getHeight() * (CROSS_SIZE + 1) + 1;
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(255, 245, 225));
+        graphics.fillRect(0, 0, width, height);
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setColor(Color.LIGHT_GRAY);
+        for (int i = 0; i < imageModel.getWidth() + 1; i++) {
+            graphics.drawRect(i * (CROSS_SIZE + 1), 0, 0, height);
+        }
+        for (int i = 0; i < imageModel.getHeight() + 1; i++) {
+            graphics.drawRect(0, i * (CROSS_SIZE + 1), width, 0);
+        }
+        for (int y = 0; y < imageModel.getHeight(); y++) {
+            for (int x = 0; x < imageModel.getWidth(); x++) {
+                final PixelCrossColor color = imageModel.getPixelColor(x, y);
+                if (color.isPixelOpaque()) {
+                    graphics.setColor(color.getYarn().getColor());
+                    drawWideCross(graphics, x * (CROSS_SIZE + 1) + 1, y * (CROSS_SIZE + 1) + 1);
+                }
+            }
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    private static void drawWideCross(final Graphics2D graphics, final int xPos, final int yPos) {
+        graphics.drawLine(xPos, yPos, xPos + CROSS_SIZE, yPos + CROSS_SIZE);
+        graphics.drawLine(xPos + 1, yPos, xPos + CROSS_SIZE, yPos + CROSS_SIZE - 1);
+        graphics.drawLine(xPos + 2, yPos, xPos + CROSS_SIZE, yPos + CROSS_SIZE - 2);
+        graphics.drawLine(xPos, yPos + 1, xPos + CROSS_SIZE - 1, yPos + CROSS_SIZE);
+        graphics.drawLine(xPos, yPos + 2, xPos + CROSS_SIZE - 2, yPos + CROSS_SIZE);
+        graphics.drawLine(xPos, yPos + 3, xPos + CROSS_SIZE - 3, yPos + CROSS_SIZE);
+        graphics.drawLine(xPos + CROSS_SIZE, yPos, xPos, yPos + CROSS_SIZE);
+        graphics.drawLine(xPos + CROSS_SIZE - 1, yPos, xPos, yPos + CROSS_SIZE - 1);
+        graphics.drawLine(xPos + CROSS_SIZE, yPos + 1, xPos + 1, yPos + CROSS_SIZE);
+        graphics.drawLine(xPos + CROSS_SIZE - 2, yPos, xPos, yPos + CROSS_SIZE - 2);
+        graphics.drawLine(xPos + CROSS_SIZE, yPos + 2, xPos + 2, yPos + CROSS_SIZE);
+        graphics.drawLine(xPos + CROSS_SIZE, yPos + 3, xPos + 3, yPos + CROSS_SIZE);
+    }
+
+    private static int[] getPixels(final BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.github.wargulwb.pixelcross;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.github.wargulwb.pixelcross.canvas.RenderBackend;
+import com.github.wargulwb.pixelcross.config.PixelCrossConfig;
+import com.github.wargulwb.pixelcross.model.ImageModel;
+import com.github.wargulwb.pixelcross.model.ImageModels;
+import com.github.wargulwb.pixelcross.model.yarn.Yarn;
+import com.github.wargulwb.pixelcross.model.yarn.YarnSortiment;
+import com.github.wargulwb.pixelcross.utils.ColorUtils;
+
+class FusedRendererTest {
+
+    private final PixelCrossConfig config = mock(PixelCrossConfig.class);
+    private final ColorUtils colorUtils = new ColorUtils();
+    private final CrossStitchPainter crossStitchPainter = new CrossStitchPainter(config);
+    private final CombinedPainter combinedPainter = new CombinedPainter(new PatternPainter(colorUtils, config),
+                                                                        new PageMapPainter(colorUtils, config),
+                                                                        new YarnLegendPainter(colorUtils, config),
+                                                                        new CTMathLegendPainter(colorUtils, config),
+                                                                        config);
+    private final ImageModel imageModel;
+
+    FusedRendererTest() {
+        final Random random = new Random(29L);
+        final List<Yarn> yarns = IntStream.range(0, 10)
+                .mapToObj(i -> Yarn.newBuilder()
+                        .withColor(new Color(random.nextInt(1 << 24)))
+                        .withId("id" + i)
+                        .withName("Yarn " + i)
+                        .build())
+                .toList();
+        YarnSortiment.newBuilder().withProducer("producer").withYarns(yarns).build();
+        // 110 rows, several bands of the default size
+        imageModel = ImageModels.createRandom(60, 110, yarns, random);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"raster, 48, 4", "raster, 1, 2", "raster, 5, 8", "graphics2d, 48, 4", "graphics2d, 5, 1"})
+    void paintsOutputsLikeEachPainterAlone(final String backend, final int bandRows, final int parallelism) {
+        when(config.getRenderBackend()).thenReturn(RenderBackend.fromId(backend));
+        final BufferedImage crossStitch = crossStitchPainter.paint(imageModel);
+        final BufferedImage pattern = combinedPainter.paint(imageModel);
+
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        final List<BufferedImage> images;
+        try {
+            final List<RowRenderer> renderers =
+                    List.of(crossStitchPainter.createRowRenderer(imageModel), combinedPainter.createRowRenderer(imageModel));
+            images = pool.submit(() -> FusedRenderer.render(imageModel, 0, imageModel.getHeight(), renderers, bandRows)).join();
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(2, images.size());
+        assertArrayEquals(getPixels(crossStitch), getPixels(images.get(0)), "cross stitch");
+        assertArrayEquals(getPixels(pattern), getPixels(images.get(1)), "pattern");
+    }
+
+    private static int[] getPixels(final BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+}
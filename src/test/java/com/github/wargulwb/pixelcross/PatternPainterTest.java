@@ -0,0 +1,157 @@
+package com.github.wargulwb.pixelcross;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import com.github.wargulwb.pixelcross.canvas.Canvas;
+import com.github.wargulwb.pixelcross.canvas.RenderBackend;
+import com.github.wargulwb.pixelcross.config.PageFormat;
+import com.github.wargulwb.pixelcross.config.PixelCrossConfig;
+import com.github.wargulwb.pixelcross.model.ImageModel;
+import com.github.wargulwb.pixelcross.model.ImageModels;
+import com.github.wargulwb.pixelcross.model.yarn.Yarn;
+import com.github.wargulwb.pixelcross.utils.ColorUtils;
+
+class PatternPainterTest {
+
+    private static final int LABEL_AREA_WIDTH = 50;
+    private static final int CELL_SIZE = 21; // block and grid line
+
+    private static final List<Yarn> YARNS = List.of(
+            createYarn("black", 0x000000),
+            createYarn("white", 0xFFFFFF),
+            createYarn("red", 0xC00000),
+            createYarn("green", 0x00A000),
+            createYarn("blue", 0x0000C0),
+            createYarn("yellow", 0xF0E000));
+
+    private final PixelCrossConfig config = mock(PixelCrossConfig.class);
+    private final PatternPainter painter = new PatternPainter(new ColorUtils(), config);
+    // 90 rows, several bands of the default size
+    private final ImageModel imageModel = ImageModels.createRandom(120, 90, YARNS, new Random(7L));
+
+    @ParameterizedTest
+    @CsvSource({
+            "raster, 48, 1",
+            "raster, 48, 4",
+            "raster, 1, 2",
+            "raster, 1, 8",
+            "raster, 7, 3",
+            "graphics2d, 48, 4",
+            "graphics2d, 1, 8"})
+    void paintsBandsLikeOnePass(final String backend, final int bandRows, final int parallelism) {
+        when(config.getRenderBackend()).thenReturn(RenderBackend.fromId(backend));
+        final int[] expected = paint(painter, imageModel, imageModel.getHeight(), 1);
+
+        assertArrayEquals(expected, paint(painter, imageModel, bandRows, parallelism));
+    }
+
+    @ParameterizedTest
+    @EnumSource(RenderBackend.class)
+    void paintsSpritesLikeCrossesBlockByBlock(final RenderBackend backend) {
+        when(config.getRenderBackend()).thenReturn(backend);
+        // one yarn for each symbol
+        final ImageModel model = ImageModels.createRandom(40, 30, createYarns(36), new Random(13L));
+        final PatternPainter blockByBlockPainter = new PatternPainter(new ColorUtils(), config) {
+
+            @Override
+            BufferedImage[][] paintCrossSprites(final ImageModel imageModel) {
+                return Arrays.stream(super.paintCrossSprites(imageModel))
+                        .map(sprites -> sprites == null ? null : new BufferedImage[sprites.length])
+                        .toArray(BufferedImage[][]::new);
+            }
+
+        };
+        assertTrue(Arrays.stream(painter.paintCrossSprites(model))
+                           .filter(Objects::nonNull)
+                           .flatMap(Arrays::stream)
+                           .anyMatch(Objects::nonNull),
+                   "no symbol fits into a sprite");
+
+        assertArrayEquals(paint(blockByBlockPainter, model, 7, 2), paint(painter, model, 7, 2));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"false, 6", "true, 6", "false, 36"})
+    void paintsSameImageWithBothBackends(final boolean grayscale, final int yarnCount) {
+        when(config.isOutputGrayscale()).thenReturn(grayscale);
+        final ImageModel model = ImageModels.createRandom(60, 45, createYarns(yarnCount), new Random(yarnCount));
+
+        when(config.getRenderBackend()).thenReturn(RenderBackend.GRAPHICS2D);
+        final int[] expected = paint(painter, model, 7, 4);
+        when(config.getRenderBackend()).thenReturn(RenderBackend.RASTER);
+        assertArrayEquals(expected, paint(painter, model, 7, 4));
+    }
+
+    @ParameterizedTest
+    @EnumSource(RenderBackend.class)
+    void paintsPagesLikeTheirPartOfTheWholePattern(final RenderBackend backend) {
+        when(config.getRenderBackend()).thenReturn(backend);
+        when(config.getPageFormat()).thenReturn(PageFormat.A4);
+        when(config.getPageOverlap()).thenReturn(3);
+        // more rows and more columns than fit on a page in either orientation
+        final ImageModel model = ImageModels.createRandom(250, 170, YARNS, new Random(5L));
+        final BufferedImage whole = painter.paint(model);
+
+        final PatternPages pages = painter.paginate(model);
+        assertTrue(pages.getPageCount() > 2, pages.getPageCount() + " pages");
+        for (int index = 0; index < pages.getPageCount(); index++) {
+            final Rectangle window = pages.getWindows().get(index);
+            final BufferedImage page = pages.paintPage(index);
+            // the grid with its outer lines, the labels are numbered differently
+            final int width = window.width * CELL_SIZE + 1;
+            final int height = window.height * CELL_SIZE + 1;
+            assertArrayEquals(whole.getRGB(LABEL_AREA_WIDTH + window.x * CELL_SIZE,
+                                           LABEL_AREA_WIDTH + window.y * CELL_SIZE,
+                                           width,
+                                           height,
+                                           null,
+                                           0,
+                                           width),
+                              page.getRGB(LABEL_AREA_WIDTH, LABEL_AREA_WIDTH, width, height, null, 0, width),
+                              "page " + (index + 1));
+        }
+    }
+
+    private static int[] paint(final PatternPainter painter, final ImageModel imageModel, final int bandRows, final int parallelism) {
+        final Dimension size = painter.getSize(imageModel);
+        final Canvas canvas = painter.createCanvas(size.width, size.height);
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            final List<RowRenderer> renderers = List.of(painter.createRowRenderer(canvas, imageModel));
+            pool.submit(() -> FusedRenderer.render(imageModel, 0, imageModel.getHeight(), renderers, bandRows)).join();
+        } finally {
+            pool.shutdown();
+            canvas.dispose();
+        }
+        return canvas.getImage().getRGB(0, 0, size.width, size.height, null, 0, size.width);
+    }
+
+    private static List<Yarn> createYarns(final int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> createYarn("yarn" + i, i * 0x070707 ^ (i & 3) * 0x3F0000 ^ (i & 12) * 0x000F00))
+                .toList();
+    }
+
+    private static Yarn createYarn(final String id, final int rgb) {
+        return Yarn.newBuilder().withColor(new Color(rgb)).withId(id).withName(id).build();
+    }
+
+}
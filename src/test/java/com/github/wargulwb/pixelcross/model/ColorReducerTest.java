@@ -0,0 +1,126 @@
+package com.github.wargulwb.pixelcross.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.github.wargulwb.pixelcross.model.ColorReducer.Reduction;
+import com.github.wargulwb.pixelcross.utils.ColorUtils;
+
+class ColorReducerTest {
+
+    private static final int[] PARALLELISMS = {2, 3, 8};
+
+    private final ColorUtils colorUtils = new ColorUtils();
+
+    @ParameterizedTest
+    @CsvSource({
+            "300, 1",
+            "300, 16",
+            "4096, 64",
+            "20000, 1", // binned from here on
+            "20000, 40",
+            "60000, 255"})
+    void reducesToAtMostMaxClusters(final int size, final int maxClusters) {
+        final Random random = new Random(size * 31L + maxClusters);
+        final int[] rgbs = randomColors(random, size);
+        final Reduction reduction = reduce(rgbs, randomWeights(random, size), maxClusters, 4);
+
+        assertTrue(reduction.centroids().length <= maxClusters, reduction.centroids().length + " centroids");
+        assertEquals(size, reduction.clusters().length);
+        for (final int cluster : reduction.clusters()) {
+            assertTrue(cluster >= 0 && cluster < reduction.centroids().length, "cluster " + cluster);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {3000, 60000})
+    void reducesLikeOneThreadWithAnyParallelism(final int size) {
+        final Random random = new Random(size);
+        final int[] rgbs = randomColors(random, size);
+        final int[] weights = randomWeights(random, size);
+        final Reduction expected = reduce(rgbs, weights, 50, 1);
+
+        for (final int parallelism : PARALLELISMS) {
+            final Reduction actual = reduce(rgbs, weights, 50, parallelism);
+            assertArrayEquals(expected.centroids(), actual.centroids(), "centroids with parallelism " + parallelism);
+            assertArrayEquals(expected.clusters(), actual.clusters(), "clusters with parallelism " + parallelism);
+        }
+    }
+
+    @Test
+    void keepsColorsOfHistogramWithLessColorsThanMaxClusters() {
+        final Random random = new Random(5L);
+        final int[] rgbs = randomColors(random, 50);
+        final Reduction reduction = reduce(rgbs, randomWeights(random, rgbs.length), 64, 4);
+
+        assertEquals(rgbs.length, reduction.centroids().length);
+        for (int i = 0; i < rgbs.length; i++) {
+            assertEquals(rgbs[i], reduction.centroids()[reduction.clusters()[i]], "centroid of color " + i);
+        }
+    }
+
+    @Test
+    void clustersColorsDirectlyUpToBinningThreshold() {
+        // 4000 colors in 10 bins, clustered one by one
+        final Reduction reduction = reduce(binnedColors(4000), 100);
+        assertEquals(100, reduction.centroids().length);
+    }
+
+    @Test
+    void clustersBinsOfHistogramWithManyColors() {
+        // 5000 colors in 10 bins, only the bins are clustered, so there cannot be more clusters than bins
+        final Reduction reduction = reduce(binnedColors(5000), 100);
+        assertTrue(reduction.centroids().length <= 10, reduction.centroids().length + " centroids");
+    }
+
+    private Reduction reduce(final int[] rgbs, final int maxClusters) {
+        return reduce(rgbs, randomWeights(new Random(rgbs.length), rgbs.length), maxClusters, 4);
+    }
+
+    private Reduction reduce(final int[] rgbs, final int[] weights, final int maxClusters, final int parallelism) {
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            final ColorReducer colorReducer = new ColorReducer(pool, colorUtils);
+            return colorReducer.reduce(colorReducer.prepare(rgbs, weights), maxClusters);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static int[] randomColors(final Random random, final int size) {
+        final Set<Integer> rgbs = new LinkedHashSet<>();
+        while (rgbs.size() < size) {
+            rgbs.add(random.nextInt(1 << 24));
+        }
+        return rgbs.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return distinct colors which only differ in the lower 3 bits per channel from one of 10 colors
+     */
+    private static int[] binnedColors(final int size) {
+        final int[] rgbs = new int[size];
+        for (int i = 0; i < size; i++) {
+            final int variant = i / 10 % 512;
+            final int bin = i % 10 * 0x181818;
+            rgbs[i] = bin & 0xF8F8F8 | (variant >> 6) << 16 | (variant >> 3 & 7) << 8 | variant & 7;
+        }
+        return rgbs;
+    }
+
+    private static int[] randomWeights(final Random random, final int size) {
+        return random.ints(size, 1, 100).toArray();
+    }
+
+}
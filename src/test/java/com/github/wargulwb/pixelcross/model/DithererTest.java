@@ -0,0 +1,167 @@
+package com.github.wargulwb.pixelcross.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import com.github.wargulwb.pixelcross.model.yarn.Yarn;
+import com.github.wargulwb.pixelcross.utils.NearestColorSearch;
+
+class DithererTest {
+
+    private static final int WIDTH = 150;
+    private static final int HEIGHT = 300; // several bands of rows
+    private static final int[] PARALLELISMS = {2, 3, 8};
+    private static final List<Yarn> YARNS = List.of(
+            createYarn("black", 0x000000),
+            createYarn("white", 0xFFFFFF),
+            createYarn("red", 0xC00000),
+            createYarn("green", 0x00A000),
+            createYarn("blue", 0x0000C0),
+            createYarn("yellow", 0xF0E000),
+            createYarn("gray", 0x808080),
+            createYarn("brown", 0x704020));
+
+    private final int[] pixels = createPixels(new Random(3L));
+
+    @ParameterizedTest
+    @EnumSource(value = DitheringMode.class, names = {"FLOYD_STEINBERG", "ORDERED"})
+    void mapsPixelsToYarnsOrTransparentColors(final DitheringMode mode) {
+        final ImageModel dithered = dither(mode, 4);
+
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                final PixelCrossColor color = dithered.getPixelColor(x, y);
+                if (color.isPixelOpaque()) {
+                    final Yarn yarn = color.getYarn();
+                    assertTrue(YARNS.stream().anyMatch(candidate -> candidate == yarn), "yarn at " + x + "," + y);
+                    assertEquals(yarn.getColor().getRGB(), color.getOriginalColor().getRGB(), "color at " + x + "," + y);
+                } else {
+                    // transparent pixels keep their color
+                    assertEquals(pixels[y * WIDTH + x], color.getOriginalColor().getRGB(), "color at " + x + "," + y);
+                }
+                assertEquals(isOpaque(pixels[y * WIDTH + x]), color.isPixelOpaque(), "opacity at " + x + "," + y);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = DitheringMode.class, names = {"FLOYD_STEINBERG", "ORDERED"})
+    void countsCrossesOfEachPaletteColor(final DitheringMode mode) {
+        final ImageModel dithered = dither(mode, 4);
+
+        final int[] counts = new int[dithered.getColors().size()];
+        final int[] row = new int[WIDTH];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (final int paletteIndex : dithered.getPaletteRow(y, row)) {
+                counts[paletteIndex]++;
+            }
+        }
+        for (int paletteIndex = 0; paletteIndex < counts.length; paletteIndex++) {
+            assertEquals(counts[paletteIndex], dithered.getPaletteCount(paletteIndex), "count of palette color " + paletteIndex);
+        }
+    }
+
+    @Test
+    void dithersOrderedLikeOneThreadWithAnyParallelism() {
+        final ImageModel expected = dither(DitheringMode.ORDERED, 1);
+
+        for (final int parallelism : PARALLELISMS) {
+            final ImageModel actual = dither(DitheringMode.ORDERED, parallelism);
+            assertEquals(expected.getColors().size(), actual.getColors().size());
+            for (int paletteIndex = 0; paletteIndex < expected.getColors().size(); paletteIndex++) {
+                assertSame(expected.getPaletteColor(paletteIndex).getYarn(), actual.getPaletteColor(paletteIndex).getYarn());
+                assertEquals(expected.getPaletteCount(paletteIndex), actual.getPaletteCount(paletteIndex));
+            }
+            for (int y = 0; y < HEIGHT; y++) {
+                assertArrayEquals(expected.getPaletteRow(y, new int[WIDTH]), actual.getPaletteRow(y, new int[WIDTH]), "row " + y);
+            }
+        }
+    }
+
+    private ImageModel dither(final DitheringMode mode, final int parallelism) {
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return new Ditherer(pool).dither(createImageModel(), mode, YARNS, DithererTest::scan);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @return model of the pixels, a new one for each dithering since the grid is rewritten
+     */
+    private ImageModel createImageModel() {
+        final Map<Integer, Integer> paletteIndices = new LinkedHashMap<>();
+        final List<PixelCrossColor> colors = new ArrayList<>();
+        final int[] indices = new int[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            indices[i] = paletteIndices.computeIfAbsent(pixels[i], argb -> {
+                colors.add(new PixelCrossColor(new Color(argb, true)));
+                return colors.size() - 1;
+            });
+        }
+        final int[] paletteCounts = new int[colors.size()];
+        for (final int index : indices) {
+            paletteCounts[index]++;
+        }
+        return new ImageModel(PaletteIndexGrid.of(WIDTH, HEIGHT, colors.size(), indices), colors, paletteCounts);
+    }
+
+    /**
+     * {@link NearestColorSearch} over {@link #YARNS}.
+     */
+    private static int scan(final int red, final int green, final int blue) {
+        int closestIndex = 0;
+        int closestDistance = Integer.MAX_VALUE;
+        for (int index = 0; index < YARNS.size(); index++) {
+            final Color color = YARNS.get(index).getColor();
+            final int dr = color.getRed() - red;
+            final int dg = color.getGreen() - green;
+            final int db = color.getBlue() - blue;
+            final int distance = dr * dr + dg * dg + db * db;
+            if (distance < closestDistance) {
+                closestIndex = index;
+                closestDistance = distance;
+            }
+        }
+        return closestIndex;
+    }
+
+    /**
+     * @return ARGB gradients, some pixels are (partly) transparent
+     */
+    private static int[] createPixels(final Random random) {
+        final int[] pixels = new int[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                final int alpha = random.nextInt(10) == 0 ? random.nextInt(255) : 0xFF;
+                final int rgb = x * 255 / WIDTH << 16 | y * 255 / HEIGHT << 8 | (x + y) & 0xFF;
+                pixels[y * WIDTH + x] = alpha << 24 | rgb;
+            }
+        }
+        return pixels;
+    }
+
+    private static boolean isOpaque(final int argb) {
+        return argb >>> 24 == 0xFF;
+    }
+
+    private static Yarn createYarn(final String id, final int rgb) {
+        return Yarn.newBuilder().withColor(new Color(rgb)).withId(id).withName(id).build();
+    }
+
+}
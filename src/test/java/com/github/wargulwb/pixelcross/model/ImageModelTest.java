@@ -0,0 +1,119 @@
+package com.github.wargulwb.pixelcross.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.wargulwb.pixelcross.model.yarn.Yarn;
+
+class ImageModelTest {
+
+    @Test
+    void indexesCollidingYarnsInTheOrderOfEarlierVersions() {
+        // a and b fall into the same bucket of a HashMap with 16 buckets, b is found first column by column
+        final Color a = new Color(0xFF000001, true);
+        final Color b = new Color(0xFF000011, true);
+        final Color c = new Color(0xFF000002, true);
+        final ImageModel imageModel = createImageModel(3, new Color[] {
+                c, a, c,
+                b, a, c});
+
+        // the palette is in the order the colors occur row by row
+        assertEquals(List.of("c", "a", "b"), imageModel.getColors().stream().map(color -> color.getYarn().getId()).toList());
+        assertEquals(List.of("b", "a", "c"), imageModel.getYarns().stream().map(Yarn::getId).toList());
+        assertEquals(1, imageModel.getYarnIndex(imageModel.getColors().get(2).getYarn()));
+        assertEquals(2, imageModel.getYarnIndex(imageModel.getColors().get(1).getYarn()));
+        assertEquals(3, imageModel.getYarnIndex(imageModel.getColors().get(0).getYarn()));
+    }
+
+    @Test
+    void indexesYarnsLikeHashMapOfColorsFilledColumnByColumn() {
+        final Random random = new Random(7L);
+        final int width = 40;
+        final int height = 30;
+        final Color[] pixels = new Color[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            // few distinct low bits, so many colors share buckets, and enough colors to resize the map several times, some
+            // colors are transparent and pairs of colors share a yarn
+            final int alpha = random.nextInt(10) == 0 ? 0 : 0xFF;
+            pixels[i] = new Color(alpha << 24 | random.nextInt(300) << 8 | random.nextInt(4), true);
+        }
+        final ImageModel imageModel = createImageModel(width, pixels);
+
+        final Map<Color, PixelCrossColor> colorMemory = new HashMap<>();
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                final Color color = new Color(pixels[y * width + x].getRGB(), true);
+                colorMemory.putIfAbsent(color, imageModel.getPixelColor(x, y));
+            }
+        }
+        final List<Yarn> expected = colorMemory.values().stream()
+                .filter(PixelCrossColor::isPixelOpaque)
+                .map(PixelCrossColor::getYarn)
+                .distinct()
+                .toList();
+        assertEquals(expected, List.copyOf(imageModel.getYarns()));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(i + 1, imageModel.getYarnIndex(expected.get(i)));
+        }
+    }
+
+    /**
+     * @return model of the given row by row pixels, the opaque colors get the yarns named by {@link #getName(Color)}
+     */
+    private static ImageModel createImageModel(final int width, final Color[] pixels) {
+        final Map<String, Yarn> yarns = new HashMap<>();
+        final Map<Color, Integer> paletteIndices = new LinkedHashMap<>();
+        final List<PixelCrossColor> colors = new ArrayList<>();
+        final int[] indices = new int[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            final Color pixel = pixels[i];
+            indices[i] = paletteIndices.computeIfAbsent(pixel, color -> {
+                final PixelCrossColor pixelCrossColor = new PixelCrossColor(color);
+                if (pixelCrossColor.isPixelOpaque()) {
+                    pixelCrossColor.setYarn(yarns.computeIfAbsent(getName(color), name -> Yarn.newBuilder()
+                            .withColor(color)
+                            .withId(name)
+                            .withName(name)
+                            .build()));
+                }
+                colors.add(pixelCrossColor);
+                return colors.size() - 1;
+            });
+        }
+        final int[] paletteCounts = new int[colors.size()];
+        for (final int index : indices) {
+            paletteCounts[index]++;
+        }
+        final ImageModel imageModel =
+                new ImageModel(PaletteIndexGrid.of(width, pixels.length / width, colors.size(), indices), colors, paletteCounts);
+        imageModel.updateYarnIndexMap();
+        return imageModel;
+    }
+
+    /**
+     * @return 'a' to 'c' for the colors 0x000001, 0x000011 and 0x000002, otherwise a name shared by the colors which
+     *         only differ in the lowest bit of green
+     */
+    private static String getName(final Color color) {
+        switch (color.getRGB()) {
+            case 0xFF000001:
+                return "a";
+            case 0xFF000011:
+                return "b";
+            case 0xFF000002:
+                return "c";
+            default:
+                return Integer.toHexString(color.getRGB() >>> 9);
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.github.wargulwb.pixelcross.model;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.github.wargulwb.pixelcross.model.yarn.Yarn;
+
+/**
+ * Models for tests outside of this package, which cannot create them without loading an image.
+ */
+public final class ImageModels {
+
+    private ImageModels() {
+    }
+
+    /**
+     * @return model of the given size with crosses of random yarns, about every tenth cross is transparent
+     */
+    public static ImageModel createRandom(final int width, final int height, final List<Yarn> yarns, final Random random) {
+        final List<PixelCrossColor> colors = new ArrayList<>();
+        for (final Yarn yarn : yarns) {
+            colors.add(new PixelCrossColor(yarn.getColor()).setYarn(yarn));
+        }
+        colors.add(new PixelCrossColor(new Color(0, true)));
+        final int[] indices = new int[width * height];
+        final int[] paletteCounts = new int[colors.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = random.nextInt(10) == 0 ? yarns.size() : random.nextInt(yarns.size());
+            paletteCounts[indices[i]]++;
+        }
+        final ImageModel imageModel =
+                new ImageModel(PaletteIndexGrid.of(width, height, colors.size(), indices), colors, paletteCounts);
+        imageModel.updateYarnIndexMap();
+        return imageModel;
+    }
+
+}
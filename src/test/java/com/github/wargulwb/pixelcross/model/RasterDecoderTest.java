@@ -0,0 +1,139 @@
+package com.github.wargulwb.pixelcross.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.github.wargulwb.pixelcross.model.RasterDecoder.DecodedRaster;
+
+class RasterDecoderTest {
+
+    private static final int[] PARALLELISMS = {2, 3, 8};
+
+    @ParameterizedTest
+    @CsvSource({
+            "2, 700, 600", // TYPE_INT_ARGB
+            "1, 1500, 300", // TYPE_INT_RGB
+            "6, 333, 1000", // TYPE_4BYTE_ABGR
+            "5, 1024, 257", // TYPE_3BYTE_BGR
+            "13, 640, 480", // TYPE_BYTE_INDEXED
+            "12, 520, 520"}) // TYPE_USHORT_GRAY, read through the generic fallback
+    void decodesLikeSequentialDecodingWithAnyParallelism(final int imageType, final int width, final int height) {
+        final BufferedImage image = createImage(imageType, width, height, new Random(imageType * 31L + width));
+        final DecodedRaster expected = decode(image, 1);
+        assertLikeImage(image, expected);
+
+        for (final int parallelism : PARALLELISMS) {
+            assertSameRaster(expected, decode(image, parallelism));
+        }
+        // bands decoded one after another still have to be merged like the parallel ones
+        final ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            assertSameRaster(expected, new RasterDecoder(pool).decodeParallel(image));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static DecodedRaster decode(final BufferedImage image, final int parallelism) {
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return new RasterDecoder(pool).decode(image);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Checks the raster against {@link BufferedImage#getRGB(int, int)}: the palette holds the colors in the order they
+     * first occur row by row, the counts are the pixels per color.
+     */
+    private static void assertLikeImage(final BufferedImage image, final DecodedRaster raster) {
+        final Map<Integer, Integer> counts = new LinkedHashMap<>();
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                final int argb = image.getRGB(x, y);
+                counts.merge(argb, 1, Integer::sum);
+                assertEquals(argb, raster.palette().keyAt(raster.indices()[y * image.getWidth() + x]), "ARGB at " + x + "," + y);
+            }
+        }
+        assertArrayEquals(counts.keySet().stream().mapToInt(Integer::intValue).toArray(), getPalette(raster));
+        assertArrayEquals(counts.values().stream().mapToInt(Integer::intValue).toArray(), raster.paletteCounts());
+    }
+
+    private static void assertSameRaster(final DecodedRaster expected, final DecodedRaster actual) {
+        assertArrayEquals(getPalette(expected), getPalette(actual));
+        assertArrayEquals(expected.paletteCounts(), actual.paletteCounts());
+        final PaletteIndexGrid expectedGrid = toGrid(expected);
+        final PaletteIndexGrid actualGrid = toGrid(actual);
+        final int[] expectedRow = new int[expected.width()];
+        final int[] actualRow = new int[actual.width()];
+        for (int y = 0; y < expected.height(); y++) {
+            expectedGrid.getRow(y, expectedRow, 0);
+            actualGrid.getRow(y, actualRow, 0);
+            assertArrayEquals(expectedRow, actualRow, "row " + y);
+        }
+    }
+
+    private static int[] getPalette(final DecodedRaster raster) {
+        final int[] palette = new int[raster.palette().size()];
+        for (int index = 0; index < palette.length; index++) {
+            palette[index] = raster.palette().keyAt(index);
+        }
+        return palette;
+    }
+
+    private static PaletteIndexGrid toGrid(final DecodedRaster raster) {
+        return PaletteIndexGrid.of(raster.width(), raster.height(), raster.palette().size(), raster.indices());
+    }
+
+    /**
+     * @return image with thousands of colors, new ones keep occurring further down, so later bands bring colors the
+     *         earlier bands did not see
+     */
+    private static BufferedImage createImage(final int imageType, final int width, final int height, final Random random) {
+        final BufferedImage image = imageType == BufferedImage.TYPE_BYTE_INDEXED
+                ? new BufferedImage(width, height, imageType, createColorModel(random))
+                : new BufferedImage(width, height, imageType);
+        final int[] colors = new int[5_000];
+        for (int i = 0; i < colors.length; i++) {
+            final int alpha = i % 7 == 0 ? random.nextInt(256) : 0xFF;
+            colors[i] = alpha << 24 | random.nextInt(1 << 24);
+        }
+        final int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            final int available = Math.min(colors.length, 20 + y * 8);
+            for (int x = 0; x < width; x++) {
+                // runs of equal colors, like in a drawing, between noise
+                row[x] = x > 0 && random.nextInt(4) > 0 ? row[x - 1] : colors[random.nextInt(available)];
+            }
+            image.setRGB(0, y, width, 1, row, 0, width);
+        }
+        return image;
+    }
+
+    private static IndexColorModel createColorModel(final Random random) {
+        final byte[] reds = new byte[256];
+        final byte[] greens = new byte[256];
+        final byte[] blues = new byte[256];
+        final byte[] alphas = new byte[256];
+        random.nextBytes(reds);
+        random.nextBytes(greens);
+        random.nextBytes(blues);
+        random.nextBytes(alphas);
+        for (int i = 0; i < alphas.length; i += 2) {
+            alphas[i] = (byte) 0xFF;
+        }
+        return new IndexColorModel(8, 256, reds, greens, blues, alphas);
+    }
+
+}
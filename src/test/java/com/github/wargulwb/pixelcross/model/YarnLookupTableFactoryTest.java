@@ -0,0 +1,106 @@
+package com.github.wargulwb.pixelcross.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.wargulwb.pixelcross.config.PixelCrossConfig;
+import com.github.wargulwb.pixelcross.model.yarn.Yarn;
+import com.github.wargulwb.pixelcross.model.yarn.YarnCatalog;
+import com.github.wargulwb.pixelcross.model.yarn.YarnSortiment;
+import com.github.wargulwb.pixelcross.utils.ColorLookupTable;
+
+class YarnLookupTableFactoryTest {
+
+    private static final String METRIC = "rgb";
+
+    @TempDir
+    Path configDirectory;
+
+    private final PixelCrossConfig config = mock(PixelCrossConfig.class);
+    private final YarnLookupTableFactory factory = new YarnLookupTableFactory(config);
+
+    @BeforeEach
+    void setUp() {
+        when(config.getConfigDirectory()).thenReturn(Optional.of(configDirectory));
+        when(config.isPersistentLookupTable()).thenReturn(true);
+        when(config.getLookupTableBits()).thenReturn(8);
+    }
+
+    @Test
+    void reusesTableOfSameYarnsMetricAndBits() throws IOException {
+        assertEquals(1, lookup(factory.create(createCatalog("a", Color.RED), METRIC, (red, green, blue) -> 1)));
+
+        // the match is read from the file, the search of the second table is not asked
+        assertEquals(1, lookup(factory.create(createCatalog("a", Color.RED), METRIC, (red, green, blue) -> 2)));
+        assertEquals(1, listTables().size());
+    }
+
+    @Test
+    void rebuildsTableOnceYarnsMetricOrBitsChange() throws IOException {
+        assertEquals(1, lookup(factory.create(createCatalog("a", Color.RED), METRIC, (red, green, blue) -> 1)));
+
+        assertEquals(2, lookup(factory.create(createCatalog("a", Color.BLUE), METRIC, (red, green, blue) -> 2)));
+        assertEquals(3, lookup(factory.create(createCatalog("b", Color.RED), METRIC, (red, green, blue) -> 3)));
+        assertEquals(4, lookup(factory.create(createCatalog("a", Color.RED), "lab", (red, green, blue) -> 4)));
+        when(config.getLookupTableBits()).thenReturn(6);
+        assertEquals(5, lookup(factory.create(createCatalog("a", Color.RED), METRIC, (red, green, blue) -> 5)));
+    }
+
+    @Test
+    void keepsOnlyTheMostRecentlyUsedStaleTables() throws IOException {
+        final List<Path> tables = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            final Set<Path> before = i == 0 ? Set.of() : new HashSet<>(listTables());
+            factory.create(createCatalog("a", Color.RED), "metric" + i, (red, green, blue) -> 1);
+            final Path table = listTables().stream().filter(file -> !before.contains(file)).findFirst().orElseThrow();
+            // modification times of files written in quick succession might be equal
+            Files.setLastModifiedTime(table, FileTime.fromMillis(1_000_000L * (i + 1)));
+            tables.add(table);
+        }
+        assertEquals(Set.copyOf(tables.subList(2, 6)), Set.copyOf(listTables()));
+
+        // using a kept table again makes it the most recently used one
+        factory.create(createCatalog("a", Color.RED), "metric2", (red, green, blue) -> 1);
+        factory.create(createCatalog("a", Color.RED), "metric6", (red, green, blue) -> 1);
+        assertEquals(4, listTables().size());
+        assertTrue(Files.exists(tables.get(2)));
+        assertFalse(Files.exists(tables.get(3)));
+    }
+
+    private static int lookup(final ColorLookupTable lookupTable) {
+        return lookupTable.getClosestNeighborIndex(10, 20, 30);
+    }
+
+    private List<Path> listTables() throws IOException {
+        try (Stream<Path> files = Files.list(configDirectory.resolve("cache"))) {
+            return files.toList();
+        }
+    }
+
+    private static YarnCatalog createCatalog(final String id, final Color color) {
+        return YarnCatalog.of(List.of(YarnSortiment.newBuilder()
+                .withProducer("producer")
+                .withYarns(List.of(Yarn.newBuilder().withColor(color).withId(id).withName(id).build()))
+                .build()));
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.github.wargulwb.pixelcross.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ColorKdTreeTest {
+
+    private static final int QUERIES = 2_000;
+
+    private final ColorUtils colorUtils = new ColorUtils();
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 7, 8, 9, 17, 100, 500})
+    void answersLikeLinearScan(final int size) {
+        final Random random = new Random(size);
+        assertLikeLinearScan(randomColors(random, size, 256), random, 256);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 9, 50, 300})
+    void resolvesTiesLikeLinearScan(final int size) {
+        // few distinct channel values, so most queries have several closest colors at the same distance
+        final Random random = new Random(size);
+        assertLikeLinearScan(randomColors(random, size, 4), random, 5);
+    }
+
+    @Test
+    void resolvesDuplicatesLikeLinearScan() {
+        final Random random = new Random(42L);
+        final List<ColorHolder> colors = randomColors(random, 60, 256);
+        // every color again in reverse order, the first occurrence has to win
+        for (int i = colors.size() - 1; i >= 0; i--) {
+            final Color color = colors.get(i).getColor();
+            colors.add(() -> color);
+        }
+        assertLikeLinearScan(colors, random, 256);
+    }
+
+    @Test
+    void resolvesEquidistantColorsLikeLinearScan() {
+        // pairs of reds 10i and 10i + 2, the query 10i + 1 is equally far from both, every other pair starts with the higher one
+        final List<ColorHolder> colors = new ArrayList<>();
+        for (int pair = 0; pair < 25; pair++) {
+            final Color lower = new Color(pair * 10, 100, 50);
+            final Color higher = new Color(pair * 10 + 2, 100, 50);
+            colors.add(pair % 2 == 0 ? () -> lower : () -> higher);
+            colors.add(pair % 2 == 0 ? () -> higher : () -> lower);
+        }
+        final ColorKdTree tree = createTree(colors);
+        for (int pair = 0; pair < 25; pair++) {
+            final int red = pair * 10 + 1;
+            assertEquals(pair * 2, scan(colors, new Color(red, 100, 50)));
+            assertEquals(pair * 2, tree.getClosestNeighborIndex(red, 100, 50));
+        }
+    }
+
+    private void assertLikeLinearScan(final List<ColorHolder> colors, final Random random, final int queryChannelValues) {
+        final ColorKdTree tree = createTree(colors);
+        for (int i = 0; i < QUERIES; i++) {
+            final Color query = new Color(random.nextInt(queryChannelValues), random.nextInt(queryChannelValues), random.nextInt(queryChannelValues));
+            assertEquals(scan(colors, query),
+                         tree.getClosestNeighborIndex(query.getRed(), query.getGreen(), query.getBlue()),
+                         "Closest color of " + query + " among " + colors.size() + " colors");
+        }
+    }
+
+    /**
+     * @return the index of the reference answer, the holders are lambdas and compared by identity
+     */
+    private int scan(final List<ColorHolder> colors, final Color query) {
+        return colors.indexOf(colorUtils.getClosestNeighborByColor(query, colors));
+    }
+
+    private static ColorKdTree createTree(final List<ColorHolder> colors) {
+        return new ColorKdTree(colors.stream().mapToInt(holder -> holder.getColor().getRed()).toArray(),
+                               colors.stream().mapToInt(holder -> holder.getColor().getGreen()).toArray(),
+                               colors.stream().mapToInt(holder -> holder.getColor().getBlue()).toArray());
+    }
+
+    private static List<ColorHolder> randomColors(final Random random, final int size, final int channelValues) {
+        final List<ColorHolder> colors = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final Color color = new Color(random.nextInt(channelValues), random.nextInt(channelValues), random.nextInt(channelValues));
+            colors.add(() -> color);
+        }
+        return colors;
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.github.wargulwb.pixelcross.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ColorLookupTableTest {
+
+    private static final int COLOR_COUNT = 1 << 24;
+    private static final int QUERIES = 100_000;
+
+    private final Random random = new Random(11L);
+    private final int[] reds = randomChannel(random);
+    private final int[] greens = randomChannel(random);
+    private final int[] blues = randomChannel(random);
+    private final AtomicInteger searches = new AtomicInteger();
+    private final NearestColorSearch search = (red, green, blue) -> {
+        searches.incrementAndGet();
+        return scan(red, green, blue);
+    };
+
+    @TempDir
+    Path directory;
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void answersLikeSearchWithEightBits(final boolean mapped) throws IOException {
+        final ColorLookupTable table = createTable(mapped, 8);
+        final int[] colors = random.ints(QUERIES, 0, COLOR_COUNT).toArray();
+        for (final int rgb : colors) {
+            assertLookup(scan(rgb >> 16, rgb >> 8 & 0xFF, rgb & 0xFF), table, rgb);
+        }
+        // colors looked up before are answered from the table
+        final int searchCount = searches.get();
+        for (final int rgb : colors) {
+            assertLookup(scan(rgb >> 16, rgb >> 8 & 0xFF, rgb & 0xFF), table, rgb);
+        }
+        assertEquals(searchCount, searches.get());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void answersLikeSearchForEveryColorAfterPrefill(final boolean mapped) throws IOException {
+        final ColorLookupTable table = createTable(mapped, 8);
+        // some entries are filled lazily before, prefill only searches the missing ones
+        for (int i = 0; i < QUERIES; i++) {
+            final int rgb = random.nextInt(COLOR_COUNT);
+            table.getClosestNeighborIndex(rgb >> 16, rgb >> 8 & 0xFF, rgb & 0xFF);
+        }
+        table.prefill();
+        assertEquals(COLOR_COUNT, searches.get());
+
+        for (int rgb = 0; rgb < COLOR_COUNT; rgb++) {
+            assertLookup(scan(rgb >> 16, rgb >> 8 & 0xFF, rgb & 0xFF), table, rgb);
+        }
+        assertEquals(COLOR_COUNT, searches.get());
+    }
+
+    @Test
+    void answersFromEntriesAlreadyInMappedFile() throws IOException {
+        createTable(true, 8).prefill();
+
+        final ColorLookupTable table = createTable(true, 8);
+        for (int rgb = 0; rgb < COLOR_COUNT; rgb += 97) {
+            assertLookup(scan(rgb >> 16, rgb >> 8 & 0xFF, rgb & 0xFF), table, rgb);
+        }
+        assertEquals(COLOR_COUNT, searches.get());
+    }
+
+    @ParameterizedTest
+    @CsvSource({"false, 1", "false, 3", "false, 5", "false, 7", "true, 3", "true, 7"})
+    void answersForCellCenterWithLessBits(final boolean mapped, final int bitsPerChannel) throws IOException {
+        final ColorLookupTable table = createTable(mapped, bitsPerChannel);
+        final int shift = 8 - bitsPerChannel;
+        final int cellMask = 0xFF >> shift << shift;
+        final int center = 1 << shift - 1;
+        for (int i = 0; i < QUERIES; i++) {
+            final int rgb = random.nextInt(COLOR_COUNT);
+            final int expected =
+                    scan((rgb >> 16 & cellMask) | center, (rgb >> 8 & cellMask) | center, (rgb & cellMask) | center);
+            assertLookup(expected, table, rgb);
+        }
+    }
+
+    private ColorLookupTable createTable(final boolean mapped, final int bitsPerChannel) throws IOException {
+        if (!mapped) {
+            return new ColorLookupTable(search, bitsPerChannel);
+        }
+        // the mapping stays valid after the channel was closed
+        try (FileChannel channel = FileChannel.open(directory.resolve("table-" + bitsPerChannel + ".bin"),
+                                                    StandardOpenOption.CREATE,
+                                                    StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+            return ColorLookupTable.mapped(search, bitsPerChannel, channel, 0);
+        }
+    }
+
+    private static void assertLookup(final int expected, final ColorLookupTable table, final int rgb) {
+        assertEquals(expected,
+                     table.getClosestNeighborIndex(rgb >> 16, rgb >> 8 & 0xFF, rgb & 0xFF),
+                     () -> "Closest color of " + Integer.toHexString(rgb));
+    }
+
+    /**
+     * @return index of the first closest of the random colors
+     */
+    private int scan(final int red, final int green, final int blue) {
+        int closestIndex = 0;
+        int closestDistance = Integer.MAX_VALUE;
+        for (int index = 0; index < reds.length; index++) {
+            final int dr = reds[index] - red;
+            final int dg = greens[index] - green;
+            final int db = blues[index] - blue;
+            final int distance = dr * dr + dg * dg + db * db;
+            if (distance < closestDistance) {
+                closestIndex = index;
+                closestDistance = distance;
+            }
+        }
+        return closestIndex;
+    }
+
+    private static int[] randomChannel(final Random random) {
+        final int[] channel = new int[24];
+        for (int index = 0; index < channel.length; index++) {
+            channel[index] = random.nextInt(256);
+        }
+        return channel;
+    }
+
+}
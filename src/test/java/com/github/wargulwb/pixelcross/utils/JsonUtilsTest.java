@@ -0,0 +1,138 @@
+package com.github.wargulwb.pixelcross.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class JsonUtilsTest {
+
+    private final JsonUtils jsonUtils = new JsonUtils();
+
+    @Test
+    void parsesAllValueTypesKeepingMemberOrder() {
+        final Map<String, Object> object = jsonUtils.parseObject(
+                " {\"z\": 1, \"a\": [true, false, null], \"m\": {\"s\": \"x\"}, \"d\": -2.5e1, \"e\": {}, \"f\": []} ");
+
+        assertEquals(List.of("z", "a", "m", "d", "e", "f"), List.copyOf(object.keySet()));
+        assertEquals(1L, object.get("z"));
+        assertEquals(Arrays.asList(true, false, null), object.get("a"));
+        assertEquals(Map.of("s", "x"), object.get("m"));
+        assertEquals(-25D, object.get("d"));
+        assertEquals(Map.of(), object.get("e"));
+        assertEquals(List.of(), object.get("f"));
+    }
+
+    @Test
+    void parsesIntegralNumbersAsLongsAndOthersAsDoubles() {
+        final Map<String, Object> object = jsonUtils.parseObject("{\"a\":0,\"b\":-9007199254740993,\"c\":1.0,\"d\":1E3}");
+
+        assertEquals(0L, object.get("a"));
+        assertEquals(-9007199254740993L, object.get("b"));
+        assertEquals(1D, object.get("c"));
+        assertEquals(1000D, object.get("d"));
+    }
+
+    @Test
+    void parsesNumbersBeyondLongAndDoubleWithoutLoss() {
+        final String json = "{\"id\":12345678901234567890,\"min\":-9223372036854775809,\"big\":1e999,\"small\":-1.5E+400}";
+        final Map<String, Object> object = jsonUtils.parseObject(json);
+
+        assertEquals(new BigInteger("12345678901234567890"), object.get("id"));
+        assertEquals(new BigInteger("-9223372036854775809"), object.get("min"));
+        assertEquals(new BigDecimal("1e999"), object.get("big"));
+        assertEquals(new BigDecimal("-1.5E+400"), object.get("small"));
+        assertEquals("{\"id\":12345678901234567890,\"min\":-9223372036854775809,\"big\":1E+999,\"small\":-1.5E+400}",
+                     jsonUtils.toJson(object));
+    }
+
+    @Test
+    void parsesLongLimitsAsLongs() {
+        final Map<String, Object> object = jsonUtils.parseObject("{\"max\":9223372036854775807,\"min\":-9223372036854775808}");
+
+        assertEquals(Long.MAX_VALUE, object.get("max"));
+        assertEquals(Long.MIN_VALUE, object.get("min"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(doubles = {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN})
+    void rejectsWritingNonFiniteNumbers(final double number) {
+        assertThrows(IllegalArgumentException.class, () -> jsonUtils.toJson(Map.of("id", number)));
+        assertThrows(IllegalArgumentException.class, () -> jsonUtils.toJson(List.of((float) number)));
+    }
+
+    @Test
+    void parsesEscapes() {
+        final Map<String, Object> object =
+                jsonUtils.parseObject("{\"s\":\"\\\"\\\\\\/\\b\\f\\n\\r\\t\",\"u\":\"\\u0041\\u00e9\\uD83D\\uDE00\\u0000\"}");
+
+        assertEquals("\"\\/\b\f\n\r\t", object.get("s"));
+        assertEquals("A\u00e9\uD83D\uDE00\u0000", object.get("u"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "[]", "{", "{\"a\":1", "{\"a\":1}x", "{\"a\":1} {}", "{a:1}", "{\"a\" 1}", "{\"a\":1,}",
+            "{\"a\":[1,]}", "{\"a\":tru}", "{\"a\":-}", "{\"a\":\"x}", "{\"a\":\"\\x\"}", "{\"a\":\"\\u12\"}",
+            "{\"a\":\"\\u12g4\"}"})
+    void rejectsInvalidText(final String json) {
+        assertThrows(IllegalArgumentException.class, () -> jsonUtils.parseObject(json));
+    }
+
+    @Test
+    void acceptsNestingUpToMaxDepth() {
+        final String json = "{\"a\":" + "[".repeat(JsonUtils.MAX_DEPTH - 1) + "]".repeat(JsonUtils.MAX_DEPTH - 1) + "}";
+
+        assertEquals(1, jsonUtils.parseObject(json).size());
+    }
+
+    @Test
+    void rejectsNestingDeeperThanMaxDepth() {
+        final String json = "{\"a\":" + "[".repeat(JsonUtils.MAX_DEPTH) + "]".repeat(JsonUtils.MAX_DEPTH) + "}";
+
+        assertThrows(IllegalArgumentException.class, () -> jsonUtils.parseObject(json));
+    }
+
+    @Test
+    void rejectsHugeNestingWithoutStackOverflow() {
+        final String json = "{\"id\":1,\"x\":" + "[".repeat(200_000);
+
+        assertThrows(IllegalArgumentException.class, () -> jsonUtils.parseObject(json));
+    }
+
+    @Test
+    void writesValuesOnOneLine() {
+        final Map<String, Object> value = new LinkedHashMap<>();
+        value.put("id", null);
+        value.put("ok", true);
+        value.put("n", 42L);
+        value.put("d", 1.5D);
+        value.put("list", List.of("a", 1L));
+        value.put("map", Map.of("k", List.of()));
+
+        assertEquals("{\"id\":null,\"ok\":true,\"n\":42,\"d\":1.5,\"list\":[\"a\",1],\"map\":{\"k\":[]}}", jsonUtils.toJson(value));
+    }
+
+    @Test
+    void writesEscapes() {
+        assertEquals("\"q\\\"b\\\\n\\nr\\rt\\tc\\u0001/\u00e9\"", jsonUtils.toJson("q\"b\\n\nr\rt\tc\u0001/\u00e9"));
+    }
+
+    @Test
+    void parsesWrittenText() {
+        final Map<String, Object> value = new LinkedHashMap<>();
+        value.put("s", "line\nbreak \"quoted\" \\ \u0007");
+        value.put("list", Arrays.asList(1L, -2.5D, null, false));
+
+        assertEquals(value, jsonUtils.parseObject(jsonUtils.toJson(value)));
+    }
+
+}
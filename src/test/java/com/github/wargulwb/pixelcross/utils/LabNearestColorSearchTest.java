@@ -0,0 +1,88 @@
+package com.github.wargulwb.pixelcross.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class LabNearestColorSearchTest {
+
+    private static final int QUERIES = 2_000;
+
+    private final ColorUtils colorUtils = new ColorUtils();
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 10, 100, 500})
+    void answersLikeBruteForce(final int size) {
+        final Random random = new Random(size);
+        assertLikeBruteForce(randomChannels(random, size, 256), random, 256);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 60})
+    void resolvesTiesLikeBruteForce(final int size) {
+        // few distinct channel values, so colors repeat and most queries have several closest colors
+        final Random random = new Random(size);
+        assertLikeBruteForce(randomChannels(random, size, 3), random, 4);
+    }
+
+    @Test
+    void answersLikeBruteForceAtExtremeLightness() {
+        // the lightness bound is weakest where S_L is largest, at black and white
+        final Random random = new Random(7L);
+        final int[][] channels = randomChannels(random, 200, 256);
+        final LabNearestColorSearch search = new LabNearestColorSearch(colorUtils, channels[0], channels[1], channels[2]);
+        for (int gray = 0; gray < 256; gray++) {
+            for (final int value : new int[] {gray, Math.min(255, gray + 3)}) {
+                assertEquals(bruteForce(channels, gray, gray, value), search.getClosestNeighborIndex(gray, gray, value));
+            }
+        }
+    }
+
+    private void assertLikeBruteForce(final int[][] channels, final Random random, final int queryChannelValues) {
+        final LabNearestColorSearch search = new LabNearestColorSearch(colorUtils, channels[0], channels[1], channels[2]);
+        for (int i = 0; i < QUERIES; i++) {
+            final int red = random.nextInt(queryChannelValues);
+            final int green = random.nextInt(queryChannelValues);
+            final int blue = random.nextInt(queryChannelValues);
+            assertEquals(bruteForce(channels, red, green, blue),
+                         search.getClosestNeighborIndex(red, green, blue),
+                         "Closest color of (" + red + ", " + green + ", " + blue + ") among " + channels[0].length + " colors");
+        }
+    }
+
+    /**
+     * @return index of the first color with the smallest CIEDE2000 difference to the query
+     */
+    private int bruteForce(final int[][] channels, final int red, final int green, final int blue) {
+        final double[] query = colorUtils.toLab(red, green, blue, new double[3]);
+        double bestDistance = Double.MAX_VALUE;
+        int bestIndex = -1;
+        for (int i = 0; i < channels[0].length; i++) {
+            final double[] lab = colorUtils.toLab(channels[0][i], channels[1][i], channels[2][i], new double[3]);
+            final double distance = colorUtils.deltaE2000Squared(query[0], query[1], query[2], lab[0], lab[1], lab[2]);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                bestIndex = i;
+            }
+        }
+        return bestIndex;
+    }
+
+    /**
+     * @return reds, greens and blues of the colors
+     */
+    private static int[][] randomChannels(final Random random, final int size, final int channelValues) {
+        final int[][] channels = new int[3][size];
+        for (int i = 0; i < size; i++) {
+            for (int channel = 0; channel < 3; channel++) {
+                channels[channel][i] = random.nextInt(channelValues);
+            }
+        }
+        return channels;
+    }
+
+}
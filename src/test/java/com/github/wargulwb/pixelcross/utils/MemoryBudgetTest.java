@@ -0,0 +1,156 @@
+package com.github.wargulwb.pixelcross.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+class MemoryBudgetTest {
+
+    private static final long TIMEOUT_MILLIS = 5_000L;
+
+    private final MemoryBudget budget = new MemoryBudget(100L);
+
+    @Test
+    void rejectsCapacityOfZero() {
+        assertThrows(IllegalArgumentException.class, () -> new MemoryBudget(0L));
+    }
+
+    @Test
+    void admitsJobsWhichFitTogether() throws InterruptedException {
+        budget.acquire(60L);
+        budget.acquire(40L);
+
+        assertAdmitted(start(() -> budget.acquire(0L)));
+    }
+
+    @Test
+    void admitsJobOnceEnoughWasReleased() throws InterruptedException {
+        budget.acquire(60L);
+        budget.acquire(30L);
+        final Waiter waiter = start(() -> budget.acquire(50L));
+        assertBlocked(waiter);
+
+        budget.release(30L);
+        assertBlocked(waiter); // 60 + 50 still exceed the budget
+        budget.release(60L);
+        assertAdmitted(waiter);
+    }
+
+    @Test
+    void admitsJobLargerThanBudgetOnlyIfNoOtherJobRuns() throws InterruptedException {
+        budget.acquire(1L);
+        final Waiter waiter = start(() -> budget.acquire(500L));
+        assertBlocked(waiter);
+
+        budget.release(1L);
+        assertAdmitted(waiter);
+        assertBlocked(start(() -> budget.acquire(1L)));
+    }
+
+    @Test
+    void admitsJobIfNoOtherJobRunsEvenIfReservationsTakeTheBudget() throws InterruptedException {
+        budget.reserve(100L);
+
+        assertAdmitted(start(() -> budget.acquire(50L)));
+        assertBlocked(start(() -> budget.acquire(1L)));
+    }
+
+    @Test
+    void blocksReservationWhichDoesNotFit() throws InterruptedException {
+        budget.acquire(70L);
+        final Waiter waiter = start(() -> budget.reserve(40L));
+        assertBlocked(waiter);
+
+        budget.release(70L);
+        assertAdmitted(waiter);
+    }
+
+    @Test
+    void reservesMoreThanBudgetOnlyIfNothingIsInUse() throws InterruptedException {
+        budget.reserve(150L);
+        final Waiter waiter = start(() -> budget.reserve(1L));
+        assertBlocked(waiter);
+
+        budget.unreserve(150L);
+        assertAdmitted(waiter);
+    }
+
+    @Test
+    void admitsJobOnceReservationWasReturned() throws InterruptedException {
+        budget.acquire(10L);
+        budget.reserve(80L);
+        final Waiter waiter = start(() -> budget.acquire(20L));
+        assertBlocked(waiter);
+
+        budget.unreserve(80L);
+        assertAdmitted(waiter);
+    }
+
+    @Test
+    void leavesBudgetUnchangedIfWaitingJobIsInterrupted() throws InterruptedException {
+        budget.acquire(100L);
+        final Waiter waiter = start(() -> budget.acquire(1L));
+        assertBlocked(waiter);
+
+        waiter.thread.interrupt();
+        waiter.thread.join(TIMEOUT_MILLIS);
+        assertTrue(waiter.failure.get() instanceof InterruptedException);
+        budget.release(100L);
+        // the interrupted job took nothing, so the whole budget is free again
+        assertAdmitted(start(() -> budget.acquire(100L)));
+    }
+
+    private static Waiter start(final Action action) {
+        final Waiter waiter = new Waiter(action);
+        waiter.thread.start();
+        return waiter;
+    }
+
+    private static void assertBlocked(final Waiter waiter) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (waiter.thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1L);
+        }
+        assertEquals(Thread.State.WAITING, waiter.thread.getState());
+        assertFalse(waiter.admitted.await(50L, TimeUnit.MILLISECONDS));
+    }
+
+    private static void assertAdmitted(final Waiter waiter) throws InterruptedException {
+        assertTrue(waiter.admitted.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @FunctionalInterface
+    private interface Action {
+
+        void run() throws InterruptedException;
+
+    }
+
+    private static final class Waiter {
+
+        private final CountDownLatch admitted = new CountDownLatch(1);
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        private final Thread thread;
+
+        private Waiter(final Action action) {
+            thread = new Thread(() -> {
+                try {
+                    action.run();
+                    admitted.countDown();
+                } catch (final InterruptedException exc) {
+                    failure.set(exc);
+                }
+            });
+            thread.setDaemon(true);
+        }
+
+    }
+
+}